@@ -6,6 +6,9 @@ import androidx.preference.PreferenceManager;
 
 import com.faisal.protoolkit.ads.AdsManager;
 import com.faisal.protoolkit.data.settings.SettingsRepository;
+import com.faisal.protoolkit.util.BitmapPool;
+import com.faisal.protoolkit.util.DeveloperModeUtil;
+import com.faisal.protoolkit.util.RenderTrace;
 import com.faisal.protoolkit.util.ServiceLocator;
 import com.faisal.protoolkit.util.ThemeUtils;
 
@@ -21,7 +24,14 @@ public class ProToolkitApp extends Application {
         PreferenceManager.setDefaultValues(this, R.xml.preferences_settings, false);
         SettingsRepository settingsRepository = ServiceLocator.getSettingsRepository();
         ThemeUtils.applyTheme(settingsRepository.getThemeMode());
+        RenderTrace.setEnabled(new DeveloperModeUtil(this).isRenderTracingEnabled());
         // Initialize AdsManager with context
         AdsManager.getInstance(this);
     }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        BitmapPool.get().trimMemory(level);
+    }
 }
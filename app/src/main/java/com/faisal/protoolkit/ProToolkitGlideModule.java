@@ -0,0 +1,53 @@
+package com.faisal.protoolkit;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.faisal.protoolkit.util.PageThumbnail;
+import com.faisal.protoolkit.util.PageThumbnailLoader;
+
+/**
+ * Glide configuration for list thumbnails. Both caches are bounded: the memory cache to a
+ * couple of screens of bitmaps, the disk cache of view-sized results to a fixed budget that
+ * is independent of {@link com.faisal.protoolkit.util.RenderCache}. Edited page thumbnails
+ * load through {@link PageThumbnailLoader}.
+ */
+@GlideModule
+public final class ProToolkitGlideModule extends AppGlideModule {
+
+    private static final String DISK_CACHE_NAME = "thumbnails";
+    private static final long DISK_CACHE_BYTES = 64L * 1024 * 1024;
+    // Visible rows plus the prefetch window, with room to scroll back
+    private static final float MEMORY_CACHE_SCREENS = 2f;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_NAME, DISK_CACHE_BYTES));
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.append(PageThumbnail.class, PageThumbnail.class, new PageThumbnailLoader.Factory());
+        registry.append(PageThumbnail.class, Bitmap.class,
+                new PageThumbnailLoader.Decoder(context, glide.getBitmapPool()));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
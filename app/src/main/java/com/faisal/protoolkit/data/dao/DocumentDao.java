@@ -45,4 +45,7 @@ public interface DocumentDao {
 
     @Query("UPDATE documents SET page_count = :pageCount, cover_page_index = :coverPageIndex, updated_at = :updatedAt WHERE id = :id")
     void updateDocumentMetadata(String id, int pageCount, int coverPageIndex, long updatedAt);
+
+    @Query("UPDATE documents SET updated_at = :updatedAt WHERE id = :id")
+    void updateDocumentUpdatedAt(String id, long updatedAt);
 }
\ No newline at end of file
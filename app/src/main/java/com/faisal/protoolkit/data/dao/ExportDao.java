@@ -10,6 +10,9 @@ public interface ExportDao {
     @Query("SELECT * FROM exports WHERE document_id = :documentId ORDER BY created_at DESC")
     LiveData<List<ExportEntity>> getExportsByDocument(String documentId);
 
+    @Query("SELECT uri_file FROM exports WHERE document_id = :documentId AND type = :type")
+    List<String> getExportFilesSync(String documentId, String type);
+
     @Query("SELECT * FROM exports WHERE id = :id LIMIT 1")
     ExportEntity getExportById(String id);
 
@@ -34,6 +34,9 @@ public interface PageDao {
     @Query("UPDATE pages SET edit_ops_json = :editOpsJson, updated_at = :updatedAt WHERE id = :pageId")
     void updatePageEditOps(String pageId, String editOpsJson, long updatedAt);
 
+    @Query("UPDATE pages SET width = :width, height = :height, original_bytes = :originalBytes WHERE id = :pageId")
+    void updatePageAssetInfo(String pageId, int width, int height, long originalBytes);
+
     @Query("UPDATE pages SET uri_render = :renderUri WHERE id = :pageId")
     void updatePageRenderUri(String pageId, String renderUri);
 
@@ -4,7 +4,10 @@ import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import android.content.Context;
+import androidx.annotation.NonNull;
 import com.faisal.protoolkit.data.entities.DocumentEntity;
 import com.faisal.protoolkit.data.entities.PageEntity;
 import com.faisal.protoolkit.data.entities.FolderEntity;
@@ -16,13 +19,21 @@ import com.faisal.protoolkit.data.dao.ExportDao;
 
 @Database(
     entities = {DocumentEntity.class, PageEntity.class, FolderEntity.class, ExportEntity.class},
-    version = 1,
+    version = 2,
     exportSchema = false
 )
 @TypeConverters({}) // We'll add converters if needed
 public abstract class AppDatabase extends RoomDatabase {
     private static AppDatabase INSTANCE;
 
+    // 2: pages.original_bytes, for the page asset index
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE pages ADD COLUMN original_bytes INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
     public abstract DocumentDao documentDao();
     public abstract PageDao pageDao();
     public abstract FolderDao folderDao();
@@ -34,6 +45,7 @@ public abstract class AppDatabase extends RoomDatabase {
                 if (INSTANCE == null) {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                             AppDatabase.class, "protoolkit_database")
+                            .addMigrations(MIGRATION_1_2)
                             .build();
                 }
             }
@@ -1,5 +1,6 @@
 package com.faisal.protoolkit.data.entities;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.annotation.NonNull;
@@ -26,6 +27,10 @@ public class PageEntity {
 
     public int height;
 
+    // Size of the original in bytes, recorded with width and height; 0 until measured
+    @ColumnInfo(defaultValue = "0")
+    public long original_bytes;
+
     public int dpi;
 
     public String ocr_lang;
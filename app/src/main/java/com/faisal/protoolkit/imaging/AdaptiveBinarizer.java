@@ -0,0 +1,196 @@
+package com.faisal.protoolkit.imaging;
+
+/**
+ * Sauvola adaptive binarization over an integral image.
+ *
+ * Each pixel is compared with a threshold from the mean {@code m} and standard deviation
+ * {@code s} of its local window, {@code m * (1 + k * (s / R - 1))}, so text stays black on
+ * unevenly lit pages where one global threshold fails. Window sums and sums of squares come
+ * from integral images in primitive {@code long[]}s built in one pass; a second pass
+ * thresholds.
+ *
+ * The whole-image form ({@link #binarize}) holds integrals for the full page. The strip-wise
+ * form is a {@link RowFilter}: it keeps only one strip plus the window radius above and below,
+ * builds integrals for that band and emits the strip, so memory is bounded by page width.
+ */
+public final class AdaptiveBinarizer implements RowFilter {
+
+    /** {@code EditOps.Filter.mode} value selecting this filter. */
+    public static final String MODE = "ADAPTIVE_BW";
+
+    // Sauvola parameters: sensitivity and dynamic range of the standard deviation
+    private static final double K = 0.2;
+    private static final double R = 128.0;
+    private static final int MIN_RADIUS = 7;
+    private static final int MAX_RADIUS = 32;
+    // Output rows computed per strip in the streaming form
+    private static final int STRIP_ROWS = 32;
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private int width;
+    private int height;
+    private int radius;
+    private int[] window = new int[0];   // luminance rows [windowTop, rowsIn)
+    private int[] strip = new int[0];    // binarized output rows [stripTop, stripTop + stripRows)
+    private long[] sum = new long[0];
+    private long[] sumSq = new long[0];
+    private int windowTop;
+    private int rowsIn;
+    private int stripTop;
+    private int stripRows;
+    private int rowsOut;
+
+    /**
+     * Window radius for a page, proportional to its size so previews and full-resolution
+     * renders binarize alike.
+     */
+    public static int radiusFor(int width, int height) {
+        return Math.max(MIN_RADIUS, Math.min(MAX_RADIUS, Math.max(width, height) / 64));
+    }
+
+    /**
+     * Binarizes a whole image from {@code src} into {@code dst} (may be the same array).
+     */
+    public static void binarize(int[] src, int[] dst, int width, int height) {
+        int[] luma = new int[width * height];
+        for (int i = 0; i < luma.length; i++) {
+            luma[i] = FilterKernel.luminance(src[i]);
+        }
+        long[] sum = new long[(width + 1) * (height + 1)];
+        long[] sumSq = new long[sum.length];
+        int radius = radiusFor(width, height);
+        integrate(luma, width, height, sum, sumSq);
+        threshold(luma, width, height, radius, sum, sumSq, 0, height, dst, 0);
+    }
+
+    /**
+     * Starts a new streamed image.
+     */
+    public void begin(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.radius = radiusFor(width, height);
+        this.windowTop = 0;
+        this.rowsIn = 0;
+        this.stripTop = 0;
+        this.stripRows = 0;
+        this.rowsOut = 0;
+        int windowRows = STRIP_ROWS + 2 * radius;
+        if (window.length < windowRows * width) {
+            window = new int[windowRows * width];
+            sum = new long[(width + 1) * (windowRows + 1)];
+            sumSq = new long[sum.length];
+        }
+        if (strip.length < STRIP_ROWS * width) {
+            strip = new int[STRIP_ROWS * width];
+        }
+    }
+
+    @Override
+    public void pushRow(int[] src, int offset) {
+        int local = rowsIn - windowTop;
+        if ((local + 1) * width > window.length) {
+            throw new IllegalStateException("pullRow must drain before more rows are pushed");
+        }
+        int base = local * width;
+        for (int x = 0; x < width; x++) {
+            window[base + x] = FilterKernel.luminance(src[offset + x]);
+        }
+        rowsIn++;
+    }
+
+    @Override
+    public boolean pullRow(int[] dst, int offset) {
+        if (rowsOut >= height) {
+            return false;
+        }
+        if (rowsOut >= stripTop + stripRows && !computeStrip()) {
+            return false;
+        }
+        System.arraycopy(strip, (rowsOut - stripTop) * width, dst, offset, width);
+        rowsOut++;
+        return true;
+    }
+
+    /**
+     * Binarizes the next strip once its rows plus the radius below have been pushed, then
+     * drops window rows no later strip needs.
+     */
+    private boolean computeStrip() {
+        int top = rowsOut;
+        int rows = Math.min(STRIP_ROWS, height - top);
+        if (rowsIn < Math.min(height, top + rows + radius)) {
+            return false;
+        }
+        int windowRows = rowsIn - windowTop;
+        integrate(window, width, windowRows, sum, sumSq);
+        threshold(window, width, windowRows, radius, sum, sumSq, top - windowTop, rows, strip, 0);
+        stripTop = top;
+        stripRows = rows;
+
+        // Keep only the rows the next strip's windows reach back to
+        int keepFrom = Math.max(windowTop, top + rows - radius);
+        int drop = keepFrom - windowTop;
+        if (drop > 0) {
+            System.arraycopy(window, drop * width, window, 0, (windowRows - drop) * width);
+            windowTop = keepFrom;
+        }
+        return true;
+    }
+
+    /**
+     * Builds integral images of the luminance and its square, one extra zero row/column.
+     */
+    static void integrate(int[] luma, int width, int rows, long[] sum, long[] sumSq) {
+        int stride = width + 1;
+        for (int x = 0; x <= width; x++) {
+            sum[x] = 0;
+            sumSq[x] = 0;
+        }
+        for (int y = 0; y < rows; y++) {
+            long rowSum = 0;
+            long rowSq = 0;
+            int src = y * width;
+            int above = y * stride;
+            int here = above + stride;
+            sum[here] = 0;
+            sumSq[here] = 0;
+            for (int x = 0; x < width; x++) {
+                int v = luma[src + x];
+                rowSum += v;
+                rowSq += v * v;
+                sum[here + x + 1] = sum[above + x + 1] + rowSum;
+                sumSq[here + x + 1] = sumSq[above + x + 1] + rowSq;
+            }
+        }
+    }
+
+    /**
+     * Thresholds {@code count} rows starting at window row {@code first} into {@code dst}.
+     * Windows are clipped to the {@code rows} available, i.e. to the page edges.
+     */
+    static void threshold(int[] luma, int width, int rows, int radius, long[] sum, long[] sumSq,
+                          int first, int count, int[] dst, int dstOffset) {
+        int stride = width + 1;
+        for (int y = first; y < first + count; y++) {
+            int y0 = Math.max(0, y - radius);
+            int y1 = Math.min(rows, y + radius + 1);
+            int top = y0 * stride;
+            int bottom = y1 * stride;
+            int out = dstOffset + (y - first) * width;
+            for (int x = 0; x < width; x++) {
+                int x0 = Math.max(0, x - radius);
+                int x1 = Math.min(width, x + radius + 1);
+                int n = (y1 - y0) * (x1 - x0);
+                long s = sum[bottom + x1] - sum[bottom + x0] - sum[top + x1] + sum[top + x0];
+                long sq = sumSq[bottom + x1] - sumSq[bottom + x0] - sumSq[top + x1] + sumSq[top + x0];
+                double mean = (double) s / n;
+                double variance = Math.max(0.0, (double) sq / n - mean * mean);
+                double t = mean * (1.0 + K * (Math.sqrt(variance) / R - 1.0));
+                dst[out + x] = luma[y * width + x] > t ? WHITE : BLACK;
+            }
+        }
+    }
+}
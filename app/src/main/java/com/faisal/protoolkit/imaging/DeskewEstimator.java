@@ -0,0 +1,118 @@
+package com.faisal.protoolkit.imaging;
+
+import java.util.Arrays;
+
+/**
+ * Estimates the skew of a scanned page with a projection-profile search.
+ *
+ * Dark pixels of a small grayscale copy are projected onto the page's vertical axis at a
+ * range of candidate angles; text lines line up into sharp peaks at the true skew, which
+ * maximises the sum of squared bin counts. A coarse sweep is followed by a fine one around
+ * the best coarse angle.
+ */
+public final class DeskewEstimator {
+
+    /** Largest skew searched for, in degrees either way. */
+    public static final float MAX_ANGLE = 15f;
+    /** Long side the input should be downsampled to before estimating. */
+    public static final int ANALYSIS_SIZE = 800;
+
+    private static final float COARSE_STEP = 0.5f;
+    private static final float FINE_STEP = 0.05f;
+    // Cap on sampled dark pixels so the sweep cost is independent of page content
+    private static final int MAX_POINTS = 20000;
+
+    private DeskewEstimator() {
+    }
+
+    /**
+     * Returns the clockwise rotation in degrees that straightens the page, the convention
+     * used by {@link com.faisal.protoolkit.model.EditOps#deskew}, or 0 if no text structure
+     * is found.
+     */
+    public static float estimate(int[] argb, int width, int height) {
+        int[] points = darkPoints(argb, width, height);
+        int count = points.length / 2;
+        if (count < 16) {
+            return 0f;
+        }
+        int diagonal = (int) Math.ceil(Math.hypot(width, height));
+        int[] bins = new int[diagonal * 2 + 1];
+
+        float best = 0f;
+        long bestScore = score(points, count, 0f, bins, diagonal);
+        for (float angle = -MAX_ANGLE; angle <= MAX_ANGLE; angle += COARSE_STEP) {
+            long s = score(points, count, angle, bins, diagonal);
+            if (s > bestScore) {
+                bestScore = s;
+                best = angle;
+            }
+        }
+        float coarse = best;
+        for (float angle = coarse - COARSE_STEP; angle <= coarse + COARSE_STEP; angle += FINE_STEP) {
+            long s = score(points, count, angle, bins, diagonal);
+            if (s > bestScore) {
+                bestScore = s;
+                best = angle;
+            }
+        }
+        // Lines sloping down to the right by +a need a counter-clockwise correction
+        return Math.round(-best * 100f) / 100f;
+    }
+
+    /**
+     * Sum of squared projection bin counts for the points rotated by {@code degrees}.
+     */
+    private static long score(int[] points, int count, float degrees, int[] bins, int offset) {
+        Arrays.fill(bins, 0);
+        double radians = Math.toRadians(degrees);
+        // 16.16 fixed point so the inner loop stays in integer arithmetic
+        int sin = (int) Math.round(Math.sin(radians) * 65536);
+        int cos = (int) Math.round(Math.cos(radians) * 65536);
+        for (int i = 0; i < count; i++) {
+            int x = points[i * 2];
+            int y = points[i * 2 + 1];
+            int rho = (y * cos - x * sin) >> 16;
+            bins[rho + offset]++;
+        }
+        long sum = 0;
+        for (int b : bins) {
+            sum += (long) b * b;
+        }
+        return sum;
+    }
+
+    /**
+     * Collects coordinates of pixels clearly darker than the page mean, evenly subsampled
+     * down to {@link #MAX_POINTS}.
+     */
+    private static int[] darkPoints(int[] argb, int width, int height) {
+        int pixels = width * height;
+        long total = 0;
+        for (int i = 0; i < pixels; i++) {
+            total += FilterKernel.luminance(argb[i]);
+        }
+        int threshold = (int) (total / Math.max(1, pixels)) * 3 / 4;
+
+        int dark = 0;
+        for (int i = 0; i < pixels; i++) {
+            if (FilterKernel.luminance(argb[i]) < threshold) {
+                dark++;
+            }
+        }
+        int stride = Math.max(1, dark / MAX_POINTS);
+        int[] points = new int[Math.min(dark, (dark / stride) + 1) * 2];
+        int n = 0;
+        int seen = 0;
+        for (int y = 0; y < height && n < points.length; y++) {
+            int row = y * width;
+            for (int x = 0; x < width && n < points.length; x++) {
+                if (FilterKernel.luminance(argb[row + x]) < threshold && (seen++ % stride) == 0) {
+                    points[n++] = x;
+                    points[n++] = y;
+                }
+            }
+        }
+        return n == points.length ? points : Arrays.copyOf(points, n);
+    }
+}
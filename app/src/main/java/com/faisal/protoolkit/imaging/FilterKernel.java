@@ -0,0 +1,267 @@
+package com.faisal.protoolkit.imaging;
+
+import com.faisal.protoolkit.model.EditOps;
+
+/**
+ * Fused pixel kernel for the {@link EditOps.Filter} chain.
+ *
+ * The filter mode and contrast/brightness settings are folded into at most two 4x5
+ * colour matrices around an optional luminance threshold, so the whole chain runs in a
+ * single pass over packed ARGB pixels instead of one bitmap per step. Sharpening is a
+ * neighbourhood operation and lives in {@link Sharpener}.
+ */
+public final class FilterKernel {
+
+    // 16.16 fixed point used for the per-pixel matrix evaluation
+    private static final int SHIFT = 16;
+    private static final int ONE = 1 << SHIFT;
+    private static final int HALF = 1 << (SHIFT - 1);
+
+    // Rec. 601 luma weights in 16.16 fixed point (sum to 65536)
+    private static final int LUMA_R = 19595;
+    private static final int LUMA_G = 38470;
+    private static final int LUMA_B = 7471;
+
+    /** Default BW threshold on a 0-255 scale, matching the old 0.5 threshold. */
+    public static final int DEFAULT_BW_THRESHOLD = (int) (0.5f * 255);
+
+    private final float[] preCoefficients;   // null when identity
+    private final float[] postCoefficients;  // null when identity
+    private final int[] preMatrix;   // applied before the threshold, null when identity
+    private final int threshold;     // -1 when there is no threshold step
+    private final int[] postMatrix;  // applied after the threshold, null when identity
+    private final boolean autoThreshold;
+
+    private FilterKernel(float[] pre, int threshold, float[] post) {
+        this(pre, threshold, post, false);
+    }
+
+    private FilterKernel(float[] pre, int threshold, float[] post, boolean autoThreshold) {
+        this.preCoefficients = pre != null && !isIdentity(pre) ? pre : null;
+        this.postCoefficients = post != null && !isIdentity(post) ? post : null;
+        this.preMatrix = preCoefficients != null ? toFixed(preCoefficients) : null;
+        this.threshold = threshold;
+        this.postMatrix = postCoefficients != null ? toFixed(postCoefficients) : null;
+        this.autoThreshold = autoThreshold;
+    }
+
+    /**
+     * Builds the kernel for the given filter settings. Matrices that can be merged
+     * (no threshold in between) are concatenated into one transform.
+     */
+    public static FilterKernel compile(EditOps.Filter filter) {
+        if (filter == null) {
+            return new FilterKernel(null, -1, null);
+        }
+
+        float[] modeMatrix = null;
+        int threshold = -1;
+        String mode = filter.mode != null ? filter.mode : "ORIGINAL";
+        switch (mode) {
+            case "GRAY":
+                modeMatrix = saturation(0f);
+                break;
+            case "BW":
+                threshold = DEFAULT_BW_THRESHOLD;
+                break;
+            case OtsuThreshold.MODE:
+                // Placeholder until the page histogram resolves it, see withThreshold
+                threshold = DEFAULT_BW_THRESHOLD;
+                break;
+            case AdaptiveBinarizer.MODE:
+                // Thresholded per neighbourhood by AdaptiveBinarizer after this kernel
+                break;
+            case "COLOR_BOOST":
+                modeMatrix = concat(scale(1.1f, 0f), saturation(1.5f));
+                break;
+            case "ORIGINAL":
+            default:
+                break;
+        }
+
+        float[] adjust = null;
+        if (filter.contrast != 1.0f || filter.brightness != 0.0f) {
+            adjust = scale(filter.contrast, filter.brightness * 255.0f);
+        }
+
+        if (threshold < 0) {
+            // Nothing between the two matrices, fold them into a single transform
+            if (modeMatrix != null && adjust != null) {
+                return new FilterKernel(concat(adjust, modeMatrix), -1, null);
+            }
+            return new FilterKernel(modeMatrix != null ? modeMatrix : adjust, -1, null);
+        }
+        return new FilterKernel(modeMatrix, threshold, adjust, OtsuThreshold.MODE.equals(mode));
+    }
+
+    /**
+     * Kernel for a single 4x5 colour matrix, in the layout of android.graphics.ColorMatrix.
+     */
+    public static FilterKernel ofMatrix(float[] matrix) {
+        if (matrix.length != 20) {
+            throw new IllegalArgumentException("Colour matrix must have 20 entries");
+        }
+        return new FilterKernel(matrix.clone(), -1, null);
+    }
+
+    /**
+     * Kernel mapping pixels with luminance above {@code threshold} (0-255) to white and the
+     * rest to black.
+     */
+    public static FilterKernel ofThreshold(int threshold) {
+        return new FilterKernel(null, Math.max(0, Math.min(255, threshold)), null);
+    }
+
+    /**
+     * Returns true if the threshold should be picked from the page's luminance histogram
+     * ({@link OtsuThreshold}) and set with {@link #withThreshold} before use.
+     */
+    public boolean hasAutoThreshold() {
+        return autoThreshold;
+    }
+
+    /**
+     * Returns this kernel with its threshold step fixed at {@code threshold} (0-255).
+     */
+    public FilterKernel withThreshold(int threshold) {
+        return new FilterKernel(preCoefficients, threshold, postCoefficients);
+    }
+
+    /**
+     * The 4x5 colour matrix applied before the threshold, or null when there is none.
+     */
+    public float[] getPreMatrix() {
+        return preCoefficients != null ? preCoefficients.clone() : null;
+    }
+
+    /**
+     * The luminance threshold (0-255; above is white), or -1 when there is none.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * The 4x5 colour matrix applied after the threshold, or null when there is none.
+     */
+    public float[] getPostMatrix() {
+        return postCoefficients != null ? postCoefficients.clone() : null;
+    }
+
+    /**
+     * Returns true if the kernel leaves every pixel unchanged.
+     */
+    public boolean isIdentity() {
+        return preMatrix == null && threshold < 0 && postMatrix == null;
+    }
+
+    /**
+     * Applies the kernel to {@code count} packed ARGB pixels. {@code src} and {@code dst}
+     * may be the same array to filter a row buffer in place.
+     */
+    public void apply(int[] src, int srcOffset, int[] dst, int dstOffset, int count) {
+        final int[] pre = preMatrix;
+        final int[] post = postMatrix;
+        final int t = threshold;
+        for (int i = 0; i < count; i++) {
+            int p = src[srcOffset + i];
+            if (pre != null) {
+                p = transform(pre, p);
+            }
+            if (t >= 0) {
+                p = luminance(p) > t ? 0xFFFFFFFF : 0xFF000000;
+            }
+            if (post != null) {
+                p = transform(post, p);
+            }
+            dst[dstOffset + i] = p;
+        }
+    }
+
+    /**
+     * Integer Rec. 601 luminance of a packed ARGB pixel, 0-255.
+     */
+    public static int luminance(int argb) {
+        return (((argb >> 16) & 0xFF) * LUMA_R
+                + ((argb >> 8) & 0xFF) * LUMA_G
+                + (argb & 0xFF) * LUMA_B) >>> SHIFT;
+    }
+
+    private static int transform(int[] m, int p) {
+        int a = p >>> 24;
+        int r = (p >> 16) & 0xFF;
+        int g = (p >> 8) & 0xFF;
+        int b = p & 0xFF;
+        int nr = clamp((m[0] * r + m[1] * g + m[2] * b + m[3] * a + m[4] + HALF) >> SHIFT);
+        int ng = clamp((m[5] * r + m[6] * g + m[7] * b + m[8] * a + m[9] + HALF) >> SHIFT);
+        int nb = clamp((m[10] * r + m[11] * g + m[12] * b + m[13] * a + m[14] + HALF) >> SHIFT);
+        int na = clamp((m[15] * r + m[16] * g + m[17] * b + m[18] * a + m[19] + HALF) >> SHIFT);
+        return (na << 24) | (nr << 16) | (ng << 8) | nb;
+    }
+
+    private static int clamp(int v) {
+        return v < 0 ? 0 : (v > 255 ? 255 : v);
+    }
+
+    // --- 4x5 colour matrix helpers, same layout as android.graphics.ColorMatrix ---
+
+    static float[] scale(float s, float translate) {
+        return new float[] {
+                s, 0, 0, 0, translate,
+                0, s, 0, 0, translate,
+                0, 0, s, 0, translate,
+                0, 0, 0, 1, 0
+        };
+    }
+
+    static float[] saturation(float sat) {
+        float invSat = 1 - sat;
+        float r = 0.213f * invSat;
+        float g = 0.715f * invSat;
+        float b = 0.072f * invSat;
+        return new float[] {
+                r + sat, g, b, 0, 0,
+                r, g + sat, b, 0, 0,
+                r, g, b + sat, 0, 0,
+                0, 0, 0, 1, 0
+        };
+    }
+
+    /**
+     * Returns {@code a * b}, i.e. the matrix that applies {@code b} first and then {@code a}.
+     */
+    static float[] concat(float[] a, float[] b) {
+        float[] out = new float[20];
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 5; col++) {
+                float v = col == 4 ? a[row * 5 + 4] : 0f;
+                for (int k = 0; k < 4; k++) {
+                    v += a[row * 5 + k] * b[k * 5 + col];
+                }
+                out[row * 5 + col] = v;
+            }
+        }
+        return out;
+    }
+
+    private static boolean isIdentity(float[] m) {
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 5; col++) {
+                float expected = row == col ? 1f : 0f;
+                if (m[row * 5 + col] != expected) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int[] toFixed(float[] m) {
+        int[] fixed = new int[20];
+        for (int i = 0; i < 20; i++) {
+            // Translation terms are in 0-255 units, coefficients are unitless
+            fixed[i] = Math.round(m[i] * ONE);
+        }
+        return fixed;
+    }
+}
@@ -0,0 +1,237 @@
+package com.faisal.protoolkit.imaging;
+
+import com.faisal.protoolkit.model.EditOps;
+
+/**
+ * The filter stage in the form the GPU preview backend runs it: the colour matrices and
+ * threshold of a resolved {@link FilterKernel} plus the {@link Sharpener} gain, as uniforms
+ * for {@link #AGSL}.
+ *
+ * A colour matrix alone maps onto a plain colour-filter effect (API 31); threshold and
+ * sharpen need the runtime shader (API 33). Adaptive binarization looks at whole
+ * neighbourhoods and has no GPU form. {@link #apply} evaluates the shader's float math on
+ * the CPU so it can be checked against the integer kernels on a plain JVM.
+ */
+public final class GpuFilterProgram {
+
+    /** API level of RenderEffect with a colour filter. */
+    public static final int API_COLOR_FILTER = 31;
+    /** API level of RuntimeShader. */
+    public static final int API_RUNTIME_SHADER = 33;
+
+    /**
+     * Runtime shader over the {@code content} being drawn. Matrices are column-major with
+     * offsets in 0-1 units; a negative threshold disables that step.
+     */
+    public static final String AGSL = ""
+            + "uniform shader content;\n"
+            + "uniform float4x4 preMatrix;\n"
+            + "uniform float4 preOffset;\n"
+            + "uniform float threshold;\n"
+            + "uniform float4x4 postMatrix;\n"
+            + "uniform float4 postOffset;\n"
+            + "uniform float gain;\n"
+            + "uniform float step;\n"
+            + "const float3 LUMA = float3(0.299, 0.587, 0.114);\n"
+            + "half4 main(float2 coord) {\n"
+            + "    float4 c = float4(content.eval(coord));\n"
+            + "    if (gain > 0.0) {\n"
+            + "        float sum = 0.0;\n"
+            + "        for (int dy = -1; dy <= 1; dy++) {\n"
+            + "            for (int dx = -1; dx <= 1; dx++) {\n"
+            + "                sum += dot(float4(content.eval(coord + float2(float(dx), float(dy)) * step)).rgb, LUMA);\n"
+            + "            }\n"
+            + "        }\n"
+            + "        float detail = dot(c.rgb, LUMA) - sum / 9.0;\n"
+            + "        c.rgb = clamp(c.rgb + detail * gain, 0.0, 1.0);\n"
+            + "    }\n"
+            + "    c = clamp(preMatrix * c + preOffset, 0.0, 1.0);\n"
+            + "    if (threshold >= 0.0) {\n"
+            + "        c = dot(c.rgb, LUMA) >= threshold ? float4(1.0) : float4(0.0, 0.0, 0.0, 1.0);\n"
+            + "    }\n"
+            + "    c = clamp(postMatrix * c + postOffset, 0.0, 1.0);\n"
+            + "    return half4(c);\n"
+            + "}\n";
+
+    private static final float LUMA_R = 0.299f;
+    private static final float LUMA_G = 0.587f;
+    private static final float LUMA_B = 0.114f;
+
+    private final float[] preMatrix;   // 4x5, null when identity
+    private final int threshold;       // 0-255, -1 when none
+    private final float[] postMatrix;  // 4x5, null when identity
+    private final float gain;
+
+    private GpuFilterProgram(float[] preMatrix, int threshold, float[] postMatrix, float gain) {
+        this.preMatrix = preMatrix;
+        this.threshold = threshold;
+        this.postMatrix = postMatrix;
+        this.gain = gain;
+    }
+
+    /**
+     * Returns true if {@code filter} can be drawn by a program at all, i.e. it is not
+     * adaptive binarization.
+     */
+    public static boolean canRun(EditOps.Filter filter) {
+        return filter == null || !AdaptiveBinarizer.MODE.equals(filter.mode);
+    }
+
+    /**
+     * Program for a kernel whose threshold is resolved, after sharpening by {@code sharpen}
+     * (0-1, as in {@code EditOps.Filter.sharpen}).
+     */
+    public static GpuFilterProgram of(FilterKernel kernel, float sharpen) {
+        if (kernel.hasAutoThreshold()) {
+            throw new IllegalArgumentException("Resolve the auto threshold first");
+        }
+        return new GpuFilterProgram(kernel.getPreMatrix(), kernel.getThreshold(), kernel.getPostMatrix(),
+                Sharpener.gainFor(sharpen) / 256f);
+    }
+
+    /**
+     * Lowest API level able to draw this program; 0 when it changes nothing.
+     */
+    public int requiredApi() {
+        if (threshold >= 0 || postMatrix != null || gain > 0f) {
+            return API_RUNTIME_SHADER;
+        }
+        return preMatrix != null ? API_COLOR_FILTER : 0;
+    }
+
+    public boolean isIdentity() {
+        return requiredApi() == 0;
+    }
+
+    /** The 4x5 matrix for a plain colour filter (0-255 offsets), or null when identity. */
+    public float[] getColorMatrix() {
+        return preMatrix != null ? preMatrix.clone() : null;
+    }
+
+    public float[] getPreMatrix4x4() {
+        return columnMajor(preMatrix);
+    }
+
+    public float[] getPreOffset() {
+        return offsets(preMatrix);
+    }
+
+    /** Threshold uniform: minimum 0-1 luminance drawn white, or -1 when none. */
+    public float getThresholdUniform() {
+        // The integer kernel keeps floor(luma) > t, i.e. luma >= t + 1
+        return threshold >= 0 ? (threshold + 1) / 255f : -1f;
+    }
+
+    public float[] getPostMatrix4x4() {
+        return columnMajor(postMatrix);
+    }
+
+    public float[] getPostOffset() {
+        return offsets(postMatrix);
+    }
+
+    /** Sharpen detail gain; 0 when there is no sharpening. */
+    public float getGain() {
+        return gain;
+    }
+
+    /**
+     * Runs the shader's float math over packed ARGB {@code src} into {@code dst}, with one
+     * sample step per pixel and edges clamped.
+     */
+    public void apply(int[] src, int[] dst, int width, int height) {
+        float[] pre = getPreMatrix4x4();
+        float[] preOff = getPreOffset();
+        float[] post = getPostMatrix4x4();
+        float[] postOff = getPostOffset();
+        float t = getThresholdUniform();
+        float[] c = new float[4];
+        float[] m = new float[4];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int p = src[y * width + x];
+                unpack(p, c);
+                if (gain > 0f) {
+                    float sum = 0f;
+                    for (int dy = -1; dy <= 1; dy++) {
+                        int row = Math.min(height - 1, Math.max(0, y + dy)) * width;
+                        for (int dx = -1; dx <= 1; dx++) {
+                            sum += luma(src[row + Math.min(width - 1, Math.max(0, x + dx))]);
+                        }
+                    }
+                    float detail = luma(c[0], c[1], c[2]) - sum / 9f;
+                    for (int i = 0; i < 3; i++) {
+                        c[i] = clamp01(c[i] + detail * gain);
+                    }
+                }
+                transform(pre, preOff, c, m);
+                if (t >= 0f) {
+                    float v = luma(c[0], c[1], c[2]) >= t ? 1f : 0f;
+                    c[0] = v;
+                    c[1] = v;
+                    c[2] = v;
+                    c[3] = 1f;
+                }
+                transform(post, postOff, c, m);
+                dst[y * width + x] = pack(c);
+            }
+        }
+    }
+
+    private static void transform(float[] colMajor, float[] offset, float[] c, float[] scratch) {
+        for (int row = 0; row < 4; row++) {
+            float v = offset[row];
+            for (int col = 0; col < 4; col++) {
+                v += colMajor[col * 4 + row] * c[col];
+            }
+            scratch[row] = clamp01(v);
+        }
+        System.arraycopy(scratch, 0, c, 0, 4);
+    }
+
+    /** 4x4 part of a 4x5 matrix in column-major order; identity for null. */
+    private static float[] columnMajor(float[] m) {
+        float[] out = new float[16];
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                out[col * 4 + row] = m != null ? m[row * 5 + col] : (row == col ? 1f : 0f);
+            }
+        }
+        return out;
+    }
+
+    /** Offset column of a 4x5 matrix in 0-1 units; zero for null. */
+    private static float[] offsets(float[] m) {
+        float[] out = new float[4];
+        if (m != null) {
+            for (int row = 0; row < 4; row++) {
+                out[row] = m[row * 5 + 4] / 255f;
+            }
+        }
+        return out;
+    }
+
+    private static void unpack(int p, float[] c) {
+        c[0] = ((p >> 16) & 0xFF) / 255f;
+        c[1] = ((p >> 8) & 0xFF) / 255f;
+        c[2] = (p & 0xFF) / 255f;
+        c[3] = (p >>> 24) / 255f;
+    }
+
+    private static int pack(float[] c) {
+        return (Math.round(c[3] * 255f) << 24) | (Math.round(c[0] * 255f) << 16)
+                | (Math.round(c[1] * 255f) << 8) | Math.round(c[2] * 255f);
+    }
+
+    private static float luma(int p) {
+        return luma(((p >> 16) & 0xFF) / 255f, ((p >> 8) & 0xFF) / 255f, (p & 0xFF) / 255f);
+    }
+
+    private static float luma(float r, float g, float b) {
+        return LUMA_R * r + LUMA_G * g + LUMA_B * b;
+    }
+
+    private static float clamp01(float v) {
+        return v < 0f ? 0f : (v > 1f ? 1f : v);
+    }
+}
@@ -0,0 +1,52 @@
+package com.faisal.protoolkit.imaging;
+
+/**
+ * A rectangle of 8-bit luminance in a {@code byte[]}, laid out like {@link PixelPlane}.
+ * Values are unsigned; read them with {@link #get}.
+ */
+public final class LumaPlane {
+
+    public final byte[] values;
+    public final int offset;
+    public final int width;
+    public final int height;
+    public final int stride;
+
+    /**
+     * Allocates a tightly packed plane.
+     */
+    public LumaPlane(int width, int height) {
+        this(new byte[width * height], 0, width, height, width);
+    }
+
+    private LumaPlane(byte[] values, int offset, int width, int height, int stride) {
+        if (width < 0 || height < 0 || stride < width) {
+            throw new IllegalArgumentException("Bad plane " + width + "x" + height + " stride " + stride);
+        }
+        if (height > 0 && offset + (long) (height - 1) * stride + width > values.length) {
+            throw new IllegalArgumentException("Plane exceeds array of " + values.length);
+        }
+        this.values = values;
+        this.offset = offset;
+        this.width = width;
+        this.height = height;
+        this.stride = stride;
+    }
+
+    /**
+     * Views existing values as a plane without copying.
+     */
+    public static LumaPlane wrap(byte[] values, int offset, int width, int height, int stride) {
+        return new LumaPlane(values, offset, width, height, stride);
+    }
+
+    /** Index of the first value of row {@code y}. */
+    public int rowOffset(int y) {
+        return offset + y * stride;
+    }
+
+    /** Luminance 0-255 at ({@code x}, {@code y}). */
+    public int get(int x, int y) {
+        return values[offset + y * stride + x] & 0xFF;
+    }
+}
@@ -0,0 +1,103 @@
+package com.faisal.protoolkit.imaging;
+
+/**
+ * Global black-and-white threshold picked per page with Otsu's method.
+ *
+ * Luminance is the integer Rec. 601 weighting of {@link FilterKernel#luminance}, gathered
+ * into a 256-bin histogram; the threshold maximises the between-class variance of the two
+ * sides. The histogram sums are exact longs; the variance comparison is in double, since
+ * its squared term overflows a long on large pages. Only IEEE-754 basic operations are
+ * used, which round identically everywhere, so the result is the same on every device.
+ */
+public final class OtsuThreshold {
+
+    /** {@code EditOps.Filter.mode} value selecting this filter. */
+    public static final String MODE = "AUTO_BW";
+
+    /** Number of histogram bins, one per 8-bit luminance level. */
+    public static final int BINS = 256;
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private OtsuThreshold() {
+    }
+
+    /**
+     * Adds the luminance of {@code count} packed ARGB pixels to {@code histogram}.
+     */
+    public static void accumulate(int[] argb, int offset, int count, int[] histogram) {
+        for (int i = offset, end = offset + count; i < end; i++) {
+            histogram[FilterKernel.luminance(argb[i])]++;
+        }
+    }
+
+    /**
+     * Otsu threshold of a 256-bin histogram: pixels with luminance above the returned value
+     * are white. When several thresholds separate the classes equally well (an empty gap
+     * between them), the middle of that range is returned. Returns
+     * {@link FilterKernel#DEFAULT_BW_THRESHOLD} for an empty or single-level histogram, where
+     * there is nothing to separate.
+     */
+    public static int fromHistogram(int[] histogram) {
+        long total = 0;
+        long weightedTotal = 0;
+        for (int i = 0; i < BINS; i++) {
+            total += histogram[i];
+            weightedTotal += (long) i * histogram[i];
+        }
+        if (total == 0) {
+            return FilterKernel.DEFAULT_BW_THRESHOLD;
+        }
+
+        long below = 0;
+        long weightedBelow = 0;
+        double bestVariance = 0.0;
+        int best = -1;
+        int bestEnd = -1;
+        for (int t = 0; t < BINS - 1; t++) {
+            below += histogram[t];
+            if (below == 0) {
+                continue;
+            }
+            long above = total - below;
+            if (above == 0) {
+                break;
+            }
+            weightedBelow += (long) t * histogram[t];
+            // Between-class variance up to the constant 1 / total^2:
+            // (total * weightedBelow - below * weightedTotal)^2 / (below * above)
+            double diff = (double) total * weightedBelow - (double) below * weightedTotal;
+            double variance = diff * diff / ((double) below * above);
+            if (variance > bestVariance) {
+                bestVariance = variance;
+                best = t;
+                bestEnd = t;
+            } else if (variance == bestVariance && best >= 0) {
+                // Empty bins between the classes leave a plateau; split the gap evenly
+                bestEnd = t;
+            }
+        }
+        return best >= 0 ? (best + bestEnd) / 2 : FilterKernel.DEFAULT_BW_THRESHOLD;
+    }
+
+    /**
+     * Binarizes {@code count} pixels from {@code src} into {@code dst} (may be the same array)
+     * and returns the threshold used. The first sweep writes each pixel's luminance to
+     * {@code dst} while building the histogram, the second turns those values into packed
+     * black or white in place, so the page is read once and only the histogram is allocated.
+     */
+    public static int binarize(int[] src, int srcOffset, int[] dst, int dstOffset, int count) {
+        int[] histogram = new int[BINS];
+        for (int i = 0; i < count; i++) {
+            int luma = FilterKernel.luminance(src[srcOffset + i]);
+            histogram[luma]++;
+            dst[dstOffset + i] = luma;
+        }
+        int threshold = fromHistogram(histogram);
+        for (int i = dstOffset, end = dstOffset + count; i < end; i++) {
+            dst[i] = dst[i] > threshold ? WHITE : BLACK;
+        }
+        return threshold;
+    }
+}
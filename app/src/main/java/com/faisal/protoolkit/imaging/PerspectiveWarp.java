@@ -0,0 +1,391 @@
+package com.faisal.protoolkit.imaging;
+
+import com.faisal.protoolkit.model.EditOps;
+
+import java.util.stream.IntStream;
+
+/**
+ * Perspective crop / warp kernel on packed ARGB pixels.
+ *
+ * Holds the inverse homography from output pixel centres to source pixel coordinates, and
+ * fills output rows by inverse mapping with bilinear sampling. Rows are independent, so the
+ * kernel runs row-parallel over a whole image or one strip at a time for tiled renders,
+ * reading only the source rectangle reported by {@link #sourceBounds}.
+ */
+public final class PerspectiveWarp {
+
+    // Rows per parallel work item; keeps per-task overhead small next to the pixel work
+    private static final int BAND_ROWS = 32;
+
+    // 3x3 row-major, output position -> source position; both in pixel units with
+    // pixel centres at +0.5
+    private final double[] inverse;
+    private final int outWidth;
+    private final int outHeight;
+
+    private PerspectiveWarp(double[] inverse, int outWidth, int outHeight) {
+        this.inverse = inverse;
+        this.outWidth = Math.max(1, outWidth);
+        this.outHeight = Math.max(1, outHeight);
+    }
+
+    /**
+     * Builds the geometry stage for {@code editOps} on a {@code srcWidth} x {@code srcHeight}
+     * source, or returns null when there is no crop, warp or deskew. A crop quad takes
+     * precedence over a warp matrix. Deskew and the page rotation are folded into the same
+     * mapping so the whole geometry is a single resample.
+     */
+    public static PerspectiveWarp fromEditOps(EditOps editOps, int srcWidth, int srcHeight) {
+        if (editOps == null) {
+            return null;
+        }
+        PerspectiveWarp warp = null;
+        if (editOps.hasCrop()) {
+            float[] quad = toQuad(editOps.crop, srcWidth, srcHeight);
+            warp = quad != null ? fromQuad(quad) : null;
+        } else if (editOps.hasWarp()) {
+            double[] forward = toMatrix(editOps.warp);
+            warp = forward != null ? fromNormalizedHomography(forward, srcWidth, srcHeight) : null;
+        }
+        if (editOps.hasDeskew()) {
+            if (warp == null) {
+                warp = identity(srcWidth, srcHeight);
+            }
+            warp = warp.deskewed(editOps.deskew);
+        }
+        return warp != null ? warp.rotated(editOps.rotate) : null;
+    }
+
+    static PerspectiveWarp identity(int width, int height) {
+        return new PerspectiveWarp(new double[] {1, 0, 0, 0, 1, 0, 0, 0, 1}, width, height);
+    }
+
+    /**
+     * Maps the quad (source pixels, clockwise from top-left: x0,y0 .. x3,y3) onto an upright
+     * rectangle sized from the quad's longer opposite edges.
+     */
+    public static PerspectiveWarp fromQuad(float[] quad) {
+        int width = (int) Math.round(Math.max(
+                distance(quad[0], quad[1], quad[2], quad[3]),
+                distance(quad[6], quad[7], quad[4], quad[5])));
+        int height = (int) Math.round(Math.max(
+                distance(quad[0], quad[1], quad[6], quad[7]),
+                distance(quad[2], quad[3], quad[4], quad[5])));
+        if (width < 1 || height < 1) {
+            return null;
+        }
+        double[] unitToQuad = squareToQuad(quad);
+        if (unitToQuad == null) {
+            return null;
+        }
+        // Output position (pixel centres at +0.5) -> unit square -> quad
+        double[] pixelToUnit = {
+                1.0 / width, 0, 0,
+                0, 1.0 / height, 0,
+                0, 0, 1
+        };
+        return new PerspectiveWarp(multiply(unitToQuad, pixelToUnit), width, height);
+    }
+
+    /**
+     * Uses a forward homography in normalized coordinates (source 0-1 to output 0-1); the
+     * output keeps the source size.
+     */
+    static PerspectiveWarp fromNormalizedHomography(double[] forward, int srcWidth, int srcHeight) {
+        double[] inverseNormalized = invert(forward);
+        if (inverseNormalized == null) {
+            return null;
+        }
+        double[] pixelToUnit = {
+                1.0 / srcWidth, 0, 0,
+                0, 1.0 / srcHeight, 0,
+                0, 0, 1
+        };
+        double[] unitToPixel = {
+                srcWidth, 0, 0,
+                0, srcHeight, 0,
+                0, 0, 1
+        };
+        return new PerspectiveWarp(multiply(unitToPixel, multiply(inverseNormalized, pixelToUnit)),
+                srcWidth, srcHeight);
+    }
+
+    /**
+     * Returns the same warp followed by a clockwise rotation by {@code degrees} about the
+     * output centre. The output keeps its size; uncovered corners repeat the edge pixels.
+     */
+    PerspectiveWarp deskewed(float degrees) {
+        if (degrees == 0f) {
+            return this;
+        }
+        double radians = Math.toRadians(degrees);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        double cx = outWidth / 2.0;
+        double cy = outHeight / 2.0;
+        // Deskewed output position -> pre-deskew position: rotate back about the centre
+        double[] unrotate = {
+                cos, sin, cx - cos * cx - sin * cy,
+                -sin, cos, cy + sin * cx - cos * cy,
+                0, 0, 1
+        };
+        return new PerspectiveWarp(multiply(inverse, unrotate), outWidth, outHeight);
+    }
+
+    /**
+     * Returns the same warp followed by a clockwise rotation by a multiple of 90 degrees.
+     */
+    PerspectiveWarp rotated(int degrees) {
+        int r = ((degrees % 360) + 360) % 360 / 90 * 90;
+        if (r == 0) {
+            return this;
+        }
+        int w = outWidth;
+        int h = outHeight;
+        // Rotated output position -> unrotated output position
+        double[] unrotate;
+        switch (r) {
+            case 90:
+                unrotate = new double[] {0, 1, 0, -1, 0, h, 0, 0, 1};
+                break;
+            case 180:
+                unrotate = new double[] {-1, 0, w, 0, -1, h, 0, 0, 1};
+                break;
+            default: // 270
+                unrotate = new double[] {0, -1, w, 1, 0, 0, 0, 0, 1};
+                break;
+        }
+        boolean swapped = r == 90 || r == 270;
+        return new PerspectiveWarp(multiply(inverse, unrotate),
+                swapped ? h : w, swapped ? w : h);
+    }
+
+    public int getOutputWidth() {
+        return outWidth;
+    }
+
+    public int getOutputHeight() {
+        return outHeight;
+    }
+
+    /**
+     * Returns the source rectangle {left, top, right, bottom} (exclusive) that output rows
+     * [y0, y1) sample from, including the bilinear neighbourhood, clipped to the source.
+     */
+    public int[] sourceBounds(int y0, int y1, int srcWidth, int srcHeight) {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        // A homography maps the band rectangle to a quad, so its corners bound it
+        double[] xs = {0, outWidth};
+        double[] ys = {y0, y1};
+        for (double x : xs) {
+            for (double y : ys) {
+                double w = inverse[6] * x + inverse[7] * y + inverse[8];
+                if (w <= 0) {
+                    // Band crosses the horizon; fall back to the whole source
+                    return new int[] {0, 0, srcWidth, srcHeight};
+                }
+                double sx = (inverse[0] * x + inverse[1] * y + inverse[2]) / w;
+                double sy = (inverse[3] * x + inverse[4] * y + inverse[5]) / w;
+                minX = Math.min(minX, sx);
+                minY = Math.min(minY, sy);
+                maxX = Math.max(maxX, sx);
+                maxY = Math.max(maxY, sy);
+            }
+        }
+        int left = clamp((int) Math.floor(minX) - 1, 0, srcWidth - 1);
+        int top = clamp((int) Math.floor(minY) - 1, 0, srcHeight - 1);
+        int right = clamp((int) Math.ceil(maxX) + 1, left + 1, srcWidth);
+        int bottom = clamp((int) Math.ceil(maxY) + 1, top + 1, srcHeight);
+        return new int[] {left, top, right, bottom};
+    }
+
+    /**
+     * Warps a whole source image into {@code dst} ({@link #getOutputWidth()} per row),
+     * processing bands of rows in parallel.
+     */
+    public void warp(int[] src, int srcWidth, int srcHeight, int[] dst) {
+        warp(src, srcWidth, srcHeight, dst, 0, outHeight);
+    }
+
+    /**
+     * Warps output rows [y0, y0 + rows) of a whole source image into {@code dst}, starting
+     * at index 0, processing bands of rows in parallel.
+     */
+    public void warp(int[] src, int srcWidth, int srcHeight, int[] dst, int y0, int rows) {
+        int bands = (rows + BAND_ROWS - 1) / BAND_ROWS;
+        IntStream.range(0, bands).parallel().forEach(band -> {
+            int first = band * BAND_ROWS;
+            int count = Math.min(BAND_ROWS, rows - first);
+            warpRows(src, 0, 0, srcWidth, srcHeight, srcWidth,
+                    dst, first * outWidth, outWidth, y0 + first, count);
+        });
+    }
+
+    /**
+     * Fills output rows [y0, y0 + rows) from a source window of {@code srcWidth} x
+     * {@code srcHeight} pixels whose top-left corner is at ({@code srcLeft}, {@code srcTop}) in
+     * full-source coordinates. Samples outside the window are clamped to its edge, which is
+     * exact as long as the window covers {@link #sourceBounds} for these rows.
+     */
+    public void warpRows(int[] src, int srcLeft, int srcTop, int srcWidth, int srcHeight, int srcStride,
+                         int[] dst, int dstOffset, int dstStride, int y0, int rows) {
+        final double[] m = inverse;
+        final int maxX = srcWidth - 1;
+        final int maxY = srcHeight - 1;
+        for (int row = 0; row < rows; row++) {
+            double oy = y0 + row + 0.5;
+            // Homogeneous source coordinates at the first pixel centre, stepped per pixel
+            double hx = m[0] * 0.5 + m[1] * oy + m[2];
+            double hy = m[3] * 0.5 + m[4] * oy + m[5];
+            double hw = m[6] * 0.5 + m[7] * oy + m[8];
+            final double dx = m[0];
+            final double dy = m[3];
+            final double dw = m[6];
+            int out = dstOffset + row * dstStride;
+            for (int x = 0; x < outWidth; x++) {
+                double inv = 1.0 / hw;
+                // Pixel centres sit at +0.5; shift to sample-grid coordinates within the window
+                double sx = hx * inv - 0.5 - srcLeft;
+                double sy = hy * inv - 0.5 - srcTop;
+                dst[out + x] = sample(src, srcStride, maxX, maxY, sx, sy);
+                hx += dx;
+                hy += dy;
+                hw += dw;
+            }
+        }
+    }
+
+    /**
+     * Bilinear sample with edge clamping, 8-bit weights, two channels per multiply.
+     */
+    private static int sample(int[] src, int stride, int maxX, int maxY, double sx, double sy) {
+        if (sx < 0) sx = 0;
+        if (sy < 0) sy = 0;
+        if (sx > maxX) sx = maxX;
+        if (sy > maxY) sy = maxY;
+        int x0 = (int) sx;
+        int y0 = (int) sy;
+        int fx = (int) ((sx - x0) * 256);
+        int fy = (int) ((sy - y0) * 256);
+        int x1 = x0 < maxX ? x0 + 1 : x0;
+        int y1 = y0 < maxY ? y0 + 1 : y0;
+
+        int p00 = src[y0 * stride + x0];
+        int p01 = src[y0 * stride + x1];
+        int p10 = src[y1 * stride + x0];
+        int p11 = src[y1 * stride + x1];
+
+        int w11 = (fx * fy) >> 8;
+        int w01 = fx - w11;
+        int w10 = fy - w11;
+        int w00 = 256 - w01 - w10 - w11;
+
+        int rb = (p00 & 0xFF00FF) * w00 + (p01 & 0xFF00FF) * w01
+                + (p10 & 0xFF00FF) * w10 + (p11 & 0xFF00FF) * w11;
+        int ag = ((p00 >>> 8) & 0xFF00FF) * w00 + ((p01 >>> 8) & 0xFF00FF) * w01
+                + ((p10 >>> 8) & 0xFF00FF) * w10 + ((p11 >>> 8) & 0xFF00FF) * w11;
+        return (ag & 0xFF00FF00) | ((rb >>> 8) & 0xFF00FF);
+    }
+
+    // --- homography helpers ---
+
+    /**
+     * Projective map from the unit square (0,0),(1,0),(1,1),(0,1) to the quad (Heckbert).
+     */
+    static double[] squareToQuad(float[] q) {
+        double x0 = q[0], y0 = q[1], x1 = q[2], y1 = q[3];
+        double x2 = q[4], y2 = q[5], x3 = q[6], y3 = q[7];
+        double sx = x0 - x1 + x2 - x3;
+        double sy = y0 - y1 + y2 - y3;
+        if (sx == 0 && sy == 0) {
+            // Parallelogram: affine
+            return new double[] {
+                    x1 - x0, x3 - x0, x0,
+                    y1 - y0, y3 - y0, y0,
+                    0, 0, 1
+            };
+        }
+        double dx1 = x1 - x2, dx2 = x3 - x2;
+        double dy1 = y1 - y2, dy2 = y3 - y2;
+        double det = dx1 * dy2 - dx2 * dy1;
+        if (det == 0) {
+            return null;
+        }
+        double g = (sx * dy2 - dx2 * sy) / det;
+        double h = (dx1 * sy - sx * dy1) / det;
+        return new double[] {
+                x1 - x0 + g * x1, x3 - x0 + h * x3, x0,
+                y1 - y0 + g * y1, y3 - y0 + h * y3, y0,
+                g, h, 1
+        };
+    }
+
+    static double[] multiply(double[] a, double[] b) {
+        double[] out = new double[9];
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                out[row * 3 + col] = a[row * 3] * b[col]
+                        + a[row * 3 + 1] * b[3 + col]
+                        + a[row * 3 + 2] * b[6 + col];
+            }
+        }
+        return out;
+    }
+
+    static double[] invert(double[] m) {
+        double a = m[4] * m[8] - m[5] * m[7];
+        double b = m[5] * m[6] - m[3] * m[8];
+        double c = m[3] * m[7] - m[4] * m[6];
+        double det = m[0] * a + m[1] * b + m[2] * c;
+        if (Math.abs(det) < 1e-12) {
+            return null;
+        }
+        double inv = 1.0 / det;
+        return new double[] {
+                a * inv, (m[2] * m[7] - m[1] * m[8]) * inv, (m[1] * m[5] - m[2] * m[4]) * inv,
+                b * inv, (m[0] * m[8] - m[2] * m[6]) * inv, (m[2] * m[3] - m[0] * m[5]) * inv,
+                c * inv, (m[1] * m[6] - m[0] * m[7]) * inv, (m[0] * m[4] - m[1] * m[3]) * inv
+        };
+    }
+
+    /**
+     * Converts crop corners stored as normalized 0-1 coordinates into source pixels.
+     */
+    private static float[] toQuad(float[][] crop, int srcWidth, int srcHeight) {
+        float[] quad = new float[8];
+        for (int i = 0; i < 4; i++) {
+            float[] point = crop[i];
+            if (point == null || point.length < 2) {
+                return null;
+            }
+            quad[i * 2] = point[0] * srcWidth;
+            quad[i * 2 + 1] = point[1] * srcHeight;
+        }
+        return quad;
+    }
+
+    private static double[] toMatrix(float[][] warp) {
+        double[] m = new double[9];
+        for (int row = 0; row < 3; row++) {
+            float[] values = warp[row];
+            if (values == null || values.length < 3) {
+                return null;
+            }
+            for (int col = 0; col < 3; col++) {
+                m[row * 3 + col] = values[col];
+            }
+        }
+        return m;
+    }
+
+    private static double distance(double x0, double y0, double x1, double y1) {
+        return Math.hypot(x1 - x0, y1 - y0);
+    }
+
+    private static int clamp(int v, int min, int max) {
+        return v < min ? min : (v > max ? max : v);
+    }
+}
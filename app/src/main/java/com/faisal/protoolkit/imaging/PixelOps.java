@@ -0,0 +1,253 @@
+package com.faisal.protoolkit.imaging;
+
+/**
+ * Whole-plane pixel operations on {@link PixelPlane} and {@link LumaPlane}.
+ *
+ * These are the platform-neutral entry points to the imaging kernels: colour matrices and
+ * thresholds through {@link FilterKernel}, integer convolution, right-angle rotation and
+ * perspective resampling through {@link PerspectiveWarp}. Android code converts bitmaps to
+ * planes and back; everything here runs and is tested on a plain JVM.
+ */
+public final class PixelOps {
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private PixelOps() {
+    }
+
+    /**
+     * Runs {@code kernel} over every pixel of {@code src} into {@code dst} of the same size.
+     * The planes may be the same to filter in place.
+     */
+    public static void apply(FilterKernel kernel, PixelPlane src, PixelPlane dst) {
+        requireSameSize(src.width, src.height, dst.width, dst.height);
+        if (src.isPacked() && dst.isPacked()) {
+            kernel.apply(src.pixels, src.offset, dst.pixels, dst.offset, src.width * src.height);
+            return;
+        }
+        for (int y = 0; y < src.height; y++) {
+            kernel.apply(src.pixels, src.rowOffset(y), dst.pixels, dst.rowOffset(y), src.width);
+        }
+    }
+
+    /**
+     * Applies a 4x5 colour matrix (layout of android.graphics.ColorMatrix).
+     */
+    public static void colorMatrix(PixelPlane src, PixelPlane dst, float[] matrix) {
+        apply(FilterKernel.ofMatrix(matrix), src, dst);
+    }
+
+    /**
+     * Contrast scale and brightness offset ({@code EditOps.Filter} units) on each channel.
+     */
+    public static void contrastBrightness(PixelPlane src, PixelPlane dst, float contrast, float brightness) {
+        colorMatrix(src, dst, FilterKernel.scale(contrast, brightness * 255.0f));
+    }
+
+    /**
+     * Desaturates to gray ARGB, keeping alpha.
+     */
+    public static void grayscale(PixelPlane src, PixelPlane dst) {
+        colorMatrix(src, dst, FilterKernel.saturation(0f));
+    }
+
+    /**
+     * Writes the integer Rec. 601 luminance of {@code src} into {@code dst}.
+     */
+    public static void luminance(PixelPlane src, LumaPlane dst) {
+        requireSameSize(src.width, src.height, dst.width, dst.height);
+        for (int y = 0; y < src.height; y++) {
+            int s = src.rowOffset(y);
+            int d = dst.rowOffset(y);
+            for (int x = 0; x < src.width; x++) {
+                dst.values[d + x] = (byte) FilterKernel.luminance(src.pixels[s + x]);
+            }
+        }
+    }
+
+    /**
+     * Black where luminance is at or below {@code threshold} (0-255), white above.
+     */
+    public static void threshold(PixelPlane src, PixelPlane dst, int threshold) {
+        apply(FilterKernel.ofThreshold(threshold), src, dst);
+    }
+
+    /**
+     * Thresholds a luminance plane into packed black and white.
+     */
+    public static void threshold(LumaPlane src, PixelPlane dst, int threshold) {
+        requireSameSize(src.width, src.height, dst.width, dst.height);
+        for (int y = 0; y < src.height; y++) {
+            int s = src.rowOffset(y);
+            int d = dst.rowOffset(y);
+            for (int x = 0; x < src.width; x++) {
+                dst.pixels[d + x] = (src.values[s + x] & 0xFF) > threshold ? WHITE : BLACK;
+            }
+        }
+    }
+
+    /**
+     * Otsu black and white ({@link OtsuThreshold}); returns the threshold used.
+     */
+    public static int autoThreshold(PixelPlane src, PixelPlane dst) {
+        requireSameSize(src.width, src.height, dst.width, dst.height);
+        if (src.isPacked() && dst.isPacked()) {
+            return OtsuThreshold.binarize(src.pixels, src.offset, dst.pixels, dst.offset,
+                    src.width * src.height);
+        }
+        int[] histogram = new int[OtsuThreshold.BINS];
+        for (int y = 0; y < src.height; y++) {
+            OtsuThreshold.accumulate(src.pixels, src.rowOffset(y), src.width, histogram);
+        }
+        int t = OtsuThreshold.fromHistogram(histogram);
+        threshold(src, dst, t);
+        return t;
+    }
+
+    /**
+     * Convolves each colour channel with a square integer kernel of odd {@code size},
+     * normalised by the sum of its weights (or by 1 when they sum to 0, as for edge
+     * kernels). Edges are clamped and alpha is kept. {@code src} and {@code dst} must not
+     * share pixels.
+     */
+    public static void convolve(PixelPlane src, PixelPlane dst, int[] weights, int size) {
+        requireSameSize(src.width, src.height, dst.width, dst.height);
+        if (size <= 0 || (size & 1) == 0 || weights.length != size * size) {
+            throw new IllegalArgumentException("Kernel must be odd-sized and square");
+        }
+        int sum = 0;
+        for (int w : weights) {
+            sum += w;
+        }
+        final int divisor = sum != 0 ? sum : 1;
+        final int half = divisor / 2;
+        final int radius = size / 2;
+        final int lastX = src.width - 1;
+        final int lastY = src.height - 1;
+        for (int y = 0; y < src.height; y++) {
+            int d = dst.rowOffset(y);
+            for (int x = 0; x < src.width; x++) {
+                int sr = 0, sg = 0, sb = 0;
+                int k = 0;
+                for (int ky = -radius; ky <= radius; ky++) {
+                    int row = src.rowOffset(clamp(y + ky, 0, lastY));
+                    for (int kx = -radius; kx <= radius; kx++) {
+                        int w = weights[k++];
+                        if (w == 0) {
+                            continue;
+                        }
+                        int p = src.pixels[row + clamp(x + kx, 0, lastX)];
+                        sr += ((p >> 16) & 0xFF) * w;
+                        sg += ((p >> 8) & 0xFF) * w;
+                        sb += (p & 0xFF) * w;
+                    }
+                }
+                int alpha = src.get(x, y) & 0xFF000000;
+                dst.pixels[d + x] = alpha
+                        | (clamp((sr + half) / divisor, 0, 255) << 16)
+                        | (clamp((sg + half) / divisor, 0, 255) << 8)
+                        | clamp((sb + half) / divisor, 0, 255);
+            }
+        }
+    }
+
+    /**
+     * Luminance unsharp mask ({@link Sharpener}), {@code amount} 0-1.
+     */
+    public static void sharpen(PixelPlane src, PixelPlane dst, float amount) {
+        requireSameSize(src.width, src.height, dst.width, dst.height);
+        PixelPlane in = src.offset == 0 && src.isPacked() ? src : src.copy();
+        if (dst.offset == 0 && dst.isPacked() && dst.pixels != in.pixels) {
+            Sharpener.sharpen(in.pixels, dst.pixels, src.width, src.height, amount);
+            return;
+        }
+        PixelPlane out = new PixelPlane(src.width, src.height);
+        Sharpener.sharpen(in.pixels, out.pixels, src.width, src.height, amount);
+        copyInto(out, dst);
+    }
+
+    /**
+     * Returns {@code src} rotated clockwise by {@code degrees}, rounded down to a multiple
+     * of 90.
+     */
+    public static PixelPlane rotate(PixelPlane src, int degrees) {
+        int rotation = normalizeRotation(degrees);
+        boolean swapped = rotation == 90 || rotation == 270;
+        PixelPlane packed = src.offset == 0 && src.isPacked() ? src : src.copy();
+        PixelPlane out = swapped ? new PixelPlane(src.height, src.width) : new PixelPlane(src.width, src.height);
+        rotateRows(packed.pixels, src.width, src.height, rotation, out.pixels, out.width, out.height);
+        return out;
+    }
+
+    /**
+     * Writes the first {@code rows} rows of the clockwise rotation of a packed tile into
+     * {@code out}, {@code outWidth} per row. With a tile that is only the source strip an
+     * output strip maps to, this rotates a page one strip at a time.
+     */
+    public static void rotateRows(int[] tile, int tileWidth, int tileHeight, int rotation,
+                                  int[] out, int outWidth, int rows) {
+        for (int y = 0; y < rows; y++) {
+            int dst = y * outWidth;
+            switch (rotation) {
+                case 90:
+                    // Output row y is source column y, read bottom to top
+                    for (int x = 0; x < outWidth; x++) {
+                        out[dst + x] = tile[(tileHeight - 1 - x) * tileWidth + y];
+                    }
+                    break;
+                case 180: {
+                    int src = (rows - 1 - y) * tileWidth + tileWidth - 1;
+                    for (int x = 0; x < outWidth; x++) {
+                        out[dst + x] = tile[src - x];
+                    }
+                    break;
+                }
+                case 270:
+                    // Output row y is source column (tileWidth - 1 - y), read top to bottom
+                    for (int x = 0; x < outWidth; x++) {
+                        out[dst + x] = tile[x * tileWidth + (tileWidth - 1 - y)];
+                    }
+                    break;
+                default:
+                    System.arraycopy(tile, y * tileWidth, out, dst, outWidth);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns {@code src} resampled through {@code warp} (crop, warp, deskew and rotation).
+     */
+    public static PixelPlane warp(PixelPlane src, PerspectiveWarp warp) {
+        PixelPlane out = new PixelPlane(warp.getOutputWidth(), warp.getOutputHeight());
+        PixelPlane in = src.offset == 0 ? src : src.copy();
+        warp.warpRows(in.pixels, 0, 0, in.width, in.height, in.stride,
+                out.pixels, 0, out.width, 0, out.height);
+        return out;
+    }
+
+    /**
+     * Clockwise rotation in whole right angles, 0-270.
+     */
+    public static int normalizeRotation(int degrees) {
+        int r = ((degrees % 360) + 360) % 360;
+        return (r / 90) * 90;
+    }
+
+    private static void copyInto(PixelPlane src, PixelPlane dst) {
+        for (int y = 0; y < src.height; y++) {
+            System.arraycopy(src.pixels, src.rowOffset(y), dst.pixels, dst.rowOffset(y), src.width);
+        }
+    }
+
+    private static void requireSameSize(int w1, int h1, int w2, int h2) {
+        if (w1 != w2 || h1 != h2) {
+            throw new IllegalArgumentException("Plane sizes differ: " + w1 + "x" + h1 + " vs " + w2 + "x" + h2);
+        }
+    }
+
+    private static int clamp(int v, int min, int max) {
+        return v < min ? min : (v > max ? max : v);
+    }
+}
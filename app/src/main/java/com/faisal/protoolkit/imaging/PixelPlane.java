@@ -0,0 +1,91 @@
+package com.faisal.protoolkit.imaging;
+
+/**
+ * A rectangle of packed ARGB pixels in an {@code int[]}: row {@code y} starts at
+ * {@code offset + y * stride}. Planes are plain views; several may share one array, e.g. a
+ * strip of a larger buffer, and nothing here depends on Android.
+ */
+public final class PixelPlane {
+
+    public final int[] pixels;
+    public final int offset;
+    public final int width;
+    public final int height;
+    public final int stride;
+
+    /**
+     * Allocates a tightly packed plane.
+     */
+    public PixelPlane(int width, int height) {
+        this(new int[width * height], 0, width, height, width);
+    }
+
+    private PixelPlane(int[] pixels, int offset, int width, int height, int stride) {
+        if (width < 0 || height < 0 || stride < width) {
+            throw new IllegalArgumentException("Bad plane " + width + "x" + height + " stride " + stride);
+        }
+        if (height > 0 && offset + (long) (height - 1) * stride + width > pixels.length) {
+            throw new IllegalArgumentException("Plane exceeds array of " + pixels.length);
+        }
+        this.pixels = pixels;
+        this.offset = offset;
+        this.width = width;
+        this.height = height;
+        this.stride = stride;
+    }
+
+    /**
+     * Views existing pixels as a plane without copying.
+     */
+    public static PixelPlane wrap(int[] pixels, int offset, int width, int height, int stride) {
+        return new PixelPlane(pixels, offset, width, height, stride);
+    }
+
+    /**
+     * Views a tightly packed array as a plane without copying.
+     */
+    public static PixelPlane wrap(int[] pixels, int width, int height) {
+        return new PixelPlane(pixels, 0, width, height, width);
+    }
+
+    /**
+     * Views the sub-rectangle at ({@code x}, {@code y}) sharing this plane's array.
+     */
+    public PixelPlane region(int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || x + width > this.width || y + height > this.height) {
+            throw new IllegalArgumentException("Region outside plane");
+        }
+        return new PixelPlane(pixels, offset + y * stride + x, width, height, stride);
+    }
+
+    /** Index of the first pixel of row {@code y}. */
+    public int rowOffset(int y) {
+        return offset + y * stride;
+    }
+
+    public int get(int x, int y) {
+        return pixels[offset + y * stride + x];
+    }
+
+    public void set(int x, int y, int argb) {
+        pixels[offset + y * stride + x] = argb;
+    }
+
+    /**
+     * Returns true if rows follow each other with no gap, so the plane is one run of pixels.
+     */
+    public boolean isPacked() {
+        return stride == width || height <= 1;
+    }
+
+    /**
+     * Returns a tightly packed copy starting at index 0.
+     */
+    public PixelPlane copy() {
+        PixelPlane copy = new PixelPlane(width, height);
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(pixels, rowOffset(y), copy.pixels, y * width, width);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,22 @@
+package com.faisal.protoolkit.imaging;
+
+/**
+ * A neighbourhood filter that streams an image row by row, top to bottom.
+ *
+ * Output rows lag input rows by the filter's vertical radius; {@link #pullRow} returns false
+ * until the next output row can be produced, and once every input row has been pushed the
+ * remaining rows drain. Callers push and drain alternately so implementations only ever
+ * hold a ring of a few rows. Implementations are configured by their own {@code begin}.
+ */
+public interface RowFilter {
+
+    /**
+     * Feeds the next input row, {@code width} pixels from {@code offset}.
+     */
+    void pushRow(int[] src, int offset);
+
+    /**
+     * Writes the next output row to {@code dst} if available and returns whether it did.
+     */
+    boolean pullRow(int[] dst, int offset);
+}
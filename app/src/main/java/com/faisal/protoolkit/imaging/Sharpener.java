@@ -0,0 +1,202 @@
+package com.faisal.protoolkit.imaging;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Luminance unsharp mask with a 3x3 box blur, in integer arithmetic.
+ *
+ * For each pixel the detail term {@code luma - mean3x3(luma)} is scaled by the gain and
+ * added equally to R, G and B, which sharpens edges without shifting hue. Whole images are
+ * processed row-parallel on the common {@link ForkJoinPool}; the {@link RowFilter} side
+ * streams rows with a one-row lag for tiled renders.
+ */
+public final class Sharpener implements RowFilter {
+
+    /** Detail gain at {@code EditOps.Filter.sharpen == 1}. */
+    public static final float MAX_GAIN = 2.0f;
+
+    // Rows per ForkJoin leaf; below this splitting costs more than it saves
+    private static final int LEAF_ROWS = 64;
+    // 65536 / 9, so the 3x3 mean is a multiply and shift
+    private static final int INV_NINE = 7282;
+
+    private static final ThreadLocal<Sharpener> SCRATCH = new ThreadLocal<Sharpener>() {
+        @Override
+        protected Sharpener initialValue() {
+            return new Sharpener();
+        }
+    };
+
+    private int width;
+    private int height;
+    private int gain;
+    private int[] rows = new int[0];  // ring of 3 source rows
+    private int[] luma = new int[0];  // their luminance
+    private int rowsIn;
+    private int rowsOut;
+
+    /**
+     * Returns this thread's reusable streaming instance.
+     */
+    public static Sharpener obtain() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * Converts {@code EditOps.Filter.sharpen} (0-1) to an 8.8 fixed-point detail gain.
+     */
+    static int gainFor(float amount) {
+        float a = Math.max(0f, Math.min(1f, amount));
+        return Math.round(a * MAX_GAIN * 256);
+    }
+
+    /**
+     * Starts a new streamed image.
+     */
+    public void begin(int width, int height, float amount) {
+        this.width = width;
+        this.height = height;
+        this.gain = gainFor(amount);
+        this.rowsIn = 0;
+        this.rowsOut = 0;
+        if (rows.length < 3 * width) {
+            rows = new int[3 * width];
+            luma = new int[3 * width];
+        }
+    }
+
+    @Override
+    public void pushRow(int[] src, int offset) {
+        int slot = (rowsIn % 3) * width;
+        System.arraycopy(src, offset, rows, slot, width);
+        lumaRow(src, offset, luma, slot, width);
+        rowsIn++;
+    }
+
+    @Override
+    public boolean pullRow(int[] dst, int offset) {
+        int y = rowsOut;
+        if (y >= height || (rowsIn < height && rowsIn <= y + 1)) {
+            return false;
+        }
+        int above = Math.max(0, y - 1) % 3 * width;
+        int center = y % 3 * width;
+        int below = Math.min(height - 1, y + 1) % 3 * width;
+        sharpenRow(rows, center, luma, above, luma, center, luma, below, width, gain, dst, offset);
+        rowsOut++;
+        return true;
+    }
+
+    /**
+     * Sharpens a whole image from {@code src} into {@code dst}, rows in parallel.
+     */
+    public static void sharpen(int[] src, int[] dst, int width, int height, float amount) {
+        sharpen(src, width, height, dst, 0, height, amount);
+    }
+
+    /**
+     * Sharpens rows [firstRow, firstRow + rowCount) of a window of {@code srcRows} rows into
+     * {@code dst} (starting at index 0). Neighbours outside the window are clamped to its
+     * edge rows, so a window with one row of margin gives the same result as the full image.
+     */
+    public static void sharpen(int[] src, int width, int srcRows, int[] dst, int firstRow, int rowCount,
+                               float amount) {
+        int gain = gainFor(amount);
+        if (gain == 0) {
+            System.arraycopy(src, firstRow * width, dst, 0, rowCount * width);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(
+                new RowsTask(src, width, srcRows, dst, firstRow, firstRow, firstRow + rowCount, gain));
+    }
+
+    private static final class RowsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int width;
+        private final int srcRows;
+        private final int[] dst;
+        private final int dstFirstRow;
+        private final int start;
+        private final int end;
+        private final int gain;
+
+        RowsTask(int[] src, int width, int srcRows, int[] dst, int dstFirstRow, int start, int end, int gain) {
+            this.src = src;
+            this.width = width;
+            this.srcRows = srcRows;
+            this.dst = dst;
+            this.dstFirstRow = dstFirstRow;
+            this.start = start;
+            this.end = end;
+            this.gain = gain;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > LEAF_ROWS) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new RowsTask(src, width, srcRows, dst, dstFirstRow, start, mid, gain),
+                        new RowsTask(src, width, srcRows, dst, dstFirstRow, mid, end, gain));
+                return;
+            }
+            // Rolling luminance for rows y-1, y, y+1; each row's luma is computed once
+            int[] above = new int[width];
+            int[] center = new int[width];
+            int[] below = new int[width];
+            int last = srcRows - 1;
+            lumaRow(src, Math.max(0, start - 1) * width, above, 0, width);
+            lumaRow(src, start * width, center, 0, width);
+            for (int y = start; y < end; y++) {
+                lumaRow(src, Math.min(last, y + 1) * width, below, 0, width);
+                sharpenRow(src, y * width, above, 0, center, 0, below, 0, width, gain,
+                        dst, (y - dstFirstRow) * width);
+                int[] recycled = above;
+                above = center;
+                center = below;
+                below = recycled;
+            }
+        }
+    }
+
+    private static void lumaRow(int[] src, int offset, int[] dst, int dstOffset, int width) {
+        for (int x = 0; x < width; x++) {
+            dst[dstOffset + x] = FilterKernel.luminance(src[offset + x]);
+        }
+    }
+
+    /**
+     * One output row: {@code out = px + gain * (luma - mean3x3(luma))}, edges clamped.
+     */
+    static void sharpenRow(int[] px, int pxOffset,
+                           int[] la, int aOff, int[] lc, int cOff, int[] lb, int bOff,
+                           int width, int gain, int[] dst, int dstOffset) {
+        int last = width - 1;
+        // Column sums of the 3x3 window, slid along the row
+        int left = la[aOff] + lc[cOff] + lb[bOff];
+        int mid = left;
+        for (int x = 0; x < width; x++) {
+            int nx = x < last ? x + 1 : last;
+            int right = la[aOff + nx] + lc[cOff + nx] + lb[bOff + nx];
+            int mean = ((left + mid + right) * INV_NINE) >> 16;
+            int delta = ((lc[cOff + x] - mean) * gain) >> 8;
+
+            int p = px[pxOffset + x];
+            if (delta != 0) {
+                int r = clamp(((p >> 16) & 0xFF) + delta);
+                int g = clamp(((p >> 8) & 0xFF) + delta);
+                int b = clamp((p & 0xFF) + delta);
+                p = (p & 0xFF000000) | (r << 16) | (g << 8) | b;
+            }
+            dst[dstOffset + x] = p;
+            left = mid;
+            mid = right;
+        }
+    }
+
+    private static int clamp(int v) {
+        return v < 0 ? 0 : (v > 255 ? 255 : v);
+    }
+}
@@ -1,15 +1,13 @@
 package com.faisal.protoolkit.model;
 
 import com.google.gson.annotations.SerializedName;
-import java.util.Arrays;
-import java.util.List;
 
 public class EditOps {
     @SerializedName("crop")
-    public List<List<Float>> crop; // [[x1,y1],[x2,y2],[x3,y3],[x4,y4]]
+    public float[][] crop; // [[x1,y1],[x2,y2],[x3,y3],[x4,y4]] - normalized 0-1, clockwise from top-left
 
     @SerializedName("warp")
-    public List<List<Float>> warp; // [[a,b,c],[d,e,f],[g,h,1]] - homography matrix
+    public float[][] warp; // [[a,b,c],[d,e,f],[g,h,1]] - homography, normalized source -> output; ignored when crop is set
 
     @SerializedName("rotate")
     public int rotate; // 0, 90, 180, 270
@@ -21,7 +19,10 @@ public class EditOps {
     public float denoise; // 0.0 to 1.0
 
     @SerializedName("deskew")
-    public float deskew; // -45.0 to 45.0 degrees
+    public float deskew; // -45.0 to 45.0 degrees, clockwise
+
+    @SerializedName("auto_deskew")
+    public boolean autoDeskew; // deskew not estimated yet; the editor resolves it into deskew when it opens the page
 
     public EditOps() {
         this.rotate = 0;
@@ -32,7 +33,7 @@ public class EditOps {
 
     public static class Filter {
         @SerializedName("mode")
-        public String mode; // ORIGINAL, GRAY, BW, COLOR_BOOST
+        public String mode; // ORIGINAL, GRAY, BW, AUTO_BW, ADAPTIVE_BW, COLOR_BOOST
 
         @SerializedName("contrast")
         public float contrast; // 0.0 to 2.0, default 1.0
@@ -53,16 +54,16 @@ public class EditOps {
 
     // Helper methods for common operations
     public void setCrop(float x1, float y1, float x2, float y2, float x3, float y3, float x4, float y4) {
-        this.crop = Arrays.asList(
-            Arrays.asList(x1, y1),
-            Arrays.asList(x2, y2),
-            Arrays.asList(x3, y3),
-            Arrays.asList(x4, y4)
-        );
+        this.crop = new float[][] {
+            {x1, y1},
+            {x2, y2},
+            {x3, y3},
+            {x4, y4}
+        };
     }
 
     public boolean hasCrop() {
-        return crop != null && crop.size() == 4;
+        return crop != null && crop.length == 4;
     }
 
     public boolean hasRotation() {
@@ -78,7 +79,7 @@ public class EditOps {
     }
 
     public boolean hasWarp() {
-        return warp != null && warp.size() == 3;
+        return warp != null && warp.length == 3;
     }
 
     public boolean hasDenoise() {
@@ -99,6 +100,7 @@ public class EditOps {
         this.rotate = 0;
         this.denoise = 0.0f;
         this.deskew = 0.0f;
+        this.autoDeskew = false;
         if (this.filter == null) {
             this.filter = new Filter();
         } else {
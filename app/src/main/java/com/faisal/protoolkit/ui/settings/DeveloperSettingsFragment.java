@@ -57,6 +57,22 @@ public class DeveloperSettingsFragment extends BaseFragment {
             }
         });
 
+        binding.switchRenderTracing.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            viewModel.setRenderTracingEnabled(isChecked);
+            if (ServiceLocator.getSettingsRepository().isHapticsEnabled()) {
+                HapticHelper.vibrate(requireContext());
+            }
+        });
+
+        binding.buttonRefreshRenderStats.setOnClickListener(v -> viewModel.refreshRenderStats());
+
+        binding.buttonResetRenderStats.setOnClickListener(v -> {
+            viewModel.resetRenderStats();
+            if (ServiceLocator.getSettingsRepository().isHapticsEnabled()) {
+                HapticHelper.vibrate(requireContext());
+            }
+        });
+
         binding.buttonTestPurchase.setOnClickListener(v -> {
             viewModel.testPurchaseFlow();
             if (ServiceLocator.getSettingsRepository().isHapticsEnabled()) {
@@ -77,9 +93,12 @@ public class DeveloperSettingsFragment extends BaseFragment {
             binding.switchDevMode.setChecked(enabled);
             binding.cardSandbox.setVisibility(enabled ? View.VISIBLE : View.GONE);
             binding.cardTestPurchases.setVisibility(enabled ? View.VISIBLE : View.GONE);
+            binding.cardRenderStats.setVisibility(enabled ? View.VISIBLE : View.GONE);
         });
 
         observe(viewModel.isSandboxMode(), sandbox -> binding.switchSandbox.setChecked(sandbox));
         observe(viewModel.isDebugLoggingEnabled(), logging -> binding.switchDebugLogging.setChecked(logging));
+        observe(viewModel.isRenderTracingEnabled(), tracing -> binding.switchRenderTracing.setChecked(tracing));
+        observe(viewModel.getRenderStats(), stats -> binding.textRenderStats.setText(stats));
     }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import com.faisal.protoolkit.data.settings.SettingsRepository;
 import com.faisal.protoolkit.ui.base.BaseViewModel;
 import com.faisal.protoolkit.util.AppExecutors;
 import com.faisal.protoolkit.util.DeveloperModeUtil;
+import com.faisal.protoolkit.util.RenderTrace;
 
 /**
  * ViewModel for developer settings.
@@ -20,6 +21,8 @@ public class DeveloperSettingsViewModel extends BaseViewModel {
     private final MutableLiveData<Boolean> developerModeEnabled = new MutableLiveData<>(false);
     private final MutableLiveData<Boolean> sandboxMode = new MutableLiveData<>(false);
     private final MutableLiveData<Boolean> debugLoggingEnabled = new MutableLiveData<>(false);
+    private final MutableLiveData<Boolean> renderTracingEnabled = new MutableLiveData<>(false);
+    private final MutableLiveData<String> renderStats = new MutableLiveData<>("");
 
     public DeveloperSettingsViewModel(@NonNull SettingsRepository settingsRepository) {
         this.settingsRepository = settingsRepository;
@@ -31,6 +34,8 @@ public class DeveloperSettingsViewModel extends BaseViewModel {
         developerModeEnabled.postValue(developerModeUtil.isDeveloperModeEnabled());
         sandboxMode.postValue(developerModeUtil.isSandboxMode());
         debugLoggingEnabled.postValue(developerModeUtil.isDebugLoggingEnabled());
+        renderTracingEnabled.postValue(developerModeUtil.isRenderTracingEnabled());
+        renderStats.postValue(RenderTrace.summary());
     }
 
     public void setDeveloperModeEnabled(boolean enabled) {
@@ -54,6 +59,22 @@ public class DeveloperSettingsViewModel extends BaseViewModel {
         });
     }
 
+    public void setRenderTracingEnabled(boolean enabled) {
+        AppExecutors.io().execute(() -> {
+            developerModeUtil.setRenderTracingEnabled(enabled);
+            renderTracingEnabled.postValue(enabled);
+        });
+    }
+
+    public void refreshRenderStats() {
+        renderStats.postValue(RenderTrace.summary());
+    }
+
+    public void resetRenderStats() {
+        RenderTrace.reset();
+        renderStats.postValue(RenderTrace.summary());
+    }
+
     public void testPurchaseFlow() {
         // This would trigger the test purchase flow
         postError("Test purchase flow triggered");
@@ -68,4 +89,6 @@ public class DeveloperSettingsViewModel extends BaseViewModel {
     public LiveData<Boolean> isDeveloperModeEnabled() { return developerModeEnabled; }
     public LiveData<Boolean> isSandboxMode() { return sandboxMode; }
     public LiveData<Boolean> isDebugLoggingEnabled() { return debugLoggingEnabled; }
+    public LiveData<Boolean> isRenderTracingEnabled() { return renderTracingEnabled; }
+    public LiveData<String> getRenderStats() { return renderStats; }
 }
\ No newline at end of file
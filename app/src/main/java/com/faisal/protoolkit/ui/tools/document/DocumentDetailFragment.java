@@ -5,7 +5,6 @@ import android.app.Activity;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
 import android.view.LayoutInflater;
@@ -25,6 +24,10 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.work.Data;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
 
 import com.faisal.protoolkit.BuildConfig;
 import com.faisal.protoolkit.R;
@@ -36,7 +39,9 @@ import com.faisal.protoolkit.ui.tools.document.DocumentPageEditActivity;
 import com.faisal.protoolkit.ui.tools.document.viewmodels.DocumentDetailViewModel;
 import com.faisal.protoolkit.util.FileManager;
 import com.faisal.protoolkit.util.ImageUtils;
-import com.faisal.protoolkit.util.PdfExportUtil;
+import com.faisal.protoolkit.util.RenderCache;
+import com.faisal.protoolkit.util.RenderEngine;
+import com.faisal.protoolkit.worker.ExportPdfWorker;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.mlkit.vision.documentscanner.GmsDocumentScanner;
 import com.google.mlkit.vision.documentscanner.GmsDocumentScannerOptions;
@@ -45,7 +50,6 @@ import com.google.mlkit.vision.documentscanner.GmsDocumentScanningResult;
 
 import java.io.File;
 import java.io.FileOutputStream;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -59,6 +63,8 @@ public class DocumentDetailFragment extends Fragment {
     private GmsDocumentScanner documentScanner;
     private ActivityResultLauncher<String> requestPermissionLauncher;
     private ActivityResultLauncher<IntentSenderRequest> documentScanLauncher;
+    // Export running for this fragment, if any
+    private UUID exportWorkId;
 
     public static DocumentDetailFragment newInstance(String documentId) {
         DocumentDetailFragment fragment = new DocumentDetailFragment();
@@ -142,7 +148,7 @@ public class DocumentDetailFragment extends Fragment {
     }
 
     private void setupRecyclerView() {
-        adapter = new PageAdapter(viewModel, 
+        adapter = new PageAdapter(viewModel,
             page -> {
                 // Start the full-screen edit activity for this page
                 android.content.Intent intent = new android.content.Intent(requireContext(), 
@@ -170,7 +176,7 @@ public class DocumentDetailFragment extends Fragment {
                 .setTitle("Delete Page?")
                 .setMessage("Are you sure you want to delete this page? This action cannot be undone.")
                 .setPositiveButton("Delete", (dialog, which) -> {
-                    viewModel.deletePage(page);
+                    viewModel.deletePage(page, RenderCache.getInstance(requireContext()));
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
@@ -182,89 +188,35 @@ public class DocumentDetailFragment extends Fragment {
             return;
         }
 
+        if (exportWorkId != null) {
+            Toast.makeText(requireContext(), "Export already in progress", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
         // Show a progress message
         Toast.makeText(requireContext(), "Preparing PDF...", Toast.LENGTH_SHORT).show();
 
-        // Run the export in a background thread
-        new Thread(() -> {
-            try {
-                // Get all pages for the document
-                List<PageEntity> pages = database.pageDao().getPagesByDocumentSync(documentId);
-                
-                if (pages == null || pages.isEmpty()) {
-                    requireActivity().runOnUiThread(() -> 
-                        Toast.makeText(requireContext(), "No pages to export", Toast.LENGTH_SHORT).show());
-                    return;
-                }
-
-                // Sort pages by index to ensure correct order
-                pages.sort((p1, p2) -> Integer.compare(p1.index, p2.index));
-
-                // Create a list to hold all bitmaps
-                List<Bitmap> bitmaps = new ArrayList<>();
-                
-                // Load bitmap for each page
-                for (PageEntity page : pages) {
-                    try {
-                        Bitmap bitmap = null;
-                        if (page.uri_original != null) {
-                            if (page.uri_original.startsWith("content://") || page.uri_original.startsWith("file://")) {
-                                // It's already a URI, use it directly
-                                Uri imageUri = Uri.parse(page.uri_original);
-                                bitmap = ImageUtils.getBitmapFromUri(requireContext(), imageUri);
-                            } else {
-                                // It's a file path, check if it exists and load it directly
-                                java.io.File imageFile = new java.io.File(page.uri_original);
-                                if (imageFile.exists()) {
-                                    bitmap = BitmapFactory.decodeFile(page.uri_original);
-                                } else {
-                                    System.out.println("File does not exist: " + page.uri_original);
-                                }
-                            }
-                        }
-                        
-                        if (bitmap != null) {
-                            bitmaps.add(bitmap);
-                        } else {
-                            // Log for debugging
-                            System.out.println("Could not load bitmap for: " + page.uri_original);
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        // Continue with other pages even if one fails
-                    }
-                }
-
-                if (bitmaps.isEmpty()) {
-                    requireActivity().runOnUiThread(() -> 
-                        Toast.makeText(requireContext(), "No valid images to export", Toast.LENGTH_SHORT).show());
-                    return;
-                }
-
-                // Create the PDF file
-                String fileName = "Document_" + documentId + ".pdf";
-                File pdfFile = PdfExportUtil.createPdfFromBitmapsWithA4Size(bitmaps, fileName, requireContext());
-
-                // Clean up bitmaps to free memory
-                for (Bitmap bitmap : bitmaps) {
-                    if (bitmap != null && !bitmap.isRecycled()) {
-                        bitmap.recycle();
-                    }
-                }
-
-                if (pdfFile != null && pdfFile.exists()) {
-                    // Share the PDF file
-                    sharePdfFile(pdfFile);
-                } else {
-                    requireActivity().runOnUiThread(() -> 
-                        Toast.makeText(requireContext(), "Failed to create PDF", Toast.LENGTH_SHORT).show());
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-                requireActivity().runOnUiThread(() -> 
-                    Toast.makeText(requireContext(), "Error exporting PDF: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+        // Rendered and assembled by WorkManager, which resumes the export if it is interrupted
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ExportPdfWorker.class)
+                .setInputData(new Data.Builder()
+                        .putString(ExportPdfWorker.DOC_ID, documentId)
+                        .build())
+                .build();
+        WorkManager workManager = WorkManager.getInstance(requireContext());
+        workManager.enqueue(request);
+        exportWorkId = request.getId();
+        workManager.getWorkInfoByIdLiveData(exportWorkId).observe(getViewLifecycleOwner(), workInfo -> {
+            if (workInfo == null || !workInfo.getState().isFinished()) {
+                return;
             }
-        }).start();
+            exportWorkId = null;
+            String path = workInfo.getOutputData().getString(ExportPdfWorker.OUTPUT_FILE);
+            if (workInfo.getState() == WorkInfo.State.SUCCEEDED && path != null) {
+                sharePdfFile(new File(path));
+            } else if (workInfo.getState() == WorkInfo.State.FAILED) {
+                Toast.makeText(requireContext(), "Failed to create PDF", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void sharePdfFile(File pdfFile) {
@@ -438,7 +390,7 @@ public class DocumentDetailFragment extends Fragment {
                                 targetIndex,
                                 originalFile.getAbsolutePath(),
                                 null,
-                                null,
+                                RenderEngine.editOpsForImport(originalFile),
                                 bitmap.getWidth(),
                                 bitmap.getHeight(),
                                 300,
@@ -492,5 +444,7 @@ public class DocumentDetailFragment extends Fragment {
     public void onDestroyView() {
         super.onDestroyView();
         binding = null;
+        // The export keeps running; only its result observer went with the view
+        exportWorkId = null;
     }
 }
@@ -16,6 +16,7 @@ import android.graphics.PorterDuffXfermode;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.util.Log;
@@ -27,6 +28,7 @@ import android.widget.Toast;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 
@@ -36,11 +38,17 @@ import android.widget.ImageView;
 import com.davemorrissey.labs.subscaleview.ImageSource;
 import com.davemorrissey.labs.subscaleview.SubsamplingScaleImageView;
 import com.faisal.protoolkit.R;
+import com.faisal.protoolkit.imaging.GpuFilterProgram;
 import com.faisal.protoolkit.databinding.ActivityDocumentPageEditBinding;
 import com.faisal.protoolkit.model.EditOps;
 import com.faisal.protoolkit.data.database.AppDatabase;
+import com.faisal.protoolkit.data.entities.DocumentEntity;
 import com.faisal.protoolkit.data.entities.PageEntity;
+import com.faisal.protoolkit.util.AcceleratedFilter;
+import com.faisal.protoolkit.util.BitmapPool;
+import com.faisal.protoolkit.util.PreviewScheduler;
 import com.faisal.protoolkit.util.RenderEngine;
+import com.faisal.protoolkit.worker.GenerateDocThumbWorker;
 
 import com.yalantis.ucrop.UCrop;
 
@@ -51,6 +59,8 @@ import java.io.FileOutputStream;
 public class DocumentPageEditActivity extends AppCompatActivity {
     private ActivityDocumentPageEditBinding binding;
     private Bitmap originalBitmap;
+    // Pooled bitmap currently shown in the preview view; released when replaced
+    private Bitmap displayedBitmap;
     private PageEntity pageEntity;
     private AppDatabase database;
     private RenderEngine renderEngine;
@@ -69,6 +79,13 @@ public class DocumentPageEditActivity extends AppCompatActivity {
     // Animation duration in milliseconds
     private static final int ANIMATION_DURATION = 300;
 
+    // Width of the cached preview shown while the original loads
+    private static final int EDITOR_PREVIEW_WIDTH_PX = 1024;
+    // Renders live previews off the main thread; owns originalBitmap once handed over
+    private PreviewScheduler previewScheduler;
+    // Filter the view draws over the unfiltered preview, when the device can
+    private GpuFilterProgram previewFilter;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -78,6 +95,27 @@ public class DocumentPageEditActivity extends AppCompatActivity {
         // Initialize database and render engine
         database = AppDatabase.getDatabase(this);
         renderEngine = new RenderEngine(this);
+        previewScheduler = new PreviewScheduler(renderEngine, new PreviewScheduler.Listener() {
+            @Override
+            public void onPreview(@NonNull Bitmap preview, boolean isFinal) {
+                showPreview(preview, isFinal);
+            }
+
+            @Override
+            public void onPreviewFilter(@Nullable GpuFilterProgram program) {
+                showPreviewFilter(program);
+            }
+        }, true);
+        binding.imageViewPreview.setOnStateChangedListener(
+                new SubsamplingScaleImageView.DefaultOnStateChangedListener() {
+                    @Override
+                    public void onScaleChanged(float newScale, int origin) {
+                        // Sharpening samples one source pixel away, which depends on the zoom
+                        if (previewFilter != null && previewFilter.getGain() > 0f) {
+                            applyPreviewEffect();
+                        }
+                    }
+                });
 
         // Get page ID from intent
         String pageId = getIntent().getStringExtra("page_id");
@@ -91,6 +129,16 @@ public class DocumentPageEditActivity extends AppCompatActivity {
         Thread loadPageThread = new Thread(() -> {
             pageEntity = database.pageDao().getPageById(pageId);
             if (pageEntity != null) {
+                // Show the cached edited preview right away while the full original decodes
+                File cachedPreview = renderEngine.getCachedPreview(pageEntity, EDITOR_PREVIEW_WIDTH_PX);
+                if (cachedPreview != null) {
+                    runOnUiThread(() -> {
+                        if (binding != null && originalBitmap == null) {
+                            binding.imageViewPreview.setImage(ImageSource.uri(Uri.fromFile(cachedPreview)));
+                        }
+                    });
+                }
+
                 // Load the image
                 File imageFile = new File(pageEntity.uri_original);
                 if (imageFile.exists()) {
@@ -108,6 +156,12 @@ public class DocumentPageEditActivity extends AppCompatActivity {
                             currentEditOps = new EditOps(); // Initialize new edit operations
                         }
 
+                        // A freshly imported page asks for deskew; estimate it now so the editor starts straight
+                        if (RenderEngine.resolveAutoDeskew(currentEditOps, imageFile)) {
+                            pageEntity.edit_ops_json = com.faisal.protoolkit.util.EditOpsUtil.serialize(currentEditOps);
+                            database.pageDao().updatePageEditOps(pageEntity.id, pageEntity.edit_ops_json, pageEntity.updated_at);
+                        }
+
                         // Ensure filter object is initialized
                         if (currentEditOps.filter == null) {
                             currentEditOps.filter = new EditOps.Filter();
@@ -118,6 +172,7 @@ public class DocumentPageEditActivity extends AppCompatActivity {
                         }
 
                         runOnUiThread(() -> {
+                            previewScheduler.setSource(originalBitmap);
                             setupUI();
         loadInitialImage();
         setupAdjustmentsPanel(); // Initialize the adjustments panel
@@ -148,14 +203,13 @@ public class DocumentPageEditActivity extends AppCompatActivity {
                             // Load the cropped image
                             Bitmap croppedBitmap = BitmapFactory.decodeStream(getContentResolver().openInputStream(croppedImageUri));
                             if (croppedBitmap != null) {
-                                // Update the original bitmap with the cropped version
-                                if (originalBitmap != null && !originalBitmap.isRecycled()) {
-                                    originalBitmap.recycle();
-                                }
+                                // Update the original bitmap with the cropped version; the
+                                // scheduler recycles the previous one once no render uses it
                                 originalBitmap = croppedBitmap;
+                                previewScheduler.setSource(originalBitmap);
                                 
                                 // Update the preview with the cropped image
-                                binding.imageViewPreview.setImage(ImageSource.bitmap(originalBitmap.copy(originalBitmap.getConfig(), true)));
+                                setPreviewBitmap(BitmapPool.get().copy(originalBitmap));
                                 
                                 // Apply current filters to the cropped image
                                 applyFilters();
@@ -191,6 +245,8 @@ public class DocumentPageEditActivity extends AppCompatActivity {
         binding.btnFilterOriginal.setEnabled(false);
         binding.btnFilterGray.setEnabled(false);
         binding.btnFilterBw.setEnabled(false);
+        binding.btnFilterAdaptive.setEnabled(false);
+        binding.btnFilterAuto.setEnabled(false);
         binding.btnFilterBoost.setEnabled(false);
 
         // Set up click listeners for filter image buttons
@@ -209,6 +265,16 @@ public class DocumentPageEditActivity extends AppCompatActivity {
             updateFilterSelection("BW");
             // Keep filter options visible after selection
         });
+        binding.btnFilterAdaptive.setOnClickListener(v -> {
+            setFilterMode("ADAPTIVE_BW");
+            updateFilterSelection("ADAPTIVE_BW");
+            // Keep filter options visible after selection
+        });
+        binding.btnFilterAuto.setOnClickListener(v -> {
+            setFilterMode("AUTO_BW");
+            updateFilterSelection("AUTO_BW");
+            // Keep filter options visible after selection
+        });
         binding.btnFilterBoost.setOnClickListener(v -> {
             setFilterMode("COLOR_BOOST");
             updateFilterSelection("COLOR_BOOST");
@@ -262,7 +328,6 @@ public class DocumentPageEditActivity extends AppCompatActivity {
         binding.seekbarContrast.addOnChangeListener((slider, value, fromUser) -> {
             if (fromUser) {
                 float contrast = value;
-                Log.d("DocumentPageEdit", "Contrast changed to: " + contrast);
                 updateContrast(contrast);
                 binding.contrastValue.setText(String.format("%.1f", contrast));
             }
@@ -277,7 +342,6 @@ public class DocumentPageEditActivity extends AppCompatActivity {
         binding.seekbarBrightness.addOnChangeListener((slider, value, fromUser) -> {
             if (fromUser) {
                 float brightness = value;
-                Log.d("DocumentPageEdit", "Brightness changed to: " + brightness);
                 updateBrightness(brightness);
                 binding.brightnessValue.setText(String.format("%.1f", brightness));
             }
@@ -292,7 +356,6 @@ public class DocumentPageEditActivity extends AppCompatActivity {
         binding.seekbarSharpen.addOnChangeListener((slider, value, fromUser) -> {
             if (fromUser) {
                 float sharpen = value;
-                Log.d("DocumentPageEdit", "Sharpen changed to: " + sharpen);
                 updateSharpen(sharpen);
                 binding.sharpenValue.setText(String.format("%.1f", sharpen));
             }
@@ -357,6 +420,8 @@ public class DocumentPageEditActivity extends AppCompatActivity {
             binding.btnFilterOriginal.setEnabled(true);
             binding.btnFilterGray.setEnabled(true);
             binding.btnFilterBw.setEnabled(true);
+            binding.btnFilterAdaptive.setEnabled(true);
+            binding.btnFilterAuto.setEnabled(true);
             binding.btnFilterBoost.setEnabled(true);
             binding.seekbarContrast.setEnabled(true);
             binding.seekbarBrightness.setEnabled(true);
@@ -393,6 +458,8 @@ public class DocumentPageEditActivity extends AppCompatActivity {
         binding.btnFilterOriginal.setAlpha(mode != null && mode.equals("ORIGINAL") ? 1.0f : 0.5f);
         binding.btnFilterGray.setAlpha(mode != null && mode.equals("GRAY") ? 1.0f : 0.5f);
         binding.btnFilterBw.setAlpha(mode != null && mode.equals("BW") ? 1.0f : 0.5f);
+        binding.btnFilterAdaptive.setAlpha(mode != null && mode.equals("ADAPTIVE_BW") ? 1.0f : 0.5f);
+        binding.btnFilterAuto.setAlpha(mode != null && mode.equals("AUTO_BW") ? 1.0f : 0.5f);
         binding.btnFilterBoost.setAlpha(mode != null && mode.equals("COLOR_BOOST") ? 1.0f : 0.5f);
     }
     
@@ -667,6 +734,8 @@ public class DocumentPageEditActivity extends AppCompatActivity {
             createFilterThumbnail("ORIGINAL", binding.btnFilterOriginal);
             createFilterThumbnail("GRAY", binding.btnFilterGray);
             createFilterThumbnail("BW", binding.btnFilterBw);
+            createFilterThumbnail("ADAPTIVE_BW", binding.btnFilterAdaptive);
+            createFilterThumbnail("AUTO_BW", binding.btnFilterAuto);
             createFilterThumbnail("COLOR_BOOST", binding.btnFilterBoost);
         }
     }
@@ -745,10 +814,10 @@ public class DocumentPageEditActivity extends AppCompatActivity {
 
     private void loadInitialImage() {
         if (originalBitmap != null && !originalBitmap.isRecycled()) {
-            // Create a copy for the image view to prevent the original from being recycled by the library
-            Bitmap previewBitmap = originalBitmap.copy(originalBitmap.getConfig(), true);
+            // Show a copy so the scheduler can replace or recycle the original independently
+            Bitmap previewBitmap = BitmapPool.get().copy(originalBitmap);
             if (previewBitmap != null) {
-                binding.imageViewPreview.setImage(ImageSource.bitmap(previewBitmap));
+                setPreviewBitmap(previewBitmap);
                 
                 // Restore zoom state if previously saved
                 if (currentScale > 0 && currentCenter != null) {
@@ -788,7 +857,6 @@ public class DocumentPageEditActivity extends AppCompatActivity {
         if (currentEditOps != null) {
             if (currentEditOps.filter == null) currentEditOps.filter = new EditOps.Filter();
             currentEditOps.filter.contrast = contrast;
-            Log.d("chk", "applying filter");
             applyFilters();
         }
     }
@@ -867,72 +935,65 @@ public class DocumentPageEditActivity extends AppCompatActivity {
     }
 
     private void applyFilters() {
-        Log.d("DocumentPageEdit", "applyFilters called");
-        if (originalBitmap != null && !originalBitmap.isRecycled() && currentEditOps != null) {
-            Log.d("DocumentPageEdit", "Original bitmap: " + originalBitmap.getWidth() + "x" + originalBitmap.getHeight());
-            Log.d("DocumentPageEdit", "Filter mode: " + (currentEditOps.filter != null ? currentEditOps.filter.mode : "null"));
-            
-            // Save current scale and center before applying filters
-            SubsamplingScaleImageView imageView = binding.imageViewPreview;
-            currentScale = imageView.getScale();
-            currentCenter = imageView.getCenter();
-            
-            // Make a copy of the original bitmap to prevent it from being affected by recycling
-            // This prevents the bitmap from being recycled during processing if activity is destroyed
-            Bitmap originalBitmapCopy = originalBitmap.copy(originalBitmap.getConfig(), true);
-            if (originalBitmapCopy == null) {
-                Log.e("DocumentPageEdit", "Failed to copy original bitmap");
-                return;
-            }
-            
-            // Apply filters in background to avoid UI blocking
-            new Thread(() -> {
-                try {
-                    Log.d("DocumentPageEdit", "Calling renderEngine.applyFilters with copied bitmap");
-                    Bitmap processedBitmap = renderEngine.applyFilters(originalBitmapCopy, currentEditOps);
-                    
-                    if (processedBitmap != null) {
-                        Log.d("DocumentPageEdit","Bitmap processed successfully: " + processedBitmap.getWidth() + "x" + processedBitmap.getHeight());
-                        runOnUiThread(() -> {
-                            // Set the new image while preserving the zoom state
-                            binding.imageViewPreview.setImage(ImageSource.bitmap(processedBitmap));
-                            if (currentScale > 0 && currentCenter != null) {
-                                binding.imageViewPreview.setScaleAndCenter(currentScale, currentCenter);
-                            }
-                            Log.d("DocumentPageEdit", "Updated preview with processed bitmap");
-                            // The SubsamplingScaleImageView handles bitmap lifecycle internally
-                        });
-                    }
-                    else {
-                        Log.e("DocumentPageEdit","Processed bitmap is null");
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    runOnUiThread(() -> {
-                        Toast.makeText(this, "Error applying filters: " + e.getMessage(), 
-                                Toast.LENGTH_SHORT).show();
-                    });
-                } finally {
-                    // Recycle the copied bitmap after processing is done
-                    if (originalBitmapCopy != null && !originalBitmapCopy.isRecycled()) {
-                        originalBitmapCopy.recycle();
-                        Log.d("DocumentPageEdit", "Recycled originalBitmapCopy after processing");
-                    }
-                }
-            }).start();
+        if (previewScheduler != null && currentEditOps != null) {
+            // Coalesced and cancellable; only the newest edits are ever rendered
+            previewScheduler.submit(currentEditOps);
         } else {
-            Log.e("DocumentPageEdit", "applyFilters: Original bitmap is null or recycled or currentEditOps is null");
-            if (originalBitmap == null) {
-                Log.e("DocumentPageEdit", "Original bitmap is null");
-            } else if (originalBitmap.isRecycled()) {
-                Log.e("DocumentPageEdit", "Original bitmap is recycled");
-            }
-            if (currentEditOps == null) {
-                Log.e("DocumentPageEdit", "currentEditOps is null");
-            }
+            Log.e("DocumentPageEdit", "applyFilters: preview scheduler or currentEditOps is not ready");
+        }
+    }
+
+    /**
+     * Shows a rendered preview while keeping the zoom, rescaling it when the preview switches
+     * between the downscaled draft and the full-size render.
+     */
+    private void showPreview(Bitmap preview, boolean isFinal) {
+        if (binding == null) {
+            BitmapPool.get().release(preview);
+            return;
+        }
+        SubsamplingScaleImageView imageView = binding.imageViewPreview;
+        if (imageView.isReady() && imageView.getSWidth() > 0) {
+            float ratio = (float) preview.getWidth() / imageView.getSWidth();
+            PointF center = imageView.getCenter();
+            currentScale = imageView.getScale() / ratio;
+            currentCenter = center != null ? new PointF(center.x * ratio, center.y * ratio) : null;
+        }
+        setPreviewBitmap(preview);
+        if (currentScale > 0 && currentCenter != null) {
+            imageView.setScaleAndCenter(currentScale, currentCenter);
+        }
+    }
+
+    private void showPreviewFilter(@Nullable GpuFilterProgram program) {
+        if (binding == null) {
+            return;
+        }
+        previewFilter = program;
+        applyPreviewEffect();
+    }
+
+    private void applyPreviewEffect() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            SubsamplingScaleImageView imageView = binding.imageViewPreview;
+            imageView.setRenderEffect(previewFilter != null
+                    ? AcceleratedFilter.createEffect(previewFilter, imageView.getScale())
+                    : null);
         }
     }
 
+    /**
+     * Shows a pooled bitmap in the preview view. The view does not recycle cached bitmaps,
+     * so the one it showed before goes back to the {@link BitmapPool} and the next render of
+     * the same size reuses it instead of allocating.
+     */
+    private void setPreviewBitmap(Bitmap bitmap) {
+        Bitmap previous = displayedBitmap;
+        displayedBitmap = bitmap;
+        binding.imageViewPreview.setImage(ImageSource.cachedBitmap(bitmap));
+        BitmapPool.get().release(previous);
+    }
+
 private void saveEdits() {
     if (pageEntity != null && currentEditOps != null) {
         // Show saving progress
@@ -953,6 +1014,25 @@ private void saveEdits() {
             try {
                 database.pageDao().updatePage(pageEntity);
 
+                DocumentEntity document = database.documentDao().getDocumentById(pageEntity.document_id);
+                if (document != null && document.cover_page_index == pageEntity.index) {
+                    GenerateDocThumbWorker.enqueue(getApplicationContext(), pageEntity.document_id, true);
+                }
+
+                // Warm the render cache for the new edits so thumbnails and the next
+                // open of this page are a file read
+                renderEngine.renderPreview(pageEntity, EDITOR_PREVIEW_WIDTH_PX, new RenderEngine.RenderCallback() {
+                    @Override
+                    public void onRenderComplete(Bitmap bitmap) {
+                        BitmapPool.get().release(bitmap);
+                    }
+
+                    @Override
+                    public void onRenderError(Exception error) {
+                        Log.w("DocumentPageEdit", "Failed to cache preview: " + error.getMessage());
+                    }
+                });
+
                 runOnUiThread(() -> {
                     Toast.makeText(this, "Changes saved successfully", Toast.LENGTH_SHORT).show();
                     setResult(RESULT_OK);
@@ -990,14 +1070,13 @@ public boolean onSupportNavigateUp() {
                         // Load the cropped image
                         Bitmap croppedBitmap = BitmapFactory.decodeStream(getContentResolver().openInputStream(resultUri));
                         if (croppedBitmap != null) {
-                            // Update the original bitmap with the cropped version
-                            if (originalBitmap != null && !originalBitmap.isRecycled()) {
-                                originalBitmap.recycle();
-                            }
+                            // Update the original bitmap with the cropped version; the
+                            // scheduler recycles the previous one once no render uses it
                             originalBitmap = croppedBitmap;
+                            previewScheduler.setSource(originalBitmap);
                             
                             // Update the preview with the cropped image
-                            binding.imageViewPreview.setImage(ImageSource.bitmap(originalBitmap.copy(originalBitmap.getConfig(), true)));
+                            setPreviewBitmap(BitmapPool.get().copy(originalBitmap));
                             
                             // Apply current filters to the cropped image
                             applyFilters();
@@ -1024,14 +1103,18 @@ public boolean onSupportNavigateUp() {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // Recycle bitmaps to free memory
-        if (originalBitmap != null && !originalBitmap.isRecycled()) {
-            originalBitmap.recycle();
-            Log.d("DocumentPageEdit", "Recycled originalBitmap in onDestroy");
-        } else {
-            Log.d("DocumentPageEdit", "originalBitmap was already recycled or null in onDestroy");
+        // Cancel pending previews; the scheduler recycles originalBitmap once its render
+        // thread is idle
+        if (previewScheduler != null) {
+            previewScheduler.release();
+        }
+        originalBitmap = null;
+        if (binding != null) {
+            // Detach the shown preview before handing it back to the pool
+            binding.imageViewPreview.recycle();
         }
-        // Note: We don't keep references to processed bitmaps, so no need to recycle them
+        BitmapPool.get().release(displayedBitmap);
+        displayedBitmap = null;
         binding = null;
     }
 }
\ No newline at end of file
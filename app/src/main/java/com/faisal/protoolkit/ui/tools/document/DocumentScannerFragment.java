@@ -37,6 +37,8 @@ import com.faisal.protoolkit.ui.tools.document.adapters.DocumentAdapter;
 import com.faisal.protoolkit.ui.tools.document.viewmodels.DocumentsViewModel;
 import com.faisal.protoolkit.util.FileManager;
 import com.faisal.protoolkit.util.ImageUtils;
+import com.faisal.protoolkit.util.RenderCache;
+import com.faisal.protoolkit.util.RenderEngine;
 import com.faisal.protoolkit.util.ServiceLocator;
 import com.google.android.gms.tasks.Task;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
@@ -449,7 +451,7 @@ public class DocumentScannerFragment extends BaseFragment {
                         i, // index
                         originalFile.getAbsolutePath(), // uri_original
                         null, // uri_render
-                        null, // edit_ops_json
+                        RenderEngine.editOpsForImport(originalFile), // edit_ops_json
                         0, // width - will be populated later
                         0, // height - will be populated later
                         300, // dpi
@@ -530,10 +532,14 @@ public class DocumentScannerFragment extends BaseFragment {
     private void deleteDocument(DocumentEntity document) {
         // Show a progress message
         Toast.makeText(requireContext(), "Deleting document...", Toast.LENGTH_SHORT).show();
+        RenderCache renderCache = RenderCache.getInstance(requireContext());
         
         new Thread(() -> {
             try {
-                // Delete pages associated with this document first
+                // Delete pages associated with this document first, with their cached previews
+                for (PageEntity page : database.pageDao().getPagesByDocumentSync(document.id)) {
+                    renderCache.invalidate(page.id);
+                }
                 database.pageDao().deletePagesByDocument(document.id);
                 
                 // Delete the document itself
@@ -1,5 +1,7 @@
 package com.faisal.protoolkit.ui.tools.document.adapters;
 
+import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -7,20 +9,55 @@ import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.signature.ObjectKey;
 import com.faisal.protoolkit.R;
 import com.faisal.protoolkit.data.entities.DocumentEntity;
 import com.faisal.protoolkit.util.FileManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
+import com.faisal.protoolkit.worker.GenerateDocThumbWorker;
 import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
 
+/**
+ * Document list with cover thumbnails. Thumbnails load through Glide at the size of the
+ * thumbnail view, off the main thread and through its bounded memory and disk caches; a
+ * recycled holder's request is cancelled, and the covers of the rows just past the visible
+ * ones are prefetched in the scroll direction.
+ */
 public class DocumentAdapter extends ListAdapter<DocumentEntity, DocumentAdapter.DocumentViewHolder> {
     private final OnDocumentClickListener listener;
     private final OnDocumentDeleteListener deleteListener;
-    private final FileManager fileManager;
+    private FileManager fileManager;
+    // Size of a laid-out thumbnail view, so prefetched requests match the bound ones
+    private int thumbWidth;
+    private int thumbHeight;
+    private final RecyclerView.OnScrollListener prefetcher = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            prefetch(recyclerView, dy);
+        }
+    };
+    // Adapter positions already prefetched, so each scroll step only requests new rows
+    private int prefetchedFrom = RecyclerView.NO_POSITION;
+    private int prefetchedTo = RecyclerView.NO_POSITION;
+    // Documents whose missing thumbnail this adapter has already queued
+    private final Set<String> thumbsQueued = new HashSet<>();
+
+    // Rows of covers requested ahead of the visible ones
+    private static final int PREFETCH_ROWS = 2;
 
     public interface OnDocumentClickListener {
         void onDocumentClick(DocumentEntity document);
@@ -34,9 +71,6 @@ public class DocumentAdapter extends ListAdapter<DocumentEntity, DocumentAdapter
         super(DIFF_CALLBACK);
         this.listener = listener;
         this.deleteListener = deleteListener;
-        // Initialize FileManager with context - for now we'll pass a temporary file manager
-        // In a real implementation, this would come from the fragment
-        this.fileManager = null; // Will be handled differently
     }
 
     private static final DiffUtil.ItemCallback<DocumentEntity> DIFF_CALLBACK = 
@@ -57,6 +91,9 @@ public class DocumentAdapter extends ListAdapter<DocumentEntity, DocumentAdapter
     @NonNull
     @Override
     public DocumentViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (fileManager == null) {
+            fileManager = new FileManager(parent.getContext());
+        }
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_document, parent, false);
         return new DocumentViewHolder(view);
@@ -68,6 +105,110 @@ public class DocumentAdapter extends ListAdapter<DocumentEntity, DocumentAdapter
         holder.bind(document);
     }
 
+    @Override
+    public void onViewRecycled(@NonNull DocumentViewHolder holder) {
+        super.onViewRecycled(holder);
+        // Cancel the load and give its bitmap back to Glide's pool
+        Glide.with(holder.thumbnailImageView).clear(holder.thumbnailImageView);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        recyclerView.addOnScrollListener(prefetcher);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        recyclerView.removeOnScrollListener(prefetcher);
+        prefetchedFrom = prefetchedTo = RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * Starts loading the covers of the {@link #PREFETCH_ROWS} rows beyond the visible ones in
+     * the direction of the scroll, into the memory cache at the bound thumbnail size.
+     */
+    private void prefetch(RecyclerView recyclerView, int dy) {
+        if (thumbWidth <= 0 || thumbHeight <= 0 || dy == 0
+                || !(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int span = layoutManager instanceof GridLayoutManager
+                ? ((GridLayoutManager) layoutManager).getSpanCount()
+                : 1;
+        int window = PREFETCH_ROWS * span;
+        int from;
+        int to;
+        if (dy > 0) {
+            int last = layoutManager.findLastVisibleItemPosition();
+            if (last == RecyclerView.NO_POSITION) {
+                return;
+            }
+            from = last + 1;
+            to = Math.min(getItemCount(), from + window);
+        } else {
+            int first = layoutManager.findFirstVisibleItemPosition();
+            if (first == RecyclerView.NO_POSITION) {
+                return;
+            }
+            to = first;
+            from = Math.max(0, to - window);
+        }
+        RequestManager glide = Glide.with(recyclerView);
+        for (int position = from; position < to; position++) {
+            if (position >= prefetchedFrom && position < prefetchedTo) {
+                continue;
+            }
+            thumbnailRequest(glide, recyclerView.getContext(), getItem(position))
+                    .preload(thumbWidth, thumbHeight);
+        }
+        prefetchedFrom = from;
+        prefetchedTo = to;
+    }
+
+    /**
+     * The request for a document's cover: the stored thumbnail, keyed on the document's
+     * {@code updated_at}, which {@link GenerateDocThumbWorker} bumps when it replaces the
+     * thumbnail, so nothing is read from disk on the main thread. If the thumbnail can't be
+     * loaded the cover original is shown instead, decoded by Glide straight at the view size,
+     * and the thumbnail is queued once per document.
+     */
+    private RequestBuilder<Drawable> thumbnailRequest(RequestManager glide, Context context, DocumentEntity document) {
+        ObjectKey version = new ObjectKey(document.updated_at);
+        File coverFile = fileManager.getOriginalImageFile(document.id, document.cover_page_index);
+        RequestBuilder<Drawable> cover = sized(glide.load(coverFile).signature(version))
+                .error(R.drawable.preview_background);
+        Context appContext = context.getApplicationContext();
+        return sized(glide.load(fileManager.getDocumentThumbFile(document.id)).signature(version))
+                .listener(new RequestListener<Drawable>() {
+                    @Override
+                    public boolean onLoadFailed(@Nullable GlideException e, Object model,
+                                                Target<Drawable> target, boolean isFirstResource) {
+                        if (thumbsQueued.add(document.id)) {
+                            GenerateDocThumbWorker.enqueue(appContext, document.id, false);
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target,
+                                                   DataSource dataSource, boolean isFirstResource) {
+                        return false;
+                    }
+                })
+                .placeholder(R.drawable.preview_background)
+                .error(cover);
+    }
+
+    private RequestBuilder<Drawable> sized(RequestBuilder<Drawable> request) {
+        if (thumbWidth > 0 && thumbHeight > 0) {
+            request = request.override(thumbWidth, thumbHeight);
+        }
+        return request.centerCrop();
+    }
+
     class DocumentViewHolder extends RecyclerView.ViewHolder {
         private final ImageView thumbnailImageView;
         private final TextView titleTextView;
@@ -103,36 +244,17 @@ public class DocumentAdapter extends ListAdapter<DocumentEntity, DocumentAdapter
             pageCountTextView.setText(itemView.getContext().getString(R.string.page_count, document.page_count));
             updatedAtTextView.setText(formatTimestamp(document.updated_at));
             
-            // For thumbnail, try to load the cover page (first page) if available
+            // Cover thumbnail, loaded asynchronously at the view's size
             loadThumbnail(document);
         }
         
         private void loadThumbnail(DocumentEntity document) {
-            try {
-                // Create a file manager instance for this context
-                FileManager fm = new FileManager(itemView.getContext());
-                
-                // Get the cover page (first page) for thumbnail
-                File coverPageFile = fm.getOriginalImageFile(document.id, document.cover_page_index);
-                
-                if (coverPageFile.exists()) {
-                    // Load and set the bitmap
-                    Bitmap bitmap = BitmapFactory.decodeFile(coverPageFile.getAbsolutePath());
-                    if (bitmap != null) {
-                        thumbnailImageView.setImageBitmap(bitmap);
-                    } else {
-                        // Set a placeholder if bitmap couldn't be loaded
-                        thumbnailImageView.setImageResource(R.drawable.preview_background);
-                    }
-                } else {
-                    // Set a default placeholder
-                    thumbnailImageView.setImageResource(R.drawable.preview_background);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-                // Set a default placeholder on error
-                thumbnailImageView.setImageResource(R.drawable.preview_background);
+            if (thumbWidth <= 0 && thumbnailImageView.getWidth() > 0) {
+                thumbWidth = thumbnailImageView.getWidth();
+                thumbHeight = thumbnailImageView.getHeight();
             }
+            thumbnailRequest(Glide.with(thumbnailImageView), itemView.getContext(), document)
+                    .into(thumbnailImageView);
         }
         
         private String formatTimestamp(long timestamp) {
@@ -18,8 +18,13 @@ import com.faisal.protoolkit.data.entities.PageEntity;
 import com.faisal.protoolkit.ui.tools.document.DocumentPageEditActivity;
 
 import com.faisal.protoolkit.ui.tools.document.viewmodels.DocumentDetailViewModel;
-import java.io.File;
+import com.faisal.protoolkit.util.PageThumbnail;
 
+/**
+ * Page grid of a document. Thumbnails show each page with its edits, rendered at the view's
+ * size by Glide through {@link com.faisal.protoolkit.util.PageThumbnailLoader} and cached
+ * per page and edit state.
+ */
 public class PageAdapter extends ListAdapter<PageEntity, PageAdapter.PageViewHolder> {
     private final DocumentDetailViewModel viewModel;
     private final OnPageClickListener listener;
@@ -33,8 +38,8 @@ public class PageAdapter extends ListAdapter<PageEntity, PageAdapter.PageViewHol
         void onPageDelete(PageEntity page);
     }
 
-    public PageAdapter(DocumentDetailViewModel viewModel, OnPageClickListener listener, 
-                      OnPageDeleteListener deleteListener) {
+    public PageAdapter(DocumentDetailViewModel viewModel,
+                      OnPageClickListener listener, OnPageDeleteListener deleteListener) {
         super(DIFF_CALLBACK);
         this.viewModel = viewModel;
         this.listener = listener;
@@ -70,6 +75,12 @@ public class PageAdapter extends ListAdapter<PageEntity, PageAdapter.PageViewHol
         holder.bind(page);
     }
 
+    @Override
+    public void onViewRecycled(@NonNull PageViewHolder holder) {
+        super.onViewRecycled(holder);
+        Glide.with(holder.thumbnailImageView).clear(holder.thumbnailImageView);
+    }
+
     class PageViewHolder extends RecyclerView.ViewHolder {
         private final ImageView thumbnailImageView;
         private final TextView indexTextView;
@@ -113,18 +124,18 @@ public class PageAdapter extends ListAdapter<PageEntity, PageAdapter.PageViewHol
         void bind(PageEntity page) {
             indexTextView.setText("Page " + (page.index + 1)); // Display with "Page" prefix
             
-            // Load thumbnail from the original URI
-            if (page.uri_original != null && !page.uri_original.isEmpty()) {
-                // For local files, we can use Glide to load them
-                Glide.with(itemView.getContext())
-                        .load(new File(page.uri_original))
-                        .placeholder(R.drawable.placeholder_page) // Use a placeholder while loading
-                        .error(R.drawable.placeholder_page) // Use error drawable if loading fails
-                        .into(thumbnailImageView);
-            } else {
-                // Set a default placeholder if no URI is available
+            if (page.uri_original == null || page.uri_original.isEmpty()) {
+                Glide.with(thumbnailImageView).clear(thumbnailImageView);
                 thumbnailImageView.setImageResource(R.drawable.placeholder_page);
+                return;
             }
+            
+            Glide.with(thumbnailImageView)
+                    .load(new PageThumbnail(page))
+                    .placeholder(R.drawable.placeholder_page)
+                    .error(R.drawable.placeholder_page)
+                    .centerCrop()
+                    .into(thumbnailImageView);
         }
     }
 }
\ No newline at end of file
@@ -7,6 +7,9 @@ import androidx.lifecycle.ViewModelProvider;
 import com.faisal.protoolkit.data.database.AppDatabase;
 import com.faisal.protoolkit.data.entities.DocumentEntity;
 import com.faisal.protoolkit.data.entities.PageEntity;
+import com.faisal.protoolkit.util.RenderCache;
+import com.faisal.protoolkit.util.RenderEngine;
+import java.io.File;
 import java.util.List;
 import java.util.Collections;
 
@@ -99,9 +102,10 @@ public class DocumentDetailViewModel extends ViewModel {
         }).start();
     }
 
-    public void deletePage(PageEntity page) {
+    public void deletePage(PageEntity page, RenderCache renderCache) {
         new Thread(() -> {
             database.pageDao().deletePage(page);
+            renderCache.invalidate(page.id);
             
             // Update indices of remaining pages
             String docId = documentId.getValue();
@@ -138,7 +142,7 @@ public class DocumentDetailViewModel extends ViewModel {
                 index,
                 imagePath,
                 null, // uri_render
-                null, // edit_ops_json
+                RenderEngine.editOpsForImport(new File(imagePath)), // edit_ops_json
                 0, // width - will be populated later
                 0, // height - will be populated later
                 300, // dpi
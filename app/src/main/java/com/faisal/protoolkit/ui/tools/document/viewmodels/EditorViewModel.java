@@ -8,6 +8,7 @@ import androidx.lifecycle.ViewModelProvider;
 import com.faisal.protoolkit.data.database.AppDatabase;
 import com.faisal.protoolkit.data.entities.PageEntity;
 import com.faisal.protoolkit.model.EditOps;
+import com.faisal.protoolkit.util.PreviewScheduler;
 import com.faisal.protoolkit.util.RenderEngine;
 
 public class EditorViewModel extends ViewModel {
@@ -18,10 +19,12 @@ public class EditorViewModel extends ViewModel {
     private final AppDatabase database;
     private final RenderEngine renderEngine;
     private Bitmap originalBitmap;
+    private final PreviewScheduler previewScheduler;
 
     public EditorViewModel(AppDatabase database, RenderEngine renderEngine) {
         this.database = database;
         this.renderEngine = renderEngine;
+        this.previewScheduler = new PreviewScheduler(renderEngine, (preview, isFinal) -> pagePreview.setValue(preview));
     }
 
     public void setDocumentId(String id) {
@@ -43,10 +46,14 @@ public class EditorViewModel extends ViewModel {
         return pagePreview;
     }
 
+    /**
+     * Sets the page bitmap to edit. The preview scheduler takes ownership of it.
+     */
     public void updateOriginalBitmap(Bitmap bitmap) {
         this.originalBitmap = bitmap;
-        // Set the original bitmap as the preview initially
-        pagePreview.setValue(bitmap);
+        previewScheduler.setSource(bitmap);
+        // The first draft render replaces the unedited preview within a frame or two
+        updatePreview();
     }
 
     public void updateFilterMode(String mode) {
@@ -94,13 +101,8 @@ public class EditorViewModel extends ViewModel {
     private void updatePreview() {
         // Render the preview with the current edits if we have the original bitmap
         if (originalBitmap != null && !originalBitmap.isRecycled()) {
-            // Render the preview with current edit ops on a background thread
-            new Thread(() -> {
-                // Create a copy of the original bitmap to avoid recycling issues
-                Bitmap bitmapCopy = originalBitmap.copy(originalBitmap.getConfig(), true);
-                Bitmap processedBitmap = renderEngine.applyFilters(bitmapCopy, currentEditOps);
-                pagePreview.postValue(processedBitmap);
-            }).start();
+            // Coalesced and cancellable: a draft on a downscaled copy, then full size when idle
+            previewScheduler.submit(currentEditOps != null ? currentEditOps : new EditOps());
         }
     }
 
@@ -124,6 +126,13 @@ public class EditorViewModel extends ViewModel {
         }
     }
 
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        previewScheduler.release();
+        originalBitmap = null;
+    }
+
     public static class Factory implements ViewModelProvider.Factory {
         private final AppDatabase database;
         private final RenderEngine renderEngine;
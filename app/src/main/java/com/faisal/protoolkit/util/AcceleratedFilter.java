@@ -0,0 +1,68 @@
+package com.faisal.protoolkit.util;
+
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.RenderEffect;
+import android.graphics.RuntimeShader;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import com.faisal.protoolkit.imaging.GpuFilterProgram;
+
+/**
+ * GPU backend for the editor's live preview: turns a {@link GpuFilterProgram} into a
+ * {@link RenderEffect} that the view applies while drawing, so filter changes need no CPU
+ * render. Exports and devices without RenderEffect keep using {@link ImageFilters}.
+ */
+public final class AcceleratedFilter {
+
+    private AcceleratedFilter() {
+    }
+
+    /** True if this device can draw any filter effect. */
+    public static boolean isAvailable() {
+        return Build.VERSION.SDK_INT >= GpuFilterProgram.API_COLOR_FILTER;
+    }
+
+    /** True if this device can draw {@code program}. */
+    public static boolean supports(@NonNull GpuFilterProgram program) {
+        return Build.VERSION.SDK_INT >= program.requiredApi();
+    }
+
+    /**
+     * Effect drawing {@code program}, or null when it changes nothing. {@code step} is the
+     * size of one source pixel in view pixels, i.e. the view's current scale, so sharpening
+     * samples the same neighbourhood as the CPU path.
+     */
+    @Nullable
+    @RequiresApi(Build.VERSION_CODES.S)
+    public static RenderEffect createEffect(@NonNull GpuFilterProgram program, float step) {
+        int api = program.requiredApi();
+        if (api == 0) {
+            return null;
+        }
+        if (api <= GpuFilterProgram.API_COLOR_FILTER) {
+            return RenderEffect.createColorFilterEffect(
+                    new ColorMatrixColorFilter(program.getColorMatrix()));
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.TIRAMISU) {
+            throw new IllegalStateException("Filter needs API " + api);
+        }
+        return createShaderEffect(program, step);
+    }
+
+    @RequiresApi(Build.VERSION_CODES.TIRAMISU)
+    private static RenderEffect createShaderEffect(GpuFilterProgram program, float step) {
+        RuntimeShader shader = new RuntimeShader(GpuFilterProgram.AGSL);
+        shader.setFloatUniform("preMatrix", program.getPreMatrix4x4());
+        shader.setFloatUniform("preOffset", program.getPreOffset());
+        shader.setFloatUniform("threshold", program.getThresholdUniform());
+        shader.setFloatUniform("postMatrix", program.getPostMatrix4x4());
+        shader.setFloatUniform("postOffset", program.getPostOffset());
+        shader.setFloatUniform("gain", program.getGain());
+        shader.setFloatUniform("step", Math.max(1f, step));
+        return RenderEffect.createRuntimeShaderEffect(shader, "content");
+    }
+}
@@ -0,0 +1,219 @@
+package com.faisal.protoolkit.util;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Process-wide pool of mutable bitmaps and {@code int[]} pixel buffers for the render
+ * pipeline, shared by {@link RenderEngine}, {@link ImageFilters} and the page editor.
+ *
+ * Bitmaps are matched exactly on width, height and config; buffers are handed out at the
+ * requested length or up to twice it. Released items are kept until their total size
+ * exceeds the byte budget, then the least recently released ones are recycled or dropped.
+ * Pooled bitmaps and buffers keep their old contents, so callers must overwrite every
+ * pixel they use.
+ */
+public final class BitmapPool {
+
+    // Share of the heap the pool may keep idle between renders
+    private static final int HEAP_FRACTION = 6;
+
+    private static volatile BitmapPool INSTANCE;
+
+    private final long budgetBytes;
+    // Eldest first; guarded by this
+    private final LinkedList<Bitmap> bitmaps = new LinkedList<>();
+    private final ArrayList<int[]> buffers = new ArrayList<>();
+    private long pooledBytes;
+
+    public static BitmapPool get() {
+        if (INSTANCE == null) {
+            synchronized (BitmapPool.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new BitmapPool(Runtime.getRuntime().maxMemory() / HEAP_FRACTION);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    BitmapPool(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Returns a mutable bitmap of the given size and config, reused when one is pooled.
+     * Its pixels are undefined.
+     */
+    @NonNull
+    public Bitmap obtain(int width, int height, @NonNull Bitmap.Config config) {
+        synchronized (this) {
+            Iterator<Bitmap> it = bitmaps.descendingIterator();
+            while (it.hasNext()) {
+                Bitmap bitmap = it.next();
+                if (bitmap.getWidth() == width && bitmap.getHeight() == height
+                        && bitmap.getConfig() == config) {
+                    it.remove();
+                    pooledBytes -= bitmap.getAllocationByteCount();
+                    return bitmap;
+                }
+            }
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Returns a mutable copy of {@code source}, drawn into a pooled bitmap when possible.
+     */
+    @NonNull
+    public Bitmap copy(@NonNull Bitmap source) {
+        Bitmap.Config config = source.getConfig() != null ? source.getConfig() : Bitmap.Config.ARGB_8888;
+        Bitmap copy = obtain(source.getWidth(), source.getHeight(), config);
+        drawReplacing(copy, source, null);
+        return copy;
+    }
+
+    /**
+     * Returns {@code source} rotated clockwise by a right angle, drawn into a pooled bitmap.
+     */
+    @NonNull
+    public Bitmap rotate(@NonNull Bitmap source, int degrees) {
+        boolean swapped = degrees == 90 || degrees == 270;
+        int width = swapped ? source.getHeight() : source.getWidth();
+        int height = swapped ? source.getWidth() : source.getHeight();
+        Bitmap.Config config = source.getConfig() != null ? source.getConfig() : Bitmap.Config.ARGB_8888;
+        Bitmap rotated = obtain(width, height, config);
+        Matrix matrix = new Matrix();
+        matrix.postRotate(degrees);
+        // Move the rotated page back to the origin
+        matrix.postTranslate(degrees == 90 || degrees == 180 ? width : 0,
+                degrees == 180 || degrees == 270 ? height : 0);
+        drawReplacing(rotated, source, matrix);
+        return rotated;
+    }
+
+    /**
+     * Hands a bitmap back to the pool; it must not be used afterwards. Immutable bitmaps and
+     * bitmaps larger than the budget are recycled instead.
+     */
+    public void release(@Nullable Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        long size = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || size > budgetBytes) {
+            bitmap.recycle();
+            return;
+        }
+        synchronized (this) {
+            if (bitmaps.contains(bitmap)) {
+                return;
+            }
+            bitmaps.addLast(bitmap);
+            pooledBytes += size;
+            trimTo(budgetBytes);
+        }
+    }
+
+    /**
+     * Returns a pixel buffer of at least {@code length} ints. Its contents are undefined.
+     */
+    @NonNull
+    public int[] obtainBuffer(int length) {
+        synchronized (this) {
+            int best = -1;
+            for (int i = 0; i < buffers.size(); i++) {
+                int size = buffers.get(i).length;
+                // Don't pin a large buffer for a small request
+                if (size >= length && size / 2 <= length
+                        && (best < 0 || size < buffers.get(best).length)) {
+                    best = i;
+                }
+            }
+            if (best >= 0) {
+                int[] buffer = buffers.remove(best);
+                pooledBytes -= 4L * buffer.length;
+                return buffer;
+            }
+        }
+        return new int[length];
+    }
+
+    /**
+     * Hands a buffer back to the pool; it must not be used afterwards.
+     */
+    public void releaseBuffer(@Nullable int[] buffer) {
+        if (buffer == null || 4L * buffer.length > budgetBytes) {
+            return;
+        }
+        synchronized (this) {
+            for (int[] pooled : buffers) {
+                if (pooled == buffer) {
+                    return;
+                }
+            }
+            buffers.add(buffer);
+            pooledBytes += 4L * buffer.length;
+            trimTo(budgetBytes);
+        }
+    }
+
+    /**
+     * Shrinks the pool in response to {@link ComponentCallbacks2#onTrimMemory}.
+     */
+    public void trimMemory(int level) {
+        synchronized (this) {
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                    || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+                trimTo(0);
+            } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+                trimTo(budgetBytes / 2);
+            }
+        }
+    }
+
+    /** Bytes currently held idle in the pool. */
+    public synchronized long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    /**
+     * Evicts eldest bitmaps, then buffers, until the pool fits {@code maxBytes}. Must hold
+     * the lock.
+     */
+    private void trimTo(long maxBytes) {
+        while (pooledBytes > maxBytes && !bitmaps.isEmpty()) {
+            Bitmap eldest = bitmaps.removeFirst();
+            pooledBytes -= eldest.getAllocationByteCount();
+            eldest.recycle();
+        }
+        while (pooledBytes > maxBytes && !buffers.isEmpty()) {
+            int[] eldest = buffers.remove(0);
+            pooledBytes -= 4L * eldest.length;
+        }
+    }
+
+    private static void drawReplacing(Bitmap target, Bitmap source, @Nullable Matrix matrix) {
+        // SRC so stale pooled pixels never show through transparent source pixels
+        Paint paint = new Paint();
+        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+        Canvas canvas = new Canvas(target);
+        if (matrix != null) {
+            canvas.drawBitmap(source, matrix, paint);
+        } else {
+            canvas.drawBitmap(source, 0f, 0f, paint);
+        }
+    }
+}
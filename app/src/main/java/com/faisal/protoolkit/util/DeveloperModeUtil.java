@@ -13,6 +13,7 @@ public class DeveloperModeUtil {
     private static final String PREF_DEV_MODE_ENABLED = "pref_dev_mode_enabled";
     private static final String PREF_SANDBOX_MODE = "pref_sandbox_mode";
     private static final String PREF_DEBUG_LOGGING = "pref_debug_logging";
+    private static final String PREF_RENDER_TRACING = "pref_render_tracing";
     
     private final SharedPreferences prefs;
     
@@ -62,6 +63,21 @@ public class DeveloperModeUtil {
         return prefs.getBoolean(PREF_DEBUG_LOGGING, false) || isDeveloperModeEnabled();
     }
     
+    /**
+     * Enable or disable render pipeline tracing ({@link RenderTrace}).
+     */
+    public void setRenderTracingEnabled(boolean enabled) {
+        prefs.edit().putBoolean(PREF_RENDER_TRACING, enabled).apply();
+        RenderTrace.setEnabled(enabled);
+    }
+    
+    /**
+     * Check if render pipeline tracing is enabled.
+     */
+    public boolean isRenderTracingEnabled() {
+        return prefs.getBoolean(PREF_RENDER_TRACING, false);
+    }
+    
     /**
      * Get the current environment (production or sandbox).
      */
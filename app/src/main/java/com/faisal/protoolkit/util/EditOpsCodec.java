@@ -0,0 +1,332 @@
+package com.faisal.protoolkit.util;
+
+import com.faisal.protoolkit.model.EditOps;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary encoding of {@link EditOps}, for storage where JSON parsing shows up: BLOB
+ * columns and memory-mapped sidecar files. A record is at most about a hundred bytes and
+ * decodes with no parsing and no boxing.
+ *
+ * Layout, big-endian:
+ * <pre>
+ *  0  magic 0x89 'E' 'O' (0x89 can't start JSON text, so the two formats can be told apart)
+ *  3  version
+ *  4  flags: 1 crop, 2 warp, 4 auto deskew, 8 filter
+ *  5  filter mode code; 0xFE = none, 0xFF = the mode string follows the floats
+ *  6  rotate (int16)
+ *  8  denoise, deskew, contrast, brightness, sharpen (float32 each)
+ * 28  crop, 8 floats, if flagged; then warp, 9 floats, if flagged
+ *  .  custom mode: length (uint16) and UTF-8 bytes, if any
+ *  .  CRC32 of all preceding bytes (int32)
+ * </pre>
+ * A new version may only append fields; readers reject versions they do not know.
+ */
+public final class EditOpsCodec {
+
+    public static final int VERSION = 1;
+
+    private static final byte MAGIC_0 = (byte) 0x89;
+    private static final byte MAGIC_1 = 'E';
+    private static final byte MAGIC_2 = 'O';
+
+    private static final int FLAG_CROP = 1;
+    private static final int FLAG_WARP = 2;
+    private static final int FLAG_AUTO_DESKEW = 4;
+    private static final int FLAG_FILTER = 8;
+
+    // Filter modes by code; anything else is stored as a string
+    private static final String[] MODES = {"ORIGINAL", "GRAY", "BW", "AUTO_BW", "ADAPTIVE_BW", "COLOR_BOOST"};
+    private static final int MODE_NULL = 0xFE;
+    private static final int MODE_CUSTOM = 0xFF;
+
+    private static final int FIXED_BYTES = 28;
+    private static final int CROP_FLOATS = 8;
+    private static final int WARP_FLOATS = 9;
+    private static final int CHECKSUM_BYTES = 4;
+
+    private EditOpsCodec() {
+    }
+
+    /**
+     * True if {@code buffer}, from its position, starts like an encoded record rather than
+     * JSON. Does not move the position.
+     */
+    public static boolean isEncoded(ByteBuffer buffer) {
+        int p = buffer.position();
+        return buffer.remaining() >= 4 && buffer.get(p) == MAGIC_0 && buffer.get(p + 1) == MAGIC_1
+                && buffer.get(p + 2) == MAGIC_2;
+    }
+
+    public static boolean isEncoded(byte[] data) {
+        return isEncoded(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Encodes {@code editOps}; null encodes the defaults. Throws IllegalArgumentException if
+     * the crop is not four points or the warp not a 3x3 matrix.
+     */
+    public static byte[] encode(EditOps editOps) {
+        if (editOps == null) {
+            editOps = new EditOps();
+        }
+        EditOps.Filter filter = editOps.filter;
+        int flags = (editOps.crop != null ? FLAG_CROP : 0)
+                | (editOps.warp != null ? FLAG_WARP : 0)
+                | (editOps.autoDeskew ? FLAG_AUTO_DESKEW : 0)
+                | (filter != null ? FLAG_FILTER : 0);
+        String mode = filter != null ? filter.mode : null;
+        int modeCode = modeCode(mode);
+        byte[] customMode = modeCode == MODE_CUSTOM ? mode.getBytes(StandardCharsets.UTF_8) : null;
+        if (customMode != null && customMode.length > 0xFFFF) {
+            throw new IllegalArgumentException("Filter mode too long");
+        }
+
+        int size = FIXED_BYTES
+                + (editOps.crop != null ? CROP_FLOATS * 4 : 0)
+                + (editOps.warp != null ? WARP_FLOATS * 4 : 0)
+                + (customMode != null ? 2 + customMode.length : 0)
+                + CHECKSUM_BYTES;
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
+        out.put(MAGIC_0).put(MAGIC_1).put(MAGIC_2).put((byte) VERSION);
+        out.put((byte) flags).put((byte) modeCode).putShort((short) editOps.rotate);
+        out.putFloat(editOps.denoise).putFloat(editOps.deskew);
+        out.putFloat(filter != null ? filter.contrast : 1.0f)
+                .putFloat(filter != null ? filter.brightness : 0.0f)
+                .putFloat(filter != null ? filter.sharpen : 0.0f);
+        if (editOps.crop != null) {
+            putMatrix(out, editOps.crop, 4, 2, "crop");
+        }
+        if (editOps.warp != null) {
+            putMatrix(out, editOps.warp, 3, 3, "warp");
+        }
+        if (customMode != null) {
+            out.putShort((short) customMode.length).put(customMode);
+        }
+        out.putInt(checksum(out.array(), 0, out.position()));
+        return out.array();
+    }
+
+    /**
+     * Decodes the record at {@code buffer}'s position, leaving the position unchanged.
+     * Returns null if it is not a record, is truncated or corrupt, or has an unknown
+     * version.
+     */
+    public static EditOps decode(ByteBuffer buffer) {
+        View view = view(buffer);
+        return view != null ? view.toEditOps() : null;
+    }
+
+    public static EditOps decode(byte[] data) {
+        return decode(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Checks the record at {@code buffer}'s position and returns a view that reads fields
+     * on demand, or null as for {@link #decode(ByteBuffer)}. The view reads through to the
+     * buffer (e.g. a mapped sidecar file), which must not change while it is in use.
+     */
+    public static View view(ByteBuffer buffer) {
+        if (!isEncoded(buffer)) {
+            return null;
+        }
+        ByteBuffer record = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        if (record.remaining() < FIXED_BYTES + CHECKSUM_BYTES || (record.get(3) & 0xFF) != VERSION) {
+            return null;
+        }
+        int flags = record.get(4) & 0xFF;
+        int length = FIXED_BYTES
+                + ((flags & FLAG_CROP) != 0 ? CROP_FLOATS * 4 : 0)
+                + ((flags & FLAG_WARP) != 0 ? WARP_FLOATS * 4 : 0);
+        int modeOffset = length;
+        if ((record.get(5) & 0xFF) == MODE_CUSTOM) {
+            if (record.remaining() < length + 2) {
+                return null;
+            }
+            length += 2 + (record.getShort(length) & 0xFFFF);
+        }
+        if (record.remaining() < length + CHECKSUM_BYTES || record.getInt(length) != checksum(record, length)) {
+            return null;
+        }
+        return new View(record, flags, modeOffset);
+    }
+
+    /**
+     * Field access on a checked record; arrays and strings are only built when asked for.
+     */
+    public static final class View {
+        private final ByteBuffer record;
+        private final int flags;
+        private final int modeOffset;
+
+        private View(ByteBuffer record, int flags, int modeOffset) {
+            this.record = record;
+            this.flags = flags;
+            this.modeOffset = modeOffset;
+        }
+
+        public boolean hasCrop() {
+            return (flags & FLAG_CROP) != 0;
+        }
+
+        public boolean hasWarp() {
+            return (flags & FLAG_WARP) != 0;
+        }
+
+        public boolean autoDeskew() {
+            return (flags & FLAG_AUTO_DESKEW) != 0;
+        }
+
+        public boolean hasFilter() {
+            return (flags & FLAG_FILTER) != 0;
+        }
+
+        public int rotate() {
+            return record.getShort(6);
+        }
+
+        public float denoise() {
+            return record.getFloat(8);
+        }
+
+        public float deskew() {
+            return record.getFloat(12);
+        }
+
+        public float contrast() {
+            return record.getFloat(16);
+        }
+
+        public float brightness() {
+            return record.getFloat(20);
+        }
+
+        public float sharpen() {
+            return record.getFloat(24);
+        }
+
+        public String filterMode() {
+            int code = record.get(5) & 0xFF;
+            if (code == MODE_NULL) {
+                return null;
+            }
+            if (code == MODE_CUSTOM) {
+                int length = record.getShort(modeOffset) & 0xFFFF;
+                byte[] bytes = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    bytes[i] = record.get(modeOffset + 2 + i);
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            return code < MODES.length ? MODES[code] : null;
+        }
+
+        /**
+         * Copies the crop corners, x0,y0 .. x3,y3, into {@code out}; false if there is no crop.
+         */
+        public boolean crop(float[] out) {
+            if (!hasCrop()) {
+                return false;
+            }
+            readFloats(FIXED_BYTES, out, CROP_FLOATS);
+            return true;
+        }
+
+        /**
+         * Copies the warp matrix, row-major, into {@code out}; false if there is no warp.
+         */
+        public boolean warp(float[] out) {
+            if (!hasWarp()) {
+                return false;
+            }
+            readFloats(FIXED_BYTES + (hasCrop() ? CROP_FLOATS * 4 : 0), out, WARP_FLOATS);
+            return true;
+        }
+
+        public EditOps toEditOps() {
+            EditOps editOps = new EditOps();
+            editOps.rotate = rotate();
+            editOps.denoise = denoise();
+            editOps.deskew = deskew();
+            editOps.autoDeskew = autoDeskew();
+            if (hasFilter()) {
+                editOps.filter.mode = filterMode();
+                editOps.filter.contrast = contrast();
+                editOps.filter.brightness = brightness();
+                editOps.filter.sharpen = sharpen();
+            } else {
+                editOps.filter = null;
+            }
+            if (hasCrop()) {
+                float[] values = new float[CROP_FLOATS];
+                crop(values);
+                editOps.crop = toMatrix(values, 4, 2);
+            }
+            if (hasWarp()) {
+                float[] values = new float[WARP_FLOATS];
+                warp(values);
+                editOps.warp = toMatrix(values, 3, 3);
+            }
+            return editOps;
+        }
+
+        private void readFloats(int offset, float[] out, int count) {
+            for (int i = 0; i < count; i++) {
+                out[i] = record.getFloat(offset + i * 4);
+            }
+        }
+    }
+
+    private static int modeCode(String mode) {
+        if (mode == null) {
+            return MODE_NULL;
+        }
+        for (int i = 0; i < MODES.length; i++) {
+            if (MODES[i].equals(mode)) {
+                return i;
+            }
+        }
+        return MODE_CUSTOM;
+    }
+
+    private static void putMatrix(ByteBuffer out, float[][] matrix, int rows, int cols, String name) {
+        if (matrix.length != rows) {
+            throw new IllegalArgumentException(name + " must have " + rows + " rows");
+        }
+        for (float[] row : matrix) {
+            if (row == null || row.length != cols) {
+                throw new IllegalArgumentException(name + " rows must have " + cols + " values");
+            }
+            for (float v : row) {
+                out.putFloat(v);
+            }
+        }
+    }
+
+    private static float[][] toMatrix(float[] values, int rows, int cols) {
+        float[][] matrix = new float[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(values, r * cols, matrix[r], 0, cols);
+        }
+        return matrix;
+    }
+
+    private static int checksum(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static int checksum(ByteBuffer record, int length) {
+        if (record.hasArray()) {
+            return checksum(record.array(), record.arrayOffset(), length);
+        }
+        // Mapped or direct; CRC32.update(ByteBuffer) needs API 26, and records are small
+        byte[] copy = new byte[length];
+        record.duplicate().get(copy);
+        return checksum(copy, 0, length);
+    }
+}
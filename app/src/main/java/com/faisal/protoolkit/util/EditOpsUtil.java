@@ -3,7 +3,14 @@ package com.faisal.protoolkit.util;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.faisal.protoolkit.model.EditOps;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 
 public class EditOpsUtil {
     private static final Gson gson = new Gson();
@@ -21,13 +28,96 @@ public class EditOpsUtil {
             return new EditOps(); // Return default
         }
         try {
-            return gson.fromJson(editOpsJson, editOpsType);
+            EditOps editOps = gson.fromJson(editOpsJson, editOpsType);
+            return editOps != null ? editOps : new EditOps();
         } catch (Exception e) {
             // If deserialization fails, return default
             return new EditOps();
         }
     }
 
+    /**
+     * Parses stored edit operations, e.g. a BLOB column, in either the binary
+     * {@link EditOpsCodec} format or UTF-8 JSON. Unreadable data gives the defaults.
+     */
+    public static EditOps deserialize(byte[] data) {
+        if (data == null || data.length == 0) {
+            return new EditOps();
+        }
+        return deserialize(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * As {@link #deserialize(byte[])}, for the bytes from {@code buffer}'s position to its
+     * limit, e.g. a mapped file. The position is not moved.
+     */
+    public static EditOps deserialize(ByteBuffer buffer) {
+        if (EditOpsCodec.isEncoded(buffer)) {
+            EditOps editOps = EditOpsCodec.decode(buffer);
+            return editOps != null ? editOps : new EditOps();
+        }
+        return deserialize(StandardCharsets.UTF_8.decode(buffer.duplicate()).toString());
+    }
+
+    /**
+     * Binary encoding of {@code editOps}; see {@link EditOpsCodec}.
+     */
+    public static byte[] toBytes(EditOps editOps) {
+        return EditOpsCodec.encode(editOps);
+    }
+
+    /**
+     * Reads a sidecar file in either format by mapping it, so binary records are decoded
+     * straight from the page cache. A missing or empty file gives the defaults.
+     */
+    public static EditOps readFile(File file) throws IOException {
+        if (!file.isFile() || file.length() == 0) {
+            return new EditOps();
+        }
+        try (FileInputStream input = new FileInputStream(file)) {
+            FileChannel channel = input.getChannel();
+            return deserialize(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes {@code editOps} to a sidecar file in the binary format, replacing it only once
+     * the new record is complete.
+     */
+    public static void writeFile(File file, EditOps editOps) throws IOException {
+        File part = new File(file.getPath() + ".part");
+        try (FileOutputStream output = new FileOutputStream(part)) {
+            output.write(toBytes(editOps));
+        }
+        if (!part.renameTo(file)) {
+            part.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    /**
+     * Returns a stable hex hash of the serialized edit operations, suitable for cache keys.
+     * Equal edit states always produce the same hash across processes.
+     */
+    public static String stableHash(EditOps editOps) {
+        // Hash the normalized serialization, not stored JSON, so equivalent states match
+        String json = serialize(editOps);
+        // 64-bit FNV-1a over the UTF-16 code units of the JSON
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < json.length(); i++) {
+            hash ^= json.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return Long.toHexString(hash);
+    }
+
+    /**
+     * Returns a deep copy, e.g. to hand a snapshot of mutable UI state to a background render.
+     */
+    public static EditOps copy(EditOps editOps) {
+        return deserialize(serialize(editOps));
+    }
+
     public static EditOps merge(EditOps base, EditOps override) {
         if (base == null) base = new EditOps();
         if (override == null) return base;
@@ -48,6 +138,7 @@ public class EditOpsUtil {
         
         // Copy deskew
         result.deskew = Math.abs(override.deskew) > 0 ? override.deskew : base.deskew;
+        result.autoDeskew = override.autoDeskew || base.autoDeskew;
         
         // Copy filter
         result.filter = new EditOps.Filter();
@@ -74,6 +165,7 @@ public class EditOpsUtil {
                editOps.rotate == 0 &&
                editOps.denoise == 0.0f &&
                editOps.deskew == 0.0f &&
+               !editOps.autoDeskew &&
                (editOps.filter == null || 
                 (editOps.filter.mode != null && editOps.filter.mode.equals("ORIGINAL") &&
                  editOps.filter.contrast == 1.0f &&
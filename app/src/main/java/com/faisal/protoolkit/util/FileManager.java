@@ -87,6 +87,10 @@ public class FileManager {
         return new File(pageDir, "edit.json");
     }
 
+    public File getDocumentThumbFile(String documentId) {
+        return new File(getDocumentDir(documentId), "thumb.webp");
+    }
+
     public File getMetadataFile(String documentId) {
         return new File(getDocumentDir(documentId), "meta.json");
     }
@@ -1,13 +1,46 @@
 package com.faisal.protoolkit.util;
 
 import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.ColorMatrix;
-import android.graphics.ColorMatrixColorFilter;
-import android.graphics.Paint;
-import android.util.Log;
+import android.os.CancellationSignal;
 
+import com.faisal.protoolkit.imaging.AdaptiveBinarizer;
+import com.faisal.protoolkit.imaging.Denoiser;
+import com.faisal.protoolkit.imaging.FilterKernel;
+import com.faisal.protoolkit.imaging.OtsuThreshold;
+import com.faisal.protoolkit.imaging.PixelPlane;
+import com.faisal.protoolkit.imaging.Sharpener;
+import com.faisal.protoolkit.model.EditOps;
+
+/**
+ * Bitmap adapter over the platform-neutral kernels in {@code com.faisal.protoolkit.imaging}.
+ * Pixels are copied out of the bitmap in row bands, run through the kernels and written to
+ * an ARGB_8888 bitmap from the {@link BitmapPool}; no pixel math lives here. Results may be
+ * handed back with {@link BitmapPool#release(Bitmap)} once the caller is done with them.
+ */
 public class ImageFilters {
+
+    // Pixels per band buffer used by the fused filter pass (256 KB of ARGB)
+    private static final int BAND_PIXELS = 64 * 1024;
+    // Bands for the sharpen pass, split across rows by Sharpener (4 MB of ARGB)
+    private static final int SHARPEN_BAND_PIXELS = 1024 * 1024;
+    
+    /**
+     * Copies a bitmap's pixels into a new packed plane.
+     */
+    public static PixelPlane toPlane(Bitmap source) {
+        PixelPlane plane = new PixelPlane(source.getWidth(), source.getHeight());
+        source.getPixels(plane.pixels, plane.offset, plane.stride, 0, 0, plane.width, plane.height);
+        return plane;
+    }
+    
+    /**
+     * Copies a plane into a pooled ARGB_8888 bitmap.
+     */
+    public static Bitmap toBitmap(PixelPlane plane) {
+        Bitmap result = BitmapPool.get().obtain(plane.width, plane.height, Bitmap.Config.ARGB_8888);
+        result.setPixels(plane.pixels, plane.offset, plane.stride, 0, 0, plane.width, plane.height);
+        return result;
+    }
     
     /**
      * Applies contrast and brightness adjustments to a bitmap
@@ -17,29 +50,10 @@ public class ImageFilters {
             return source;
         }
         
-        Bitmap result = Bitmap.createBitmap(source.getWidth(), source.getHeight(), source.getConfig());
-        
-        // Create color matrix for contrast and brightness
-        ColorMatrix colorMatrix = new ColorMatrix();
-        
-        // Apply contrast and brightness in one operation
-        // This applies contrast scaling and brightness translation properly
-        float brightnessTranslation = brightness * 255.0f;
-        
-        colorMatrix.set(new float[] {
-                contrast, 0, 0, 0, brightnessTranslation,    // Red: contrast scaling + brightness
-                0, contrast, 0, 0, brightnessTranslation,    // Green: contrast scaling + brightness
-                0, 0, contrast, 0, brightnessTranslation,     // Blue: contrast scaling + brightness
-                0, 0, 0, 1, 0                                  // Alpha: no change
-        });
-        
-        Paint paint = new Paint();
-        paint.setColorFilter(new ColorMatrixColorFilter(colorMatrix));
-        
-        Canvas canvas = new Canvas(result);
-        canvas.drawBitmap(source, 0, 0, paint);
-        
-        return result;
+        EditOps.Filter filter = new EditOps.Filter();
+        filter.contrast = contrast;
+        filter.brightness = brightness;
+        return filterBands(source, 0f, FilterKernel.compile(filter), null);
     }
     
     /**
@@ -50,120 +64,46 @@ public class ImageFilters {
             return source;
         }
         
-        Bitmap result = Bitmap.createBitmap(source.getWidth(), source.getHeight(), source.getConfig());
-        
-        ColorMatrix colorMatrix = new ColorMatrix();
-        colorMatrix.setSaturation(0f); // Remove saturation to get grayscale
-        
-        Paint paint = new Paint();
-        paint.setColorFilter(new ColorMatrixColorFilter(colorMatrix));
-        
-        Canvas canvas = new Canvas(result);
-        canvas.drawBitmap(source, 0, 0, paint);
-        
-        return result;
+        EditOps.Filter filter = new EditOps.Filter();
+        filter.mode = "GRAY";
+        return filterBands(source, 0f, FilterKernel.compile(filter), null);
     }
     
     /**
-     * Converts bitmap to black and white using a simple threshold
+     * Converts bitmap to black and white using a simple threshold (0-1)
      */
     public static Bitmap toBlackAndWhite(Bitmap source, float threshold) {
-        Log.d("ImageFilters", "toBlackAndWhite called with threshold: " + threshold);
         if (source == null || source.isRecycled()) {
-            Log.d("ImageFilters", "  source is null or recycled, returning source");
             return source;
         }
         
-        int width = source.getWidth();
-        int height = source.getHeight();
-        Log.d("ImageFilters", "  Processing bitmap: " + width + "x" + height + " config: " + source.getConfig());
-        
-        // Create a result bitmap with a known good configuration
-        Bitmap result = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-        
-        int[] pixels = new int[width * height];
-        source.getPixels(pixels, 0, width, 0, 0, width, height);
-        
-        int whiteCount = 0, blackCount = 0;
-        
-        int thresholdValue = (int)(threshold * 255);
-        Log.d("ImageFilters", "  Using threshold value: " + thresholdValue + " (threshold param: " + threshold + ")");
-        
-        int minGray = 255, maxGray = 0; // Track min/max grays for debugging
-        
-        // Calculate average for thresholding
-        for (int i = 0; i < pixels.length; i++) {
-            int pixel = pixels[i];
-            int r = (pixel >> 16) & 0xFF;
-            int g = (pixel >> 8) & 0xFF;
-            int b = pixel & 0xFF;
-            
-            // Calculate luminance
-            int gray = (int) (0.299 * r + 0.587 * g + 0.114 * b);
-            
-            // Track min/max for debugging
-            if (gray < minGray) minGray = gray;
-            if (gray > maxGray) maxGray = gray;
-            
-            if (gray > thresholdValue) {
-                pixels[i] = 0xFFFFFFFF; // White with full alpha
-                whiteCount++;
-            } else {
-                pixels[i] = 0xFF000000; // Black with full alpha
-                blackCount++;
-            }
+        return filterBands(source, 0f, FilterKernel.ofThreshold((int) (threshold * 255)), null);
+    }
+    
+    /**
+     * Converts bitmap to black and white with a per-page threshold chosen by Otsu's method
+     * ({@link OtsuThreshold}).
+     */
+    public static Bitmap toAutoBlackAndWhite(Bitmap source) {
+        if (source == null || source.isRecycled()) {
+            return source;
         }
         
-        Log.d("ImageFilters", "  Gray value range: " + minGray + " - " + maxGray);
-        
-        Log.d("ImageFilters", "  Black pixels: " + blackCount + ", White pixels: " + whiteCount + ", Total: " + pixels.length);
-        Log.d("ImageFilters", "  Black/White ratio: " + (blackCount * 100.0 / pixels.length) + "% are black");
-        
-        result.setPixels(pixels, 0, width, 0, 0, width, height);
-        Log.d("ImageFilters", "  toBlackAndWhite completed");
-        return result;
+        return filterBands(source, 0f, FilterKernel.ofThreshold(otsuThreshold(source, null)), null);
     }
     
     /**
-     * Applies basic sharpening filter
+     * Sharpens edges with a luminance unsharp mask ({@link Sharpener}); {@code amount} is
+     * 0-1 as in {@code EditOps.Filter.sharpen}. Rows are processed in parallel.
      */
     public static Bitmap applySharpen(Bitmap source, float amount) {
-        // Basic sharpening using a convolution matrix
-        // This is a simplified approach - for better results, OpenCV would be needed
-        
         if (source == null || source.isRecycled()) {
             return source;
         }
         
-        if (amount <= 0) return source.copy(source.getConfig(), true); // No sharpening needed, return copy
-        
-        Bitmap result = Bitmap.createBitmap(source.getWidth(), source.getHeight(), source.getConfig());
-        Canvas canvas = new Canvas(result);
-        
-        // Apply a simple sharpening effect using contrast
-        float scale = 1.0f + (0.1f * amount); // Increase contrast for sharpening effect
-        float translate = -128.0f * (scale - 1.0f); // Adjust brightness
-        
-        ColorMatrix colorMatrix = new ColorMatrix();
-        colorMatrix.setScale(scale, scale, scale, 1.0f);
+        if (amount <= 0) return BitmapPool.get().copy(source); // No sharpening needed, return copy
         
-        // Apply brightness using ColorMatrix multiplication with a separate matrix
-        ColorMatrix brightnessMatrix = new ColorMatrix();
-        brightnessMatrix.set(new float[] {
-                1, 0, 0, 0, translate,  // Red
-                0, 1, 0, 0, translate,  // Green
-                0, 0, 1, 0, translate,  // Blue
-                0, 0, 0, 1, 0           // Alpha
-        });
-        
-        colorMatrix.postConcat(brightnessMatrix);
-        
-        Paint paint = new Paint();
-        paint.setColorFilter(new ColorMatrixColorFilter(colorMatrix));
-        
-        canvas.drawBitmap(source, 0, 0, paint);
-        
-        return result;
+        return filterBands(source, amount, FilterKernel.compile(null), null);
     }
     
     /**
@@ -174,81 +114,192 @@ public class ImageFilters {
             return source;
         }
         
-        Bitmap result = Bitmap.createBitmap(source.getWidth(), source.getHeight(), source.getConfig());
-        
-        ColorMatrix colorMatrix = new ColorMatrix();
-        
-        // Enhance saturation
-        colorMatrix.setSaturation(1.5f);
-        
-        // Slightly increase contrast
-        colorMatrix.postConcat(new ColorMatrix(new float[]{
-            1.1f, 0, 0, 0, 0,      // Red component
-            0, 1.1f, 0, 0, 0,      // Green component
-            0, 0, 1.1f, 0, 0,      // Blue component
-            0, 0, 0, 1, 0           // Alpha component
-        }));
-        
-        Paint paint = new Paint();
-        paint.setColorFilter(new ColorMatrixColorFilter(colorMatrix));
-        
-        Canvas canvas = new Canvas(result);
-        canvas.drawBitmap(source, 0, 0, paint);
-        
-        return result;
+        EditOps.Filter filter = new EditOps.Filter();
+        filter.mode = "COLOR_BOOST";
+        return filterBands(source, 0f, FilterKernel.compile(filter), null);
     }
     
     /**
-     * Applies all filter operations based on EditOps
+     * Applies all filter operations based on EditOps.
+     * Sharpening and the fused mode/contrast/brightness {@link FilterKernel} run in the
+     * same band pass, writing one output bitmap.
      */
-    public static Bitmap applyFilter(Bitmap source, com.faisal.protoolkit.model.EditOps editOps) {
-        Log.d("ImageFilters", "applyFilter called");
+    public static Bitmap applyFilter(Bitmap source, EditOps editOps) {
+        return applyFilter(source, editOps, null);
+    }
+    
+    /**
+     * Cancellable variant of {@link #applyFilter(Bitmap, EditOps)}.
+     * The signal is checked between row bands; on cancellation the partial output is returned
+     * to the pool and {@link android.os.OperationCanceledException} is thrown.
+     */
+    public static Bitmap applyFilter(Bitmap source, EditOps editOps,
+                                     CancellationSignal signal) {
         if (editOps == null || editOps.filter == null) {
-            Log.d("ImageFilters", "  editOps or editOps.filter is null, returning source");
             return source;
         }
-        
-        Log.d("ImageFilters", "  Filter mode: " + editOps.filter.mode);
-        Log.d("ImageFilters", "  Contrast: " + editOps.filter.contrast);
-        Log.d("ImageFilters", "  Brightness: " + editOps.filter.brightness);
-        Log.d("ImageFilters", "  Sharpen: " + editOps.filter.sharpen);
-        
-        Bitmap result = source;
-        
-        // Apply the selected filter mode
-        switch (editOps.filter.mode) {
-            case "GRAY":
-                Log.d("ImageFilters", "  Applying GRAY filter");
-                result = toGrayscale(result);
-                break;
-            case "BW":
-                Log.d("ImageFilters", "  Applying BW filter with threshold 0.5f");
-                result = toBlackAndWhite(result, 0.5f); // 50% threshold
-                break;
-            case "COLOR_BOOST":
-                Log.d("ImageFilters", "  Applying COLOR_BOOST filter");
-                result = applyColorBoost(result);
-                break;
-            case "ORIGINAL":
-            default:
-                Log.d("ImageFilters", "  Keeping ORIGINAL (no filter)");
-                // Do nothing, keep original
-                break;
+        if (source == null || source.isRecycled()) {
+            return source;
         }
-        
-        // Apply contrast and brightness adjustments
-        if (editOps.filter.contrast != 1.0f || editOps.filter.brightness != 0.0f) {
-            Log.d("ImageFilters", "  Applying contrast/brightness: " + editOps.filter.contrast + ", " + editOps.filter.brightness);
-            result = applyContrastBrightness(result, editOps.filter.contrast, editOps.filter.brightness);
+
+        FilterKernel kernel = FilterKernel.compile(editOps.filter);
+        if (kernel.hasAutoThreshold()) {
+            kernel = kernel.withThreshold(otsuThreshold(source, signal));
         }
-        
-        // Apply sharpening
-        if (editOps.filter.sharpen > 0.0f) {
-            Log.d("ImageFilters", "  Applying sharpen: " + editOps.filter.sharpen);
-            result = applySharpen(result, editOps.filter.sharpen);
+        float sharpen = editOps.filter.sharpen;
+        boolean adaptive = AdaptiveBinarizer.MODE.equals(editOps.filter.mode);
+        if (kernel.isIdentity() && sharpen <= 0f && !adaptive) {
+            return source;
+        }
+        Bitmap result = filterBands(source, sharpen, kernel, signal);
+        if (adaptive) {
+            binarizeInPlace(result, signal);
+        }
+        return result;
+    }
+
+    /**
+     * Threshold {@code AUTO_BW} would pick for {@code source}, for previews that draw the
+     * filter themselves.
+     */
+    public static int autoThreshold(Bitmap source, CancellationSignal signal) {
+        return otsuThreshold(source, signal);
+    }
+
+    /**
+     * Otsu threshold of the whole bitmap, from one read-only sweep of row bands into a
+     * luminance histogram. Taken before sharpening, which moves edges rather than the page's
+     * tone distribution.
+     */
+    private static int otsuThreshold(Bitmap source, CancellationSignal signal) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int rowsPerBand = Math.max(1, Math.min(height, BAND_PIXELS / Math.max(1, width)));
+        BitmapPool pool = BitmapPool.get();
+        int[] band = pool.obtainBuffer(width * rowsPerBand);
+        int[] histogram = new int[OtsuThreshold.BINS];
+        try {
+            for (int y = 0; y < height; y += rowsPerBand) {
+                if (signal != null) {
+                    signal.throwIfCanceled();
+                }
+                int rows = Math.min(rowsPerBand, height - y);
+                source.getPixels(band, 0, width, 0, y, width, rows);
+                OtsuThreshold.accumulate(band, 0, width * rows, histogram);
+            }
+        } finally {
+            pool.releaseBuffer(band);
+        }
+        return OtsuThreshold.fromHistogram(histogram);
+    }
+
+    /**
+     * Adaptive binarization of a mutable bitmap in place. Rows stream through the strip-wise
+     * {@link AdaptiveBinarizer}, which keeps its own copy of the rows its windows still need,
+     * so each output row can overwrite rows that have already been read.
+     */
+    private static void binarizeInPlace(Bitmap bitmap, CancellationSignal signal) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        AdaptiveBinarizer binarizer = new AdaptiveBinarizer();
+        binarizer.begin(width, height);
+        int[] row = new int[width];
+        int y = 0;
+        for (int read = 0; read < height; read++) {
+            if (signal != null && signal.isCanceled()) {
+                BitmapPool.get().release(bitmap);
+                signal.throwIfCanceled();
+            }
+            bitmap.getPixels(row, 0, width, 0, read, width, 1);
+            binarizer.pushRow(row, 0);
+            while (binarizer.pullRow(row, 0)) {
+                bitmap.setPixels(row, 0, width, 0, y++, width, 1);
+            }
+        }
+        while (binarizer.pullRow(row, 0)) {
+            bitmap.setPixels(row, 0, width, 0, y++, width, 1);
+        }
+    }
+
+    /**
+     * Shared band loop: optional luminance unsharp mask (rows in parallel, one row of halo
+     * read around each band) followed by the colour kernel, into one pooled bitmap. The band
+     * buffers come from the pool too, so repeated previews of one page allocate nothing.
+     */
+    private static Bitmap filterBands(Bitmap source, float sharpen, FilterKernel kernel,
+                                      CancellationSignal signal) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BitmapPool pool = BitmapPool.get();
+        Bitmap result = pool.obtain(width, height, Bitmap.Config.ARGB_8888);
+
+        // Process a band of rows at a time to amortise the getPixels/setPixels calls
+        int rowsPerBand = Math.max(1, Math.min(height, BAND_PIXELS / Math.max(1, width)));
+        if (sharpen > 0f) {
+            // Bigger bands so the halo rows and fork/join overhead stay small
+            rowsPerBand = Math.max(1, Math.min(height, SHARPEN_BAND_PIXELS / Math.max(1, width)));
+        }
+        int[] band = pool.obtainBuffer(width * rowsPerBand);
+        int[] window = sharpen > 0f ? pool.obtainBuffer(width * (rowsPerBand + 2)) : null;
+        try {
+            for (int y = 0; y < height; y += rowsPerBand) {
+                if (signal != null && signal.isCanceled()) {
+                    pool.release(result);
+                    signal.throwIfCanceled();
+                }
+                int rows = Math.min(rowsPerBand, height - y);
+                if (window != null) {
+                    int top = Math.max(0, y - 1);
+                    int bottom = Math.min(height, y + rows + 1);
+                    source.getPixels(window, 0, width, 0, top, width, bottom - top);
+                    Sharpener.sharpen(window, width, bottom - top, band, y - top, rows, sharpen);
+                } else {
+                    source.getPixels(band, 0, width, 0, y, width, rows);
+                }
+                if (!kernel.isIdentity()) {
+                    kernel.apply(band, 0, band, 0, width * rows);
+                }
+                result.setPixels(band, 0, width, 0, y, width, rows);
+            }
+        } finally {
+            pool.releaseBuffer(band);
+            pool.releaseBuffer(window);
+        }
+        return result;
+    }
+
+    /**
+     * Edge-preserving denoise with {@code strength} 0-1 (see {@link Denoiser}). Rows are
+     * streamed through the calling thread's reusable ring buffers and the result comes from
+     * the {@link BitmapPool}, so repeated renders of one page allocate nothing.
+     */
+    public static Bitmap applyDenoise(Bitmap source, float strength, CancellationSignal signal) {
+        if (source == null || source.isRecycled() || strength <= 0f) {
+            return source;
+        }
+        int width = source.getWidth();
+        int height = source.getHeight();
+        Bitmap result = BitmapPool.get().obtain(width, height, Bitmap.Config.ARGB_8888);
+
+        Denoiser denoiser = Denoiser.obtain();
+        denoiser.begin(width, height, strength);
+        int[] in = denoiser.inputRow();
+        int[] out = denoiser.outputRow();
+        int y = 0;
+        for (int row = 0; row < height; row++) {
+            if (signal != null && signal.isCanceled()) {
+                BitmapPool.get().release(result);
+                signal.throwIfCanceled();
+            }
+            source.getPixels(in, 0, width, 0, row, width, 1);
+            denoiser.pushRow(in, 0);
+            while (denoiser.pullRow(out, 0)) {
+                result.setPixels(out, 0, width, 0, y++, width, 1);
+            }
+        }
+        while (denoiser.pullRow(out, 0)) {
+            result.setPixels(out, 0, width, 0, y++, width, 1);
         }
-        
-        Log.d("ImageFilters", "  Returning result: " + result.getWidth() + "x" + result.getHeight());
         return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package com.faisal.protoolkit.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Frame header of a JPEG file: the dimensions and component count needed to embed the file
+ * unchanged, e.g. as a PDF DCTDecode image. Only the markers up to the first start-of-frame
+ * are read.
+ */
+public final class JpegHeader {
+
+    public final int width;
+    public final int height;
+    /** 1 for grayscale, 3 for YCbCr/RGB. */
+    public final int components;
+
+    private JpegHeader(int width, int height, int components) {
+        this.width = width;
+        this.height = height;
+        this.components = components;
+    }
+
+    /**
+     * Reads the header of the JPEG in {@code channel} without moving its position. Returns
+     * null if it is not an 8-bit grayscale or colour JPEG (CMYK, 12-bit and lossless files are
+     * rejected, as is anything that isn't a JPEG).
+     */
+    public static JpegHeader read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        if (!readFully(channel, buffer, 0) || (buffer.getShort(0) & 0xFFFF) != 0xFFD8) {
+            return null;
+        }
+        long position = 2;
+        while (position + 4 <= size) {
+            buffer.clear();
+            if (!readFully(channel, buffer, position)) {
+                return null;
+            }
+            if ((buffer.get(0) & 0xFF) != 0xFF) {
+                return null;
+            }
+            int marker = buffer.get(1) & 0xFF;
+            if (marker == 0xFF) {
+                // Fill byte
+                position++;
+                continue;
+            }
+            int length = buffer.getShort(2) & 0xFFFF;
+            if (isStartOfFrame(marker)) {
+                ByteBuffer frame = ByteBuffer.allocate(6);
+                if (!readFully(channel, frame, position + 4)) {
+                    return null;
+                }
+                int precision = frame.get(0) & 0xFF;
+                int height = frame.getShort(1) & 0xFFFF;
+                int width = frame.getShort(3) & 0xFFFF;
+                int components = frame.get(5) & 0xFF;
+                // Lossless and arithmetic-coded frames are not DCTDecode-compatible everywhere
+                boolean huffmanDct = marker == 0xC0 || marker == 0xC1 || marker == 0xC2;
+                if (!huffmanDct || precision != 8 || width == 0 || height == 0
+                        || (components != 1 && components != 3)) {
+                    return null;
+                }
+                return new JpegHeader(width, height, components);
+            }
+            if (marker == 0xD9 || marker == 0xDA || length < 2) {
+                // End of image or scan data before any frame header
+                return null;
+            }
+            position += 2 + length;
+        }
+        return null;
+    }
+
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,187 @@
+package com.faisal.protoolkit.util;
+
+import android.content.Context;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.faisal.protoolkit.data.dao.PageDao;
+import com.faisal.protoolkit.data.database.AppDatabase;
+import com.faisal.protoolkit.data.entities.PageEntity;
+import com.faisal.protoolkit.model.EditOps;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Where a page's files are, how large its original is and what its edits are, resolved from
+ * the pages table with one query per document instead of rebuilding paths, probing the
+ * filesystem and reading edit files on every render. Originals whose dimensions or size
+ * were never recorded are measured once and written back. A document's entry is dropped as
+ * soon as the pages table changes, so edits are never served stale.
+ *
+ * Lookups query the database; call off the main thread.
+ */
+public final class PageAssetIndex {
+    private static final String TAG = "PageAssetIndex";
+    // Render passes work within one or two documents at a time
+    private static final int MAX_DOCUMENTS = 4;
+
+    private static volatile PageAssetIndex instance;
+
+    private final PageDao pageDao;
+    private final FileManager fileManager;
+    // Document id -> pages by index, least recently used first
+    private final Map<String, Map<Integer, PageAssets>> documents =
+            new LinkedHashMap<String, Map<Integer, PageAssets>>(MAX_DOCUMENTS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<Integer, PageAssets>> eldest) {
+                    return size() > MAX_DOCUMENTS;
+                }
+            };
+    // Bumped on every pages table change, so a load that raced a write is not kept
+    private long generation;
+
+    /**
+     * The files and recorded properties of one page.
+     */
+    public static final class PageAssets {
+        public final String pageId;
+        public final int index;
+        public final File originalFile;
+        public final File renderFile;
+        /** Pixel size of the original; 0 if it could not be read. */
+        public final int width;
+        public final int height;
+        /** Size of the original in bytes; 0 if it is missing. */
+        public final long originalBytes;
+        public final long updatedAt;
+        /** Parsed once per load; shared, so copy before modifying. */
+        public final EditOps editOps;
+
+        PageAssets(PageEntity page, File originalFile, File renderFile, int width, int height,
+                   long originalBytes) {
+            this.pageId = page.id;
+            this.index = page.index;
+            this.originalFile = originalFile;
+            this.renderFile = renderFile;
+            this.width = width;
+            this.height = height;
+            this.originalBytes = originalBytes;
+            this.updatedAt = page.updated_at;
+            this.editOps = EditOpsUtil.deserialize(page.edit_ops_json);
+        }
+    }
+
+    public static PageAssetIndex getInstance(@NonNull Context context) {
+        if (instance == null) {
+            synchronized (PageAssetIndex.class) {
+                if (instance == null) {
+                    instance = new PageAssetIndex(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private PageAssetIndex(Context context) {
+        AppDatabase database = AppDatabase.getDatabase(context);
+        this.pageDao = database.pageDao();
+        this.fileManager = new FileManager(context);
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("pages") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * Returns page {@code pageIndex} of the document; throws if there is no such page.
+     */
+    @NonNull
+    public PageAssets getPage(@NonNull String documentId, int pageIndex) throws IOException {
+        PageAssets page = getDocument(documentId).get(pageIndex);
+        if (page == null) {
+            throw new IOException("No page " + pageIndex + " in document " + documentId);
+        }
+        return page;
+    }
+
+    /**
+     * Returns the document's pages keyed by page index, loading them with a single query if
+     * they are not indexed yet.
+     */
+    @NonNull
+    public Map<Integer, PageAssets> getDocument(@NonNull String documentId) {
+        long loadGeneration;
+        synchronized (documents) {
+            Map<Integer, PageAssets> pages = documents.get(documentId);
+            if (pages != null) {
+                return pages;
+            }
+            loadGeneration = generation;
+        }
+        Map<Integer, PageAssets> pages = load(documentId);
+        synchronized (documents) {
+            if (generation == loadGeneration) {
+                documents.put(documentId, pages);
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Drops every indexed document.
+     */
+    public void invalidate() {
+        synchronized (documents) {
+            generation++;
+            documents.clear();
+        }
+    }
+
+    private Map<Integer, PageAssets> load(String documentId) {
+        List<PageEntity> rows = pageDao.getPagesByDocumentSync(documentId);
+        Map<Integer, PageAssets> pages = new HashMap<>();
+        if (rows == null) {
+            return Collections.unmodifiableMap(pages);
+        }
+        for (PageEntity row : rows) {
+            File originalFile = row.uri_original.isEmpty()
+                    ? fileManager.getOriginalImageFile(documentId, row.index)
+                    : new File(row.uri_original);
+            // Next to the original, so it follows the page when pages are reordered
+            File renderFile = row.uri_render != null && !row.uri_render.isEmpty()
+                    ? new File(row.uri_render)
+                    : new File(originalFile.getParentFile(), "render.jpg");
+            int width = row.width;
+            int height = row.height;
+            long originalBytes = row.original_bytes;
+            if (width <= 0 || height <= 0 || originalBytes <= 0) {
+                // Not recorded at import: measure once and keep it
+                BitmapFactory.Options bounds = new BitmapFactory.Options();
+                bounds.inJustDecodeBounds = true;
+                BitmapFactory.decodeFile(originalFile.getAbsolutePath(), bounds);
+                width = Math.max(0, bounds.outWidth);
+                height = Math.max(0, bounds.outHeight);
+                originalBytes = originalFile.length();
+                if (width > 0 && height > 0 && originalBytes > 0) {
+                    pageDao.updatePageAssetInfo(row.id, width, height, originalBytes);
+                } else {
+                    Log.w(TAG, "Unreadable original for page " + row.id + ": " + originalFile);
+                }
+            }
+            pages.put(row.index, new PageAssets(row, originalFile, renderFile, width, height, originalBytes));
+        }
+        return Collections.unmodifiableMap(pages);
+    }
+}
@@ -0,0 +1,61 @@
+package com.faisal.protoolkit.util;
+
+import androidx.annotation.NonNull;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.signature.ObjectKey;
+import com.faisal.protoolkit.data.entities.PageEntity;
+import java.io.File;
+
+/**
+ * Glide model for a page rendered with its edits. Two models are equal when they show the
+ * same page with equivalent edits, so Glide's memory and disk caches are keyed on page id and
+ * edit hash (plus the target size, which Glide adds); any edit gives a new key.
+ *
+ * @see PageThumbnailLoader
+ */
+public final class PageThumbnail {
+
+    final String pageId;
+    final File originalFile;
+    final String editOpsJson;
+    // Recorded size of the original, 0 if not known yet
+    final int width;
+    final int height;
+    private final String editHash;
+
+    public PageThumbnail(@NonNull PageEntity page) {
+        this.pageId = page.id;
+        this.originalFile = new File(page.uri_original);
+        this.editOpsJson = page.edit_ops_json;
+        this.width = page.width;
+        this.height = page.height;
+        this.editHash = EditOpsUtil.stableHash(EditOpsUtil.deserialize(page.edit_ops_json));
+    }
+
+    Key cacheKey() {
+        return new ObjectKey(pageId + ":" + editHash);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PageThumbnail)) {
+            return false;
+        }
+        PageThumbnail other = (PageThumbnail) o;
+        return pageId.equals(other.pageId) && editHash.equals(other.editHash);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * pageId.hashCode() + editHash.hashCode();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "PageThumbnail{" + pageId + ", " + editHash + "}";
+    }
+}
@@ -0,0 +1,138 @@
+package com.faisal.protoolkit.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.ResourceDecoder;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.load.resource.bitmap.BitmapResource;
+import com.bumptech.glide.request.target.Target;
+import com.faisal.protoolkit.model.EditOps;
+import java.io.IOException;
+
+/**
+ * Teaches Glide to load {@link PageThumbnail}s. The loader hands the model through as its
+ * own data, keyed on page id and edit hash; {@link Decoder} then renders the edits with
+ * {@link RenderEngine#renderThumbnail} on Glide's decode pool, decoding the original straight
+ * at the requested width. The rendered bitmap is what Glide stores in its disk cache, so a
+ * page is only rendered again when its edits or the thumbnail size change.
+ */
+public final class PageThumbnailLoader implements ModelLoader<PageThumbnail, PageThumbnail> {
+
+    // Used when the target does not give a size
+    private static final int DEFAULT_WIDTH_PX = 256;
+
+    @Nullable
+    @Override
+    public LoadData<PageThumbnail> buildLoadData(@NonNull PageThumbnail model, int width, int height,
+                                                 @NonNull Options options) {
+        return new LoadData<>(model.cacheKey(), new PassThroughFetcher(model));
+    }
+
+    @Override
+    public boolean handles(@NonNull PageThumbnail model) {
+        return true;
+    }
+
+    public static final class Factory implements ModelLoaderFactory<PageThumbnail, PageThumbnail> {
+        @NonNull
+        @Override
+        public ModelLoader<PageThumbnail, PageThumbnail> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new PageThumbnailLoader();
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+
+    /**
+     * Renders a {@link PageThumbnail} at the target width.
+     */
+    public static final class Decoder implements ResourceDecoder<PageThumbnail, Bitmap> {
+        private final Context context;
+        // Glide's pool, which takes the bitmap back when the resource is released
+        private final com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool bitmapPool;
+        private volatile RenderEngine renderEngine;
+
+        public Decoder(@NonNull Context context,
+                       @NonNull com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool bitmapPool) {
+            this.context = context.getApplicationContext();
+            this.bitmapPool = bitmapPool;
+        }
+
+        @Override
+        public boolean handles(@NonNull PageThumbnail source, @NonNull Options options) {
+            return true;
+        }
+
+        @Nullable
+        @Override
+        public Resource<Bitmap> decode(@NonNull PageThumbnail source, int width, int height,
+                                       @NonNull Options options) throws IOException {
+            int targetWidth = width > 0 && width != Target.SIZE_ORIGINAL ? width : DEFAULT_WIDTH_PX;
+            EditOps editOps = EditOpsUtil.deserialize(source.editOpsJson);
+            Bitmap bitmap = engine().renderThumbnail(source.originalFile, source.width, source.height,
+                    editOps, targetWidth);
+            return BitmapResource.obtain(bitmap, bitmapPool);
+        }
+
+        private RenderEngine engine() {
+            RenderEngine engine = renderEngine;
+            if (engine == null) {
+                synchronized (this) {
+                    engine = renderEngine;
+                    if (engine == null) {
+                        engine = new RenderEngine(context);
+                        renderEngine = engine;
+                    }
+                }
+            }
+            return engine;
+        }
+    }
+
+    /**
+     * Returns the model as the data; the work happens in the decoder.
+     */
+    private static final class PassThroughFetcher implements DataFetcher<PageThumbnail> {
+        private final PageThumbnail model;
+
+        PassThroughFetcher(PageThumbnail model) {
+            this.model = model;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super PageThumbnail> callback) {
+            callback.onDataReady(model);
+        }
+
+        @Override
+        public void cleanup() {
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @NonNull
+        @Override
+        public Class<PageThumbnail> getDataClass() {
+            return PageThumbnail.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.LOCAL;
+        }
+    }
+}
@@ -1,105 +1,77 @@
 package com.faisal.protoolkit.util;
 
 import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.pdf.PdfDocument;
 import android.net.Uri;
-import android.os.Build;
-import android.os.Environment;
-import android.util.Log;
-import android.widget.Toast;
-import androidx.annotation.RequiresApi;
+import androidx.annotation.Nullable;
 import androidx.core.content.FileProvider;
 import com.faisal.protoolkit.BuildConfig;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.List;
+import java.nio.channels.FileChannel;
 
 public class PdfExportUtil {
-    private static final String TAG = "PdfExportUtil";
-    
-    @RequiresApi(api = Build.VERSION_CODES.KITKAT)
-    public static File createPdfFromBitmapsWithA4Size(List<Bitmap> bitmaps, String fileName, Context context) {
-        if (bitmaps == null || bitmaps.isEmpty()) {
-            return null;
+    // A4 page size in points (1/72 inch, standard PDF resolution)
+    public static final int A4_WIDTH_PT = 595;
+    public static final int A4_HEIGHT_PT = 842;
+    // US Letter and Legal
+    private static final int LETTER_WIDTH_PT = 612;
+    private static final int LETTER_HEIGHT_PT = 792;
+    private static final int LEGAL_HEIGHT_PT = 1008;
+    private static final int POINTS_PER_INCH = 72;
+    // Resolution pages are embedded at; ample for print and OCR of text pages
+    public static final int DEFAULT_DPI = 300;
+
+    /**
+     * Page size in points for a name such as {@code "A4"}, {@code "LETTER"} or
+     * {@code "LEGAL"}, as {width, height}; A4 for anything else.
+     */
+    public static float[] pageSizePoints(@Nullable String name) {
+        if ("LETTER".equalsIgnoreCase(name)) {
+            return new float[] {LETTER_WIDTH_PT, LETTER_HEIGHT_PT};
         }
-        
-        // A4 page size in pixels at 72 DPI (standard PDF resolution)
-        int pageWidth = 595;  // A4 width in points
-        int pageHeight = 842; // A4 height in points
-        
-        PdfDocument pdfDocument = new PdfDocument();
-        
-        try {
-            for (int i = 0; i < bitmaps.size(); i++) {
-                Bitmap bitmap = bitmaps.get(i);
-                
-                // Create a page description
-                PdfDocument.PageInfo pageInfo = new PdfDocument.PageInfo.Builder(pageWidth, pageHeight, i + 1).create();
-                
-                // Start a page
-                PdfDocument.Page page = pdfDocument.startPage(pageInfo);
-                
-                try {
-                    Canvas canvas = page.getCanvas();
-                    android.graphics.Paint paint = new android.graphics.Paint();
-                    
-                    // Convert hardware bitmap to software bitmap if needed
-                    Bitmap softwareBitmap = bitmap;
-                    if (bitmap.getConfig() == null) {
-                        // If bitmap config is null, create a new ARGB_8888 bitmap
-                        softwareBitmap = bitmap.copy(Bitmap.Config.ARGB_8888, true);
-                    } else if (bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
-                        // Create a new bitmap with ARGB_8888 config for compatibility
-                        softwareBitmap = bitmap.copy(Bitmap.Config.ARGB_8888, true);
-                    }
-                    
-                    // Calculate scaling to fit bitmap to page while maintaining aspect ratio
-                    float scaleWidth = ((float) pageWidth) / softwareBitmap.getWidth();
-                    float scaleHeight = ((float) pageHeight) / softwareBitmap.getHeight();
-                    float scale = Math.min(scaleWidth, scaleHeight);
-                    
-                    // Calculate position to center the bitmap on the page
-                    float scaledWidth = softwareBitmap.getWidth() * scale;
-                    float scaledHeight = softwareBitmap.getHeight() * scale;
-                    float x = (pageWidth - scaledWidth) / 2;
-                    float y = (pageHeight - scaledHeight) / 2;
-                    
-                    // Draw the bitmap onto the canvas
-                    canvas.drawBitmap(softwareBitmap, null, 
-                        new android.graphics.RectF(x, y, x + scaledWidth, y + scaledHeight), paint);
-                } finally {
-                    // Make sure to finish the page even if an exception occurs during drawing
-                    pdfDocument.finishPage(page);
-                }
-            }
-            
-            // Create the output file
-            File documentsDir = new File(context.getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS), "ScannedDocs");
-            if (!documentsDir.exists()) {
-                documentsDir.mkdirs();
+        if ("LEGAL".equalsIgnoreCase(name)) {
+            return new float[] {LETTER_WIDTH_PT, LEGAL_HEIGHT_PT};
+        }
+        return new float[] {A4_WIDTH_PT, A4_HEIGHT_PT};
+    }
+
+    /**
+     * Pixel size of a page of {@code pageSize} points at {@code dpi}, as {width, height}:
+     * the most an image fitted onto that page needs.
+     */
+    public static int[] pagePixels(float[] pageSize, int dpi) {
+        return new int[] {
+                Math.round(pageSize[0] * dpi / POINTS_PER_INCH),
+                Math.round(pageSize[1] * dpi / POINTS_PER_INCH)
+        };
+    }
+
+    /**
+     * Embeds the JPEG {@code file} unchanged, fitted and centred on a page of the given size in
+     * points. Returns false, having written nothing, if it is not a JPEG the PDF can carry as
+     * is.
+     */
+    public static boolean writeJpegPage(PdfStreamWriter writer, File file, float pageWidth, float pageHeight)
+            throws IOException {
+        if (!file.isFile()) {
+            return false;
+        }
+        try (FileInputStream input = new FileInputStream(file)) {
+            FileChannel channel = input.getChannel();
+            JpegHeader header = JpegHeader.read(channel);
+            if (header == null) {
+                return false;
             }
-            
-            File pdfFile = new File(documentsDir, fileName);
-            
-            // Write the document content
-            FileOutputStream fos = new FileOutputStream(pdfFile);
-            pdfDocument.writeTo(fos);
-            fos.close();
-            
-            return pdfFile;
-            
-        } catch (IOException e) {
-            e.printStackTrace();
-            Toast.makeText(context, "Error creating PDF: " + e.getMessage(), Toast.LENGTH_LONG).show();
-            return null;
-        } finally {
-            pdfDocument.close();
+            float scale = Math.min(pageWidth / header.width, pageHeight / header.height);
+            float scaledWidth = header.width * scale;
+            float scaledHeight = header.height * scale;
+            writer.addJpegPage(pageWidth, pageHeight, (pageWidth - scaledWidth) / 2,
+                    (pageHeight - scaledHeight) / 2, scaledWidth, scaledHeight, header, channel);
+            return true;
         }
     }
-    
+
     public static Uri getFileUri(Context context, File file) {
         return FileProvider.getUriForFile(
                 context,
@@ -107,8 +79,8 @@ public class PdfExportUtil {
                 file
         );
     }
-    
+
     public static boolean deleteFile(File file) {
         return file != null && file.exists() && file.delete();
     }
-}
\ No newline at end of file
+}
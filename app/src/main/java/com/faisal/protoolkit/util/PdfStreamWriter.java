@@ -0,0 +1,196 @@
+package com.faisal.protoolkit.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Minimal PDF writer for image-only documents that streams every page straight to the output.
+ *
+ * Unlike {@code android.graphics.pdf.PdfDocument}, which keeps each finished page's recording
+ * (and the pixels it drew) until {@code writeTo}, nothing of a page is retained once it has
+ * been written beyond its object offsets, so memory stays flat however many pages there are.
+ * Object offsets are recorded as each object starts, so the cross-reference table is ready to
+ * write as soon as the last page is done.
+ *
+ * Each page is a JPEG file: {@link #addJpegPage} embeds the file's bytes unchanged as a
+ * DCTDecode image, copied channel to channel without decoding. Call {@link #close} when done.
+ */
+public final class PdfStreamWriter implements Closeable {
+
+    private static final int CATALOG_ID = 1;
+    private static final int PAGES_ID = 2;
+
+    private final CountingOutputStream out;
+    // Set when writing to a file, so JPEG pages can be copied by the kernel
+    private final FileChannel target;
+    // Byte offset of each object, indexed by object id - 1
+    private long[] offsets = new long[64];
+    private int objectCount;
+    private final List<Integer> pageIds = new ArrayList<>();
+    private boolean closed;
+
+    public PdfStreamWriter(OutputStream output) throws IOException {
+        this(output, null);
+    }
+
+    /**
+     * Writer for a file opened for writing at position 0.
+     */
+    public PdfStreamWriter(FileChannel channel) throws IOException {
+        this(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024), channel);
+    }
+
+    private PdfStreamWriter(OutputStream output, FileChannel target) throws IOException {
+        this.out = new CountingOutputStream(output);
+        this.target = target;
+        // Catalog and page tree are written last but keep the first ids
+        objectCount = 2;
+        write("%PDF-1.4\n");
+        // Binary comment so transfer tools treat the file as binary
+        out.write(new byte[] {'%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'});
+    }
+
+    /**
+     * Adds a page showing the JPEG in {@code source} (described by {@code header}) in the
+     * rectangle at ({@code x}, {@code y}) of size {@code width} x {@code height}, in points
+     * with a top-left origin. The file's bytes are embedded as they are.
+     */
+    public void addJpegPage(float pageWidth, float pageHeight, float x, float y, float width, float height,
+                            JpegHeader header, FileChannel source) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Writer closed");
+        }
+        long length = source.size();
+        int id = beginObject();
+        write("<< /Type /XObject /Subtype /Image /Width " + header.width + " /Height " + header.height
+                + " /ColorSpace " + (header.components == 1 ? "/DeviceGray" : "/DeviceRGB")
+                + " /BitsPerComponent 8 /Filter /DCTDecode /Length " + length + " >>\nstream\n");
+        copy(source, length);
+        write("\nendstream\nendobj\n");
+        writePage(id, new float[] {pageWidth, pageHeight, x, pageHeight - y - height, width, height});
+    }
+
+    /**
+     * Writes the content stream and page object drawing image object {@code image} as placed
+     * by {@code p}: page width and height, then x, y (bottom-left origin), width and height.
+     */
+    private void writePage(int image, float[] p) throws IOException {
+        byte[] content = String.format(Locale.US, "q %.3f 0 0 %.3f %.3f %.3f cm /Im0 Do Q\n",
+                p[4], p[5], p[2], p[3]).getBytes(StandardCharsets.US_ASCII);
+        int contentId = beginObject();
+        write("<< /Length " + content.length + " >>\nstream\n");
+        out.write(content);
+        write("endstream\nendobj\n");
+
+        int pageId = beginObject();
+        write(String.format(Locale.US, "<< /Type /Page /Parent %d 0 R /MediaBox [0 0 %.3f %.3f] "
+                + "/Resources << /XObject << /Im0 %d 0 R >> >> /Contents %d 0 R >>\nendobj\n",
+                PAGES_ID, p[0], p[1], image, contentId));
+        pageIds.add(pageId);
+    }
+
+    /**
+     * Appends {@code length} bytes of {@code source} from position 0.
+     */
+    private void copy(FileChannel source, long length) throws IOException {
+        out.flush();
+        WritableByteChannel sink = target != null ? target : Channels.newChannel(out.unwrap());
+        long copied = 0;
+        while (copied < length) {
+            long n = source.transferTo(copied, length - copied, sink);
+            if (n <= 0) {
+                throw new IOException("Short copy: " + copied + " of " + length + " bytes");
+            }
+            copied += n;
+        }
+        out.count += length;
+    }
+
+    public int getPageCount() {
+        return pageIds.size();
+    }
+
+    /**
+     * Writes the page tree, cross-reference table and trailer, and closes the output.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            StringBuilder kids = new StringBuilder();
+            for (int id : pageIds) {
+                kids.append(id).append(" 0 R ");
+            }
+            offsets[PAGES_ID - 1] = out.count;
+            write(PAGES_ID + " 0 obj\n<< /Type /Pages /Kids [" + kids + "] /Count " + pageIds.size()
+                    + " >>\nendobj\n");
+            offsets[CATALOG_ID - 1] = out.count;
+            write(CATALOG_ID + " 0 obj\n<< /Type /Catalog /Pages " + PAGES_ID + " 0 R >>\nendobj\n");
+
+            long xref = out.count;
+            StringBuilder table = new StringBuilder("xref\n0 ").append(objectCount + 1)
+                    .append("\n0000000000 65535 f \n");
+            for (int i = 0; i < objectCount; i++) {
+                table.append(String.format(Locale.US, "%010d 00000 n \n", offsets[i]));
+            }
+            write(table.toString());
+            write("trailer\n<< /Size " + (objectCount + 1) + " /Root " + CATALOG_ID
+                    + " 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private int beginObject() throws IOException {
+        if (objectCount == offsets.length) {
+            offsets = Arrays.copyOf(offsets, objectCount * 2);
+        }
+        offsets[objectCount++] = out.count;
+        int id = objectCount;
+        write(id + " 0 obj\n");
+        return id;
+    }
+
+    private void write(String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        OutputStream unwrap() {
+            return out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
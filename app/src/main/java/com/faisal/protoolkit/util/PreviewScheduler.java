@@ -0,0 +1,382 @@
+package com.faisal.protoolkit.util;
+
+import android.graphics.Bitmap;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.OperationCanceledException;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.faisal.protoolkit.imaging.FilterKernel;
+import com.faisal.protoolkit.imaging.GpuFilterProgram;
+import com.faisal.protoolkit.model.EditOps;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live-preview renderer for the page editor.
+ *
+ * Requests are coalesced: only the newest {@link EditOps} is ever rendered, and a render
+ * that is superseded is cancelled between stages instead of running to completion. Each
+ * change is first rendered on a downscaled working copy of the source; once input has been
+ * idle for {@link #DEFAULT_IDLE_DELAY_MS} the same edits are rendered again at full size.
+ *
+ * The scheduler takes ownership of the source bitmap: it is recycled on the render thread
+ * when replaced via {@link #setSource(Bitmap)} or on {@link #release()}, so callers must not
+ * recycle it themselves. Previews are delivered on the main thread and belong to the listener,
+ * which should hand each one back to the {@link BitmapPool} once it is replaced so the next
+ * render of the same size reuses it.
+ *
+ * A scheduler created with {@code viewDrawsFilter} hands the filter to the view where
+ * {@link AcceleratedFilter} can draw it: previews are rendered without it and the filter is
+ * delivered separately as a {@link GpuFilterProgram}, and a change that only touches the
+ * filter skips the CPU render entirely. Otherwise every preview has the filter applied.
+ */
+public class PreviewScheduler {
+    private static final String TAG = "PreviewScheduler";
+
+    /** Longest side of the working copy used for draft renders. */
+    public static final int DEFAULT_DRAFT_MAX_SIDE = 1024;
+    /** How long input must be idle before the full-size render starts. */
+    public static final long DEFAULT_IDLE_DELAY_MS = 300;
+
+    /**
+     * Receives previews on the main thread. {@code isFinal} is true for the full-size render.
+     */
+    public interface Listener {
+        void onPreview(@NonNull Bitmap preview, boolean isFinal);
+
+        /**
+         * The filter the view should draw over the last preview, or null when the preview
+         * already has it applied. Delivered right after {@link #onPreview}, or alone when
+         * only the filter changed. Only called on a scheduler created with
+         * {@code viewDrawsFilter}.
+         */
+        default void onPreviewFilter(@Nullable GpuFilterProgram program) {
+        }
+    }
+
+    private final RenderEngine renderEngine;
+    private final Listener listener;
+    private final int draftMaxSide;
+    private final long idleDelayMs;
+    private final boolean accelerated;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private final Object lock = new Object();
+    // Guarded by lock
+    private Bitmap source;
+    private Bitmap draftSource;
+    private EditOps latest;
+    private CancellationSignal inFlight;
+    private boolean draftQueued;
+    private boolean released;
+    // The unfiltered preview the listener holds, for filter-only changes
+    private String deliveredBaseHash;
+    private boolean deliveredBaseComplete;
+    private int deliveredThreshold = -1;
+
+    private final Runnable refineRunnable = new Runnable() {
+        @Override
+        public void run() {
+            final int expected = generation.get();
+            execute(() -> render(true, expected));
+        }
+    };
+
+    /**
+     * A scheduler whose previews always have the filter applied.
+     */
+    public PreviewScheduler(@NonNull RenderEngine renderEngine, @NonNull Listener listener) {
+        this(renderEngine, listener, false);
+    }
+
+    /**
+     * @param viewDrawsFilter true if the listener implements {@link Listener#onPreviewFilter}
+     *                        and draws the filter itself where the device supports it
+     */
+    public PreviewScheduler(@NonNull RenderEngine renderEngine, @NonNull Listener listener,
+                            boolean viewDrawsFilter) {
+        this(renderEngine, listener, viewDrawsFilter, DEFAULT_DRAFT_MAX_SIDE, DEFAULT_IDLE_DELAY_MS);
+    }
+
+    public PreviewScheduler(@NonNull RenderEngine renderEngine, @NonNull Listener listener,
+                            boolean viewDrawsFilter, int draftMaxSide, long idleDelayMs) {
+        this.renderEngine = renderEngine;
+        this.listener = listener;
+        this.draftMaxSide = draftMaxSide;
+        this.idleDelayMs = idleDelayMs;
+        this.accelerated = viewDrawsFilter && AcceleratedFilter.isAvailable();
+    }
+
+    /**
+     * Replaces the source bitmap, e.g. after a crop. Any render of the previous source is
+     * cancelled and the previous source is recycled once the render thread is done with it.
+     */
+    public void setSource(@Nullable Bitmap bitmap) {
+        synchronized (lock) {
+            if (released) {
+                return;
+            }
+            generation.incrementAndGet();
+            cancelInFlight();
+            deliveredBaseHash = null;
+        }
+        mainHandler.removeCallbacks(refineRunnable);
+        // Swap on the render thread so a running render never sees its input recycled
+        execute(() -> {
+            Bitmap oldSource;
+            Bitmap oldDraft;
+            synchronized (lock) {
+                oldSource = source;
+                oldDraft = draftSource;
+                source = bitmap;
+                draftSource = null;
+            }
+            recycle(oldDraft, bitmap);
+            recycle(oldSource, bitmap);
+        });
+    }
+
+    /**
+     * Requests a preview of {@code editOps}. The ops are snapshotted, so the caller may keep
+     * mutating its instance. Cheap enough to call on every slider change.
+     */
+    public void submit(@NonNull EditOps editOps) {
+        EditOps snapshot = EditOpsUtil.copy(editOps);
+        boolean enqueue;
+        synchronized (lock) {
+            if (released) {
+                return;
+            }
+            latest = snapshot;
+            generation.incrementAndGet();
+            cancelInFlight();
+            enqueue = !draftQueued;
+            draftQueued = true;
+        }
+        mainHandler.removeCallbacks(refineRunnable);
+        if (enqueue) {
+            // A queued draft picks up whatever is latest when it runs
+            execute(() -> render(false, -1));
+        }
+    }
+
+    /**
+     * Cancels pending work and recycles the source. The scheduler cannot be used afterwards.
+     */
+    public void release() {
+        synchronized (lock) {
+            if (released) {
+                return;
+            }
+            released = true;
+            generation.incrementAndGet();
+            cancelInFlight();
+        }
+        mainHandler.removeCallbacks(refineRunnable);
+        executor.execute(() -> {
+            Bitmap oldSource;
+            Bitmap oldDraft;
+            synchronized (lock) {
+                oldSource = source;
+                oldDraft = draftSource;
+                source = null;
+                draftSource = null;
+                latest = null;
+            }
+            recycle(oldDraft, null);
+            recycle(oldSource, null);
+        });
+        executor.shutdown();
+    }
+
+    private void render(boolean isFinal, int expectedGeneration) {
+        final EditOps editOps;
+        final Bitmap input;
+        final int renderGeneration;
+        final CancellationSignal signal = new CancellationSignal();
+        synchronized (lock) {
+            if (!isFinal) {
+                draftQueued = false;
+            }
+            renderGeneration = generation.get();
+            if (released || latest == null || source == null || source.isRecycled()
+                    || (isFinal && renderGeneration != expectedGeneration)) {
+                return;
+            }
+            Bitmap draft = ensureDraftSource();
+            if (isFinal && draft == source) {
+                // The draft was already rendered at full size
+                return;
+            }
+            editOps = latest;
+            input = isFinal ? source : draft;
+            inFlight = signal;
+        }
+
+        final boolean complete = isFinal || input == source;
+        EditOps baseOps = gpuBaseOps(editOps);
+        String baseHash = baseOps != null ? EditOpsUtil.stableHash(baseOps) : null;
+        if (baseHash != null) {
+            boolean reuse;
+            boolean baseComplete;
+            int threshold;
+            synchronized (lock) {
+                baseComplete = deliveredBaseComplete;
+                reuse = baseHash.equals(deliveredBaseHash) && (baseComplete || !isFinal);
+                threshold = deliveredThreshold;
+                if (reuse && inFlight == signal) {
+                    inFlight = null;
+                }
+            }
+            boolean needsThreshold = needsAutoThreshold(editOps);
+            if (reuse && (!needsThreshold || threshold >= 0)) {
+                // Only the filter changed: the view redraws what it already has
+                GpuFilterProgram program = programFor(editOps.filter, threshold);
+                mainHandler.post(() -> {
+                    if (generation.get() != renderGeneration || isReleased()) {
+                        return;
+                    }
+                    listener.onPreviewFilter(program);
+                    if (!baseComplete) {
+                        mainHandler.postDelayed(refineRunnable, idleDelayMs);
+                    }
+                });
+                return;
+            }
+        }
+
+        Bitmap preview;
+        int threshold = -1;
+        try {
+            preview = renderEngine.applyFilters(input, baseOps != null ? baseOps : editOps, signal);
+            if (preview != null && baseOps != null && needsAutoThreshold(editOps)) {
+                threshold = ImageFilters.autoThreshold(preview, signal);
+            }
+        } catch (OperationCanceledException e) {
+            return;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Preview render failed", e);
+            return;
+        } finally {
+            synchronized (lock) {
+                if (inFlight == signal) {
+                    inFlight = null;
+                }
+            }
+        }
+        if (preview == null) {
+            return;
+        }
+
+        final GpuFilterProgram program = baseOps != null ? programFor(editOps.filter, threshold) : null;
+        final int baseThreshold = threshold;
+        mainHandler.post(() -> {
+            if (generation.get() != renderGeneration || isReleased()) {
+                BitmapPool.get().release(preview);
+                return;
+            }
+            synchronized (lock) {
+                deliveredBaseHash = baseHash;
+                deliveredBaseComplete = complete;
+                deliveredThreshold = baseThreshold;
+            }
+            listener.onPreview(preview, complete);
+            if (accelerated) {
+                listener.onPreviewFilter(program);
+            }
+            if (!complete) {
+                mainHandler.postDelayed(refineRunnable, idleDelayMs);
+            }
+        });
+    }
+
+    /**
+     * The ops to render on the CPU when the filter of {@code editOps} is drawn by the view,
+     * i.e. the same ops without a filter; null when the CPU must render everything.
+     */
+    @Nullable
+    private EditOps gpuBaseOps(EditOps editOps) {
+        EditOps.Filter filter = editOps.filter;
+        if (!accelerated || filter == null || !GpuFilterProgram.canRun(filter)) {
+            return null;
+        }
+        FilterKernel kernel = FilterKernel.compile(filter);
+        // The threshold value doesn't change which API level the program needs
+        if (kernel.hasAutoThreshold()) {
+            kernel = kernel.withThreshold(0);
+        }
+        if (!AcceleratedFilter.supports(GpuFilterProgram.of(kernel, filter.sharpen))) {
+            return null;
+        }
+        EditOps base = EditOpsUtil.copy(editOps);
+        base.filter = null;
+        return base;
+    }
+
+    private static boolean needsAutoThreshold(EditOps editOps) {
+        return editOps.filter != null && FilterKernel.compile(editOps.filter).hasAutoThreshold();
+    }
+
+    private static GpuFilterProgram programFor(EditOps.Filter filter, int autoThreshold) {
+        FilterKernel kernel = FilterKernel.compile(filter);
+        if (kernel.hasAutoThreshold()) {
+            kernel = kernel.withThreshold(autoThreshold);
+        }
+        return GpuFilterProgram.of(kernel, filter.sharpen);
+    }
+
+    /**
+     * Returns the working copy for drafts, creating it on first use. Must hold the lock.
+     */
+    private Bitmap ensureDraftSource() {
+        if (draftSource != null && !draftSource.isRecycled()) {
+            return draftSource;
+        }
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int longSide = Math.max(width, height);
+        if (longSide <= draftMaxSide) {
+            draftSource = source;
+        } else {
+            float scale = (float) draftMaxSide / longSide;
+            draftSource = Bitmap.createScaledBitmap(source,
+                    Math.max(1, Math.round(width * scale)),
+                    Math.max(1, Math.round(height * scale)), true);
+        }
+        return draftSource;
+    }
+
+    private boolean isReleased() {
+        synchronized (lock) {
+            return released;
+        }
+    }
+
+    private void cancelInFlight() {
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+    }
+
+    private void execute(Runnable task) {
+        if (!executor.isShutdown()) {
+            executor.execute(task);
+        }
+    }
+
+    private static void recycle(@Nullable Bitmap bitmap, @Nullable Bitmap keep) {
+        if (bitmap != keep) {
+            BitmapPool.get().release(bitmap);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.faisal.protoolkit.util;
+
+import android.graphics.Bitmap;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A running multi-page render started by {@code RenderEngine.renderToFileBatch}.
+ *
+ * Pages are rendered concurrently on the shared {@link RenderScheduler}, but a page is only
+ * admitted while the estimated bytes of all pages in flight fit the batch's memory budget
+ * (one page is always admitted, so an oversized page still renders, alone). If the render
+ * queue is full, admission is retried shortly. Callbacks arrive on render threads;
+ * {@link RenderEngine.BatchCallback#onBatchComplete} is delivered exactly once, after every
+ * other callback.
+ */
+public final class RenderBatch {
+    private static final String TAG = "RenderBatch";
+    private static final long RETRY_DELAY_MS = 250;
+
+    /**
+     * Renders one page of the batch; supplied by {@link RenderEngine}.
+     */
+    interface PageRenderer {
+        /** Estimated peak heap bytes of rendering {@code pageIndex}. May do disk I/O. */
+        long estimateBytes(int pageIndex);
+
+        /** Renders {@code pageIndex}; may return null when the output went to a file. */
+        @Nullable
+        Bitmap render(int pageIndex, @NonNull CancellationSignal signal) throws Exception;
+    }
+
+    private final Executor executor;
+    private final int fromPage;
+    private final int toPage;
+    private final int maxInFlight;
+    private final long budgetBytes;
+    private final PageRenderer renderer;
+    private final RenderEngine.BatchCallback callback;
+    private final long[] estimates;
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private final Object lock = new Object();
+    // Guarded by lock
+    private final Map<Integer, CancellationSignal> signals = new HashMap<>();
+    private int nextPage;
+    private int inFlight;
+    private long reservedBytes;
+    private int completed;
+    private boolean admitting;
+    private boolean canceled;
+    private boolean finished;
+
+    RenderBatch(@NonNull Executor executor, int fromPage, int toPage, int maxInFlight, long budgetBytes,
+                @NonNull PageRenderer renderer, @NonNull RenderEngine.BatchCallback callback) {
+        this.executor = executor;
+        this.fromPage = fromPage;
+        this.toPage = Math.max(fromPage, toPage);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.budgetBytes = budgetBytes;
+        this.renderer = renderer;
+        this.callback = callback;
+        this.estimates = new long[this.toPage - fromPage];
+        this.nextPage = fromPage;
+    }
+
+    void start() {
+        executor.execute(() -> {
+            // Size every page up front (header reads only) so admission never blocks on I/O
+            for (int page = fromPage; page < toPage && !isCanceled(); page++) {
+                estimates[page - fromPage] = renderer.estimateBytes(page);
+            }
+            synchronized (lock) {
+                admitting = true;
+            }
+            admit();
+            finishIfDone();
+        });
+    }
+
+    /**
+     * Cancels the batch: pages not yet started are skipped, pages in flight stop at their
+     * next stage boundary and no further page callbacks are delivered.
+     */
+    public void cancel() {
+        List<CancellationSignal> running;
+        synchronized (lock) {
+            if (canceled || finished) {
+                return;
+            }
+            canceled = true;
+            running = new ArrayList<>(signals.values());
+        }
+        for (CancellationSignal signal : running) {
+            signal.cancel();
+        }
+        finishIfDone();
+    }
+
+    public boolean isCanceled() {
+        synchronized (lock) {
+            return canceled;
+        }
+    }
+
+    public int getTotal() {
+        return toPage - fromPage;
+    }
+
+    /** Pages rendered or failed so far. */
+    public int getCompleted() {
+        synchronized (lock) {
+            return completed;
+        }
+    }
+
+    /**
+     * Blocks until the batch has finished or been cancelled. Returns false on timeout.
+     */
+    public boolean await(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    /**
+     * Starts as many waiting pages as the budget and concurrency limit allow.
+     */
+    private void admit() {
+        List<Integer> admitted = new ArrayList<>();
+        synchronized (lock) {
+            while (admitting && !canceled && nextPage < toPage && inFlight < maxInFlight) {
+                long bytes = estimates[nextPage - fromPage];
+                if (inFlight > 0 && reservedBytes + bytes > budgetBytes) {
+                    break;
+                }
+                reservedBytes += bytes;
+                inFlight++;
+                signals.put(nextPage, new CancellationSignal());
+                admitted.add(nextPage++);
+            }
+        }
+        for (int i = 0; i < admitted.size(); i++) {
+            int page = admitted.get(i);
+            try {
+                executor.execute(() -> renderPage(page));
+            } catch (RejectedExecutionException e) {
+                // The render queue is full: hand this and the later pages back and retry soon
+                synchronized (lock) {
+                    for (int j = i; j < admitted.size(); j++) {
+                        int unstarted = admitted.get(j);
+                        signals.remove(unstarted);
+                        inFlight--;
+                        reservedBytes -= estimates[unstarted - fromPage];
+                    }
+                    nextPage = page;
+                }
+                AppExecutors.scheduler().schedule(this::admit, RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+    }
+
+    private void renderPage(int page) {
+        CancellationSignal signal;
+        synchronized (lock) {
+            signal = signals.get(page);
+        }
+        Bitmap bitmap = null;
+        Exception error = null;
+        try {
+            signal.throwIfCanceled();
+            bitmap = renderer.render(page, signal);
+        } catch (OperationCanceledException e) {
+            // Only the batch cancels page signals; reported via onBatchComplete
+        } catch (Exception e) {
+            Log.e(TAG, "Batch render failed for page " + page, e);
+            error = e;
+        }
+
+        int progress = -1;
+        synchronized (lock) {
+            signals.remove(page);
+            if (!canceled) {
+                progress = ++completed;
+            }
+        }
+        if (progress < 0) {
+            BitmapPool.get().release(bitmap);
+        } else {
+            if (error != null) {
+                callback.onPageFailed(page, error);
+            } else {
+                callback.onPageRendered(page, bitmap);
+            }
+            callback.onProgress(progress, getTotal());
+        }
+
+        // Release the reservation only after the callback, which may still hold the bitmap
+        synchronized (lock) {
+            inFlight--;
+            reservedBytes -= estimates[page - fromPage];
+        }
+        admit();
+        finishIfDone();
+    }
+
+    private void finishIfDone() {
+        boolean wasCanceled;
+        synchronized (lock) {
+            if (finished || inFlight > 0 || !(canceled || (admitting && nextPage >= toPage))) {
+                return;
+            }
+            finished = true;
+            wasCanceled = canceled;
+        }
+        callback.onBatchComplete(wasCanceled);
+        done.countDown();
+    }
+}
@@ -0,0 +1,248 @@
+package com.faisal.protoolkit.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Disk cache of rendered page previews under {@link FileManager#getCacheDir()}.
+ *
+ * Each page keeps a small pyramid of preview levels ({@link #LEVELS} px wide), keyed by
+ * page id plus {@link EditOpsUtil#stableHash} of its edit ops, so a preview is reused
+ * until the edits change and follows the page through reorders. Entries are evicted
+ * least-recently-used once the byte budget is exceeded.
+ */
+public final class RenderCache {
+    private static final String TAG = "RenderCache";
+
+    /** Preview widths kept per page, smallest first. */
+    public static final int[] LEVELS = {256, 512, 1024};
+    public static final long DEFAULT_BUDGET_BYTES = 64L * 1024 * 1024; // 64MB
+
+    private static final String RENDER_SUBDIR = "render";
+    private static final String EXTENSION = ".jpg";
+    private static final int JPEG_QUALITY = 90;
+
+    private static volatile RenderCache INSTANCE;
+
+    private final File dir;
+    private final long budgetBytes;
+    // File name -> size in bytes, in access order (eldest first)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    private boolean indexed;
+
+    public static RenderCache getInstance(@NonNull Context context) {
+        if (INSTANCE == null) {
+            synchronized (RenderCache.class) {
+                if (INSTANCE == null) {
+                    FileManager fileManager = new FileManager(context.getApplicationContext());
+                    INSTANCE = new RenderCache(new File(fileManager.getCacheDir(), RENDER_SUBDIR),
+                            DEFAULT_BUDGET_BYTES);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    RenderCache(@NonNull File dir, long budgetBytes) {
+        this.dir = dir;
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Returns the smallest level that is at least {@code targetWidthPx} wide, or -1 if the
+     * request is larger than the largest level and should bypass the cache.
+     */
+    public static int levelFor(int targetWidthPx) {
+        for (int level : LEVELS) {
+            if (targetWidthPx <= level) {
+                return level;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the cached file for this exact level, or null. Marks the entry as used.
+     */
+    @Nullable
+    public synchronized File lookup(@NonNull String pageId, @NonNull String editHash, int level) {
+        ensureIndexed();
+        String name = fileName(pageId, editHash, level);
+        if (entries.get(name) == null) {
+            return null;
+        }
+        File file = new File(dir, name);
+        if (!file.exists()) {
+            remove(name);
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Decodes the cached preview for this exact level, or returns null on a miss.
+     */
+    @Nullable
+    public Bitmap get(@NonNull String pageId, @NonNull String editHash, int level) {
+        File file = lookup(pageId, editHash, level);
+        return file != null ? BitmapFactory.decodeFile(file.getAbsolutePath()) : null;
+    }
+
+    /**
+     * Decodes the smallest cached level larger than {@code level} for the same edits, so
+     * a smaller level can be derived by downscaling instead of re-rendering.
+     */
+    @Nullable
+    public Bitmap getLarger(@NonNull String pageId, @NonNull String editHash, int level) {
+        for (int candidate : LEVELS) {
+            if (candidate > level) {
+                Bitmap bitmap = get(pageId, editHash, candidate);
+                if (bitmap != null) {
+                    return bitmap;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores a preview level. Previews of the same page with different edits are dropped,
+     * since only the current edit state is ever requested again.
+     */
+    public synchronized void put(@NonNull String pageId, @NonNull String editHash, int level,
+                                 @NonNull Bitmap bitmap) {
+        ensureIndexed();
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.w(TAG, "Failed to create cache dir " + dir.getAbsolutePath());
+            return;
+        }
+
+        String name = fileName(pageId, editHash, level);
+        File target = new File(dir, name);
+        File temp = new File(dir, name + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write preview " + name, e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            return;
+        }
+
+        removeStale(pageId, editHash);
+        remove(name);
+        long size = target.length();
+        entries.put(name, size);
+        totalBytes += size;
+        trimToBudget();
+    }
+
+    /**
+     * Drops every cached level of a page, e.g. when it is deleted.
+     */
+    public synchronized void invalidate(@NonNull String pageId) {
+        ensureIndexed();
+        String prefix = pageId + "_";
+        List<String> names = new ArrayList<>();
+        for (String name : entries.keySet()) {
+            if (name.startsWith(prefix)) {
+                names.add(name);
+            }
+        }
+        for (String name : names) {
+            deleteEntry(name);
+        }
+    }
+
+    public synchronized long getTotalBytes() {
+        ensureIndexed();
+        return totalBytes;
+    }
+
+    private void removeStale(String pageId, String editHash) {
+        String prefix = pageId + "_";
+        String current = prefix + editHash + "_";
+        List<String> stale = new ArrayList<>();
+        for (String name : entries.keySet()) {
+            if (name.startsWith(prefix) && !name.startsWith(current)) {
+                stale.add(name);
+            }
+        }
+        for (String name : stale) {
+            deleteEntry(name);
+        }
+    }
+
+    private void trimToBudget() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > budgetBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            totalBytes -= eldest.getValue();
+            new File(dir, eldest.getKey()).delete();
+            it.remove();
+        }
+    }
+
+    private void deleteEntry(String name) {
+        remove(name);
+        new File(dir, name).delete();
+    }
+
+    private void remove(String name) {
+        Long size = entries.remove(name);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    /**
+     * Builds the in-memory LRU index from the directory once, oldest files first.
+     */
+    private void ensureIndexed() {
+        if (indexed) {
+            return;
+        }
+        indexed = true;
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (f1, f2) -> Long.compare(f1.lastModified(), f2.lastModified()));
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.endsWith(EXTENSION)) {
+                // Leftover temp file from an interrupted write
+                file.delete();
+                continue;
+            }
+            long size = file.length();
+            entries.put(name, size);
+            totalBytes += size;
+        }
+        trimToBudget();
+    }
+
+    private static String fileName(String pageId, String editHash, int level) {
+        return pageId + "_" + editHash + "_" + level + EXTENSION;
+    }
+}
@@ -4,27 +4,55 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Matrix;
+import android.os.Build;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import com.faisal.protoolkit.data.entities.PageEntity;
+import com.faisal.protoolkit.imaging.DeskewEstimator;
+import com.faisal.protoolkit.imaging.PerspectiveWarp;
+import com.faisal.protoolkit.imaging.PixelOps;
+import com.faisal.protoolkit.imaging.PixelPlane;
 import com.faisal.protoolkit.model.EditOps;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.io.OutputStream;
+import java.util.concurrent.RejectedExecutionException;
 
 public class RenderEngine {
     private static final String TAG = "RenderEngine";
+    // Decoded page + rotated copy + filtered copy held by the full-bitmap path
+    private static final int FULL_RENDER_COPIES = 3;
+    // Output pixels warped per chunk before being copied into the result bitmap
+    private static final int WARP_CHUNK_PIXELS = 1024 * 1024;
+    // Strip buffers held by one tiled render (strip, rotated tile, stage rows, encoder)
+    private static final long TILED_RENDER_BYTES = TiledRenderer.DEFAULT_TILE_PIXELS * 4L * 4L;
+    // Thumbnails and list previews are small and viewed scaled down; lossy WebP at this
+    // quality is a fraction of the JPEG size with no visible difference
+    private static final int THUMBNAIL_WEBP_QUALITY = 80;
+    // Estimated skew smaller than this is within the estimator's noise and not visible on
+    // the page; it is stored as 0 so the page keeps counting as unedited
+    private static final float MIN_AUTO_DESKEW_DEGREES = 0.4f;
     private final FileManager fileManager;
-    private final ExecutorService executor;
+    private final RenderScheduler scheduler;
+    private final TiledRenderer tiledRenderer;
+    private final RenderCache renderCache;
+    private final PageAssetIndex assetIndex;
     
     public RenderEngine(Context context) {
         this.fileManager = new FileManager(context);
-        this.executor = Executors.newFixedThreadPool(4); // Adjust based on device cores
+        this.scheduler = RenderScheduler.get(context);
+        this.tiledRenderer = new TiledRenderer();
+        this.renderCache = RenderCache.getInstance(context);
+        this.assetIndex = PageAssetIndex.getInstance(context);
     }
     
     /**
@@ -32,7 +60,7 @@ public class RenderEngine {
      */
     public void renderPreview(@NonNull String documentId, int pageIndex, int targetWidthPx, 
                              @NonNull RenderCallback callback) {
-        executor.execute(() -> {
+        submit(RenderScheduler.Priority.INTERACTIVE, callback, () -> {
             try {
                 Bitmap bitmap = renderPreviewInternal(documentId, pageIndex, targetWidthPx);
                 callback.onRenderComplete(bitmap);
@@ -43,14 +71,49 @@ public class RenderEngine {
         });
     }
     
+    /**
+     * Renders a preview for a stored page at target width, served from the render cache
+     * whenever the page's current edits have been rendered before.
+     */
+    public void renderPreview(@NonNull PageEntity page, int targetWidthPx, @NonNull RenderCallback callback) {
+        submit(RenderScheduler.Priority.INTERACTIVE, callback, () -> {
+            try {
+                EditOps editOps = EditOpsUtil.deserialize(page.edit_ops_json);
+                File originalFile = new File(page.uri_original);
+                Bitmap bitmap = renderPreviewCached(page.id, originalFile, page.width, page.height,
+                        editOps, targetWidthPx);
+                callback.onRenderComplete(bitmap);
+            } catch (Exception e) {
+                Log.e(TAG, "Error rendering preview for page " + page.id, e);
+                callback.onRenderError(e);
+            }
+        });
+    }
+    
+    /**
+     * Returns the cached preview file for the page's current edits at the level serving
+     * {@code targetWidthPx}, or null if it has not been rendered yet. Does disk I/O.
+     */
+    @Nullable
+    public File getCachedPreview(@NonNull PageEntity page, int targetWidthPx) {
+        int level = RenderCache.levelFor(targetWidthPx);
+        if (level < 0) {
+            return null;
+        }
+        String editHash = EditOpsUtil.stableHash(EditOpsUtil.deserialize(page.edit_ops_json));
+        return renderCache.lookup(page.id, editHash, level);
+    }
+    
     /**
      * Renders the final output for export
      */
     public void renderFinal(@NonNull String documentId, int pageIndex, int quality0to100, 
                            @NonNull RenderCallback callback) {
-        executor.execute(() -> {
+        submit(RenderScheduler.Priority.BACKGROUND, callback, () -> {
             try {
-                Bitmap bitmap = renderFinalInternal(documentId, pageIndex, quality0to100);
+                RenderTrace trace = RenderTrace.begin();
+                Bitmap bitmap = renderFinalInternal(documentId, pageIndex, quality0to100, trace, null);
+                trace.finish();
                 callback.onRenderComplete(bitmap);
             } catch (Exception e) {
                 Log.e(TAG, "Error rendering final for doc " + documentId + " page " + pageIndex, e);
@@ -63,216 +126,536 @@ public class RenderEngine {
      * Renders and saves the final output to the render file
      */
     public void renderAndSave(@NonNull String documentId, int pageIndex, int quality0to100) {
-        executor.execute(() -> {
-            try {
-                Bitmap bitmap = renderFinalInternal(documentId, pageIndex, quality0to100);
-                if (bitmap != null) {
-                    File renderFile = fileManager.getRenderedImageFile(documentId, pageIndex);
-                    saveBitmapToFile(bitmap, renderFile, quality0to100);
-                    bitmap.recycle();
+        try {
+            scheduler.execute(RenderScheduler.Priority.BACKGROUND, () -> {
+                try {
+                    renderAndSaveInternal(documentId, pageIndex, quality0to100, null);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error rendering and saving for doc " + documentId + " page " + pageIndex, e);
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "Error rendering and saving for doc " + documentId + " page " + pageIndex, e);
+            });
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Render queue full, skipped saving doc " + documentId + " page " + pageIndex);
+        }
+    }
+    
+    /**
+     * Queues a single-page render, reporting a full queue to {@code callback} as an error.
+     */
+    private void submit(RenderScheduler.Priority priority, RenderCallback callback, Runnable task) {
+        try {
+            scheduler.execute(priority, task);
+        } catch (RejectedExecutionException e) {
+            callback.onRenderError(e);
+        }
+    }
+    
+    /**
+     * Renders pages {@code [fromPage, toPage)} concurrently into the files {@code target}
+     * names, each as {@link #renderToFile(String, int, int, int, int, File, CancellationSignal)}
+     * does; pages it names no file for are skipped. {@link BatchCallback#onPageRendered} gets
+     * a null bitmap.
+     */
+    @NonNull
+    public RenderBatch renderToFileBatch(@NonNull String documentId, int fromPage, int toPage,
+                                         int maxWidthPx, int maxHeightPx, int quality0to100,
+                                         @NonNull PageTarget target, @NonNull BatchCallback callback) {
+        return startBatch(fromPage, toPage, callback, new RenderBatch.PageRenderer() {
+            @Override
+            public long estimateBytes(int pageIndex) {
+                PageAssetIndex.PageAssets page = assetsOrNull(documentId, pageIndex);
+                if (page == null || target.fileFor(pageIndex) == null) {
+                    return 0L;
+                }
+                EditOps editOps = page.editOps;
+                int decodeWidth = fittedDecodeWidth(page, editOps, maxWidthPx, maxHeightPx);
+                if (decodeWidth == 0) {
+                    return shouldRenderTiled(page) ? TILED_RENDER_BYTES : fullRenderBytes(page);
+                }
+                int rotatedWidth = editOps != null && (editOps.rotate == 90 || editOps.rotate == 270)
+                        ? page.height : page.width;
+                double scale = (double) decodeWidth / Math.max(1, rotatedWidth);
+                return (long) (fullRenderBytes(page) * scale * scale);
+            }
+
+            @Override
+            public Bitmap render(int pageIndex, @NonNull CancellationSignal signal) throws Exception {
+                File file = target.fileFor(pageIndex);
+                if (file != null) {
+                    renderToFile(documentId, pageIndex, maxWidthPx, maxHeightPx, quality0to100, file, signal);
+                }
+                return null;
             }
         });
     }
     
+    /**
+     * Starts a background batch on the shared render pool whose pages in flight share half
+     * of the heap that is free right now. Throws {@link RejectedExecutionException} if the
+     * render queue is full.
+     */
+    private RenderBatch startBatch(int fromPage, int toPage, BatchCallback callback,
+                                   RenderBatch.PageRenderer renderer) {
+        RenderBatch batch = new RenderBatch(scheduler.executor(RenderScheduler.Priority.BACKGROUND),
+                fromPage, toPage, scheduler.getParallelism(), heapHeadroom() / 2, renderer, callback);
+        batch.start();
+        return batch;
+    }
+    
+    /**
+     * Blocking body of {@link #renderAndSave}: the tiled path for pages too large for the
+     * heap, otherwise a full render encoded in one go.
+     */
+    private void renderAndSaveInternal(@NonNull String documentId, int pageIndex, int quality0to100,
+                                       @Nullable CancellationSignal signal) throws IOException {
+        renderToFile(documentId, pageIndex, quality0to100, assetIndex.getPage(documentId, pageIndex).renderFile,
+                signal);
+    }
+    
+    /**
+     * Renders the final output of a page as a JPEG into {@code renderFile}, in bounded-memory
+     * strips when the page is too large for the heap. Blocks; call off the main thread.
+     */
+    public void renderToFile(@NonNull String documentId, int pageIndex, int quality0to100,
+                             @NonNull File renderFile, @Nullable CancellationSignal signal) throws IOException {
+        PageAssetIndex.PageAssets page = assetIndex.getPage(documentId, pageIndex);
+        RenderTrace trace = RenderTrace.begin();
+        if (shouldRenderTiled(page)) {
+            // Large page for the available heap: stream strips straight into the JPEG
+            ensureParentDir(renderFile);
+            long start = trace.start();
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(renderFile))) {
+                tiledRenderer.render(page.originalFile, page.editOps, TiledRenderer.jpegSink(out, quality0to100),
+                        signal);
+            }
+            // Decode, edits and encode interleave per strip; no full bitmap is held
+            trace.end(RenderTrace.Stage.TILED, start, 0L, 0L);
+            trace.finish();
+            return;
+        }
+        Bitmap bitmap = renderFinalInternal(page, trace, signal);
+        if (bitmap != null) {
+            long start = trace.start();
+            saveBitmapToFile(bitmap, renderFile, quality0to100);
+            trace.end(RenderTrace.Stage.ENCODE, start, bitmap, bitmap);
+            BitmapPool.get().release(bitmap);
+        }
+        trace.finish();
+    }
+    
+    /**
+     * Renders the final output of a page as a JPEG into {@code renderFile}, scaled down so it
+     * fits {@code maxWidthPx} x {@code maxHeightPx}, e.g. a PDF page at its export DPI. The
+     * original is decoded straight at the size that output needs; a page whose output
+     * already fits renders as {@link #renderToFile(String, int, int, File, CancellationSignal)}
+     * does. Blocks; call off the main thread.
+     */
+    public void renderToFile(@NonNull String documentId, int pageIndex, int maxWidthPx, int maxHeightPx,
+                             int quality0to100, @NonNull File renderFile, @Nullable CancellationSignal signal)
+            throws IOException {
+        PageAssetIndex.PageAssets page = assetIndex.getPage(documentId, pageIndex);
+        EditOps editOps = page.editOps;
+        int decodeWidth = fittedDecodeWidth(page, editOps, maxWidthPx, maxHeightPx);
+        if (decodeWidth == 0) {
+            renderToFile(documentId, pageIndex, quality0to100, renderFile, signal);
+            return;
+        }
+        throwIfCanceled(signal);
+        RenderTrace trace = RenderTrace.begin();
+        Bitmap bitmap = decodeForWidth(page.originalFile, page.width, page.height, editOps, decodeWidth, trace);
+        // Releases the decode itself if a stage is cancelled or fails
+        bitmap = applyEditOps(bitmap, editOps, signal, trace);
+        try {
+            long start = trace.start();
+            saveBitmapToFile(bitmap, renderFile, quality0to100);
+            trace.end(RenderTrace.Stage.ENCODE, start, bitmap, bitmap);
+        } finally {
+            BitmapPool.get().release(bitmap);
+            trace.finish();
+        }
+    }
+    
+    /**
+     * Width {@link #renderToFile(String, int, int, int, int, File, CancellationSignal)}
+     * decodes {@code page} at, or 0 if it renders the page unscaled: when the output already
+     * fits, or when even the scaled render is too large for the heap.
+     */
+    private static int fittedDecodeWidth(@NonNull PageAssetIndex.PageAssets page, @Nullable EditOps editOps,
+                                         int maxWidthPx, int maxHeightPx) {
+        int decodeWidth = decodeWidthToFit(page.width, page.height, editOps, maxWidthPx, maxHeightPx);
+        int rotatedWidth = editOps != null && (editOps.rotate == 90 || editOps.rotate == 270)
+                ? page.height : page.width;
+        double scale = (double) decodeWidth / Math.max(1, rotatedWidth);
+        if (decodeWidth >= rotatedWidth || exceedsHeap((long) (fullRenderBytes(page) * scale * scale))) {
+            return 0;
+        }
+        return decodeWidth;
+    }
+    
+    /**
+     * Width to decode a {@code width} x {@code height} original at, measured after
+     * {@code editOps}' rotation, so that its edited output is no larger than
+     * {@code maxWidthPx} x {@code maxHeightPx}. The crop's bounding box sets the output's
+     * share of the original, so a cropped page still gets the full resolution of the box.
+     */
+    static int decodeWidthToFit(int width, int height, @Nullable EditOps editOps, int maxWidthPx, int maxHeightPx) {
+        float cropWidth = 1f;
+        float cropHeight = 1f;
+        if (editOps != null && editOps.hasCrop()) {
+            float minX = 1f, maxX = 0f, minY = 1f, maxY = 0f;
+            for (float[] corner : editOps.crop) {
+                minX = Math.min(minX, corner[0]);
+                maxX = Math.max(maxX, corner[0]);
+                minY = Math.min(minY, corner[1]);
+                maxY = Math.max(maxY, corner[1]);
+            }
+            cropWidth = Math.max(0.01f, Math.min(1f, maxX - minX));
+            cropHeight = Math.max(0.01f, Math.min(1f, maxY - minY));
+        }
+        boolean swapped = editOps != null && (editOps.rotate == 90 || editOps.rotate == 270);
+        int rotatedWidth = swapped ? height : width;
+        double outWidth = swapped ? height * cropHeight : width * cropWidth;
+        double outHeight = swapped ? width * cropWidth : height * cropHeight;
+        double scale = Math.min(1.0, Math.min(maxWidthPx / outWidth, maxHeightPx / outHeight));
+        return Math.max(1, (int) Math.ceil(rotatedWidth * scale));
+    }
+    
+    /**
+     * Returns true if fully decoding {@code page} (plus one working copy per stage) would
+     * not comfortably fit in the remaining heap.
+     */
+    private static boolean shouldRenderTiled(@NonNull PageAssetIndex.PageAssets page) {
+        return exceedsHeap(fullRenderBytes(page));
+    }
+    
+    private static boolean exceedsHeap(long renderBytes) {
+        return renderBytes > 0 && renderBytes > heapHeadroom() / 2;
+    }
+    
+    /**
+     * Peak bytes of a full-bitmap render of {@code page}.
+     */
+    private static long fullRenderBytes(@NonNull PageAssetIndex.PageAssets page) {
+        return (long) page.width * page.height * 4L * FULL_RENDER_COPIES;
+    }
+    
+    @Nullable
+    private PageAssetIndex.PageAssets assetsOrNull(@NonNull String documentId, int pageIndex) {
+        return assetIndex.getDocument(documentId).get(pageIndex);
+    }
+    
+    private static BitmapFactory.Options decodeBounds(@NonNull File file) {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), bounds);
+        return bounds;
+    }
+    
+    private static long heapHeadroom() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    }
+    
     private Bitmap renderPreviewInternal(@NonNull String documentId, int pageIndex, int targetWidthPx) throws IOException {
-        File originalFile = fileManager.getOriginalImageFile(documentId, pageIndex);
-        if (!originalFile.exists()) {
-            throw new IOException("Original file does not exist: " + originalFile.getAbsolutePath());
+        PageAssetIndex.PageAssets page = assetIndex.getPage(documentId, pageIndex);
+        return renderPreviewCached(page.pageId, page.originalFile,
+                page.width, page.height, page.editOps, targetWidthPx);
+    }
+    
+    /**
+     * Serves a preview from the render cache when possible. A miss at one level is filled
+     * from a larger cached level by downscaling, and only falls back to decode-and-filter
+     * when no level for the current edits exists.
+     */
+    private Bitmap renderPreviewCached(@NonNull String pageId, @NonNull File originalFile, int sourceWidth,
+                                       int sourceHeight, EditOps editOps, int targetWidthPx) throws IOException {
+        int level = RenderCache.levelFor(targetWidthPx);
+        if (level < 0) {
+            return renderPreviewUncached(originalFile, sourceWidth, sourceHeight, editOps, targetWidthPx);
         }
         
-        // Load bitmap with appropriate sample size to avoid OOM
-        BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inJustDecodeBounds = true;
-        BitmapFactory.decodeFile(originalFile.getAbsolutePath(), options);
-        
-        // Calculate inSampleSize
-        options.inSampleSize = calculateInSampleSize(options, targetWidthPx, 0);
-        options.inJustDecodeBounds = false;
+        String editHash = EditOpsUtil.stableHash(editOps);
+        Bitmap cached = renderCache.get(pageId, editHash, level);
+        if (cached != null) {
+            return cached;
+        }
         
-        Bitmap bitmap = BitmapFactory.decodeFile(originalFile.getAbsolutePath(), options);
+        Bitmap bitmap = renderCache.getLarger(pageId, editHash, level);
         if (bitmap == null) {
-            throw new IOException("Failed to decode bitmap: " + originalFile.getAbsolutePath());
+            bitmap = renderPreviewUncached(originalFile, sourceWidth, sourceHeight, editOps, level);
         }
-        
-        // Load edit operations
-        EditOps editOps = loadEditOps(documentId, pageIndex);
+        bitmap = replaceBitmap(bitmap, scaleToWidth(bitmap, level));
+        renderCache.put(pageId, editHash, level, bitmap);
+        return bitmap;
+    }
+    
+    /**
+     * Renders {@code editOps} over {@code originalFile} at {@code targetWidthPx}, decoding the
+     * original straight at that width. Blocks and bypasses the render cache, for callers that
+     * cache the result themselves, such as {@link PageThumbnailLoader}. {@code sourceWidth}
+     * and {@code sourceHeight} are the original's size if known, else 0. A pending automatic
+     * deskew is not estimated here: the page renders straight until the editor persists the
+     * angle, which changes the edits and so the caller's cache key.
+     */
+    public Bitmap renderThumbnail(@NonNull File originalFile, int sourceWidth, int sourceHeight,
+                                  @Nullable EditOps editOps, int targetWidthPx) throws IOException {
+        return renderPreviewUncached(originalFile, sourceWidth, sourceHeight, editOps, targetWidthPx);
+    }
+    
+    private Bitmap renderPreviewUncached(@NonNull File originalFile, int sourceWidth, int sourceHeight,
+                                         EditOps editOps, int targetWidthPx) throws IOException {
+        RenderTrace trace = RenderTrace.begin();
+        Bitmap bitmap = decodeForWidth(originalFile, sourceWidth, sourceHeight, editOps, targetWidthPx, trace);
         
         // Apply edits
-        bitmap = applyEditOps(bitmap, editOps, false); // Preview quality is lower
+        bitmap = applyEditOps(bitmap, editOps, null, trace);
+        trace.finish();
         
         return bitmap;
     }
     
-    private Bitmap renderFinalInternal(@NonNull String documentId, int pageIndex, int quality0to100) throws IOException {
-        File originalFile = fileManager.getOriginalImageFile(documentId, pageIndex);
-        if (!originalFile.exists()) {
-            throw new IOException("Original file does not exist: " + originalFile.getAbsolutePath());
+    /**
+     * Renders a small edited image of a page into {@code target} as WebP, for list thumbnails
+     * and previews. Edits run at the output size on a decode that was already shrunk to it,
+     * so the full-size page is never in memory. The file is replaced atomically. Blocks; call
+     * off the main thread.
+     */
+    public void renderThumbnailToFile(@NonNull PageEntity page, int targetWidthPx, @NonNull File target)
+            throws IOException {
+        EditOps editOps = EditOpsUtil.deserialize(page.edit_ops_json);
+        File originalFile = new File(page.uri_original);
+        RenderTrace trace = RenderTrace.begin();
+        Bitmap bitmap = decodeForWidth(originalFile, page.width, page.height, editOps, targetWidthPx, trace);
+        bitmap = applyEditOps(bitmap, editOps, null, trace);
+        try {
+            ensureParentDir(target);
+            File part = new File(target.getPath() + ".part");
+            long start = trace.start();
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(part))) {
+                bitmap.compress(webpFormat(), THUMBNAIL_WEBP_QUALITY, out);
+            }
+            trace.end(RenderTrace.Stage.ENCODE, start, bitmap, bitmap);
+            if (!part.renameTo(target)) {
+                part.delete();
+                throw new IOException("Failed to write thumbnail: " + target.getAbsolutePath());
+            }
+        } finally {
+            BitmapPool.get().release(bitmap);
+            trace.finish();
+        }
+    }
+    
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webpFormat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+    
+    /**
+     * Decodes {@code originalFile} so that the side which becomes the output width after
+     * {@code editOps}' rotation is at most {@code targetWidthPx}. The decoder subsamples by a
+     * power of two and then scales the rest of the way (inDensity/inTargetDensity), so only
+     * the target-size bitmap is ever allocated. The original's header is only read when its
+     * size isn't passed in.
+     */
+    private static Bitmap decodeForWidth(@NonNull File originalFile, int width, int height, EditOps editOps,
+                                         int targetWidthPx, RenderTrace trace) throws IOException {
+        if (width <= 0 || height <= 0) {
+            BitmapFactory.Options bounds = decodeBounds(originalFile);
+            width = bounds.outWidth;
+            height = bounds.outHeight;
         }
+        boolean swapped = editOps != null && (editOps.rotate == 90 || editOps.rotate == 270);
+        int sourceWidth = swapped ? height : width;
         
-        Bitmap bitmap = BitmapFactory.decodeFile(originalFile.getAbsolutePath());
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        if (sourceWidth > targetWidthPx && targetWidthPx > 0) {
+            int sampleSize = 1;
+            while (sourceWidth / (sampleSize * 2) >= targetWidthPx) {
+                sampleSize *= 2;
+            }
+            options.inSampleSize = sampleSize;
+            int sampledWidth = sourceWidth / sampleSize;
+            if (sampledWidth > targetWidthPx) {
+                options.inScaled = true;
+                options.inDensity = sampledWidth;
+                options.inTargetDensity = targetWidthPx;
+            }
+        }
+        
+        long start = trace.start();
+        Bitmap bitmap = BitmapFactory.decodeFile(originalFile.getAbsolutePath(), options);
         if (bitmap == null) {
             throw new IOException("Failed to decode bitmap: " + originalFile.getAbsolutePath());
         }
-        
-        // Load edit operations
-        EditOps editOps = loadEditOps(documentId, pageIndex);
-        
-        // Apply edits
-        bitmap = applyEditOps(bitmap, editOps, true); // Final render with full quality
-        
+        trace.end(RenderTrace.Stage.DECODE, start, null, bitmap);
         return bitmap;
     }
     
-    private EditOps loadEditOps(@NonNull String documentId, int pageIndex) {
-        File editFile = fileManager.getEditOpsFile(documentId, pageIndex);
-        if (!editFile.exists()) {
-            return new EditOps(); // Return default if no edit file exists
+    private static Bitmap scaleToWidth(Bitmap bitmap, int width) {
+        if (bitmap.getWidth() <= width) {
+            return bitmap;
         }
-        
-        try {
-            String editJson = readTextFile(editFile);
-            return EditOpsUtil.deserialize(editJson);
-        } catch (Exception e) {
-            Log.e(TAG, "Error loading edit ops for doc " + documentId + " page " + pageIndex, e);
-            return new EditOps(); // Return default on error
+        int height = Math.max(1, Math.round(bitmap.getHeight() * (width / (float) bitmap.getWidth())));
+        return Bitmap.createScaledBitmap(bitmap, width, height, true);
+    }
+    
+    private Bitmap renderFinalInternal(@NonNull String documentId, int pageIndex, int quality0to100,
+                                       RenderTrace trace, @Nullable CancellationSignal signal) throws IOException {
+        return renderFinalInternal(assetIndex.getPage(documentId, pageIndex), trace, signal);
+    }
+    
+    private Bitmap renderFinalInternal(@NonNull PageAssetIndex.PageAssets page, RenderTrace trace,
+                                       @Nullable CancellationSignal signal) throws IOException {
+        long start = trace.start();
+        Bitmap bitmap = BitmapFactory.decodeFile(page.originalFile.getAbsolutePath());
+        if (bitmap == null) {
+            throw new IOException("Failed to decode bitmap: " + page.originalFile.getAbsolutePath());
         }
+        trace.end(RenderTrace.Stage.DECODE, start, null, bitmap);
+        
+        // Apply edits
+        bitmap = applyEditOps(bitmap, page.editOps, signal, trace);
+        
+        return bitmap;
     }
-
+    
     public Bitmap applyFilters(Bitmap originalBitmap, EditOps editOps) {
-        Log.d("RenderEngine", "applyFilters called");
-        if (originalBitmap == null) {
-            Log.d("RenderEngine", "  originalBitmap is null");
-            return null;
-        }
+        return applyFilters(originalBitmap, editOps, null);
+    }
 
-        if (originalBitmap.isRecycled()) {
-            Log.d("RenderEngine", "  originalBitmap is recycled");
+    /**
+     * Applies {@code editOps} to {@code originalBitmap}, which is left untouched, and returns
+     * a new bitmap the caller owns (and may hand back to the {@link BitmapPool}). If
+     * {@code signal} is cancelled the render stops at the next stage or band boundary and
+     * throws {@link OperationCanceledException}; intermediate bitmaps go back to the pool.
+     */
+    public Bitmap applyFilters(Bitmap originalBitmap, EditOps editOps, @Nullable CancellationSignal signal) {
+        if (originalBitmap == null || originalBitmap.isRecycled()) {
             return null;
         }
 
-        Log.d("RenderEngine", "  originalBitmap size: " + originalBitmap.getWidth() + "x" + originalBitmap.getHeight());
-
+        BitmapPool pool = BitmapPool.get();
         if (editOps == null) {
-            Log.d("RenderEngine", "  editOps is null, returning copy of original");
-            return originalBitmap.copy(originalBitmap.getConfig(), true);
+            return pool.copy(originalBitmap);
         }
 
-        // Clone the bitmap to avoid modifying the original
-        Bitmap bitmap = originalBitmap.copy(originalBitmap.getConfig(), true);
-        Log.d("RenderEngine", "  Created bitmap copy: " + bitmap.getWidth() + "x" + bitmap.getHeight());
+        throwIfCanceled(signal);
 
-        Bitmap result = bitmap; // Keep original reference to recycle later
+        Bitmap result;
+        RenderTrace trace = RenderTrace.begin();
 
         try {
-            // Apply rotation
-            if (editOps.rotate != 0) {
-                Log.d("RenderEngine", "  Applying rotation: " + editOps.rotate + " degrees");
-                result = rotateBitmap(result, editOps.rotate);
-                Log.d("RenderEngine", "  After rotation: " + result.getWidth() + "x" + result.getHeight());
-            }
-
-            // Apply filter operations
-            Log.d("RenderEngine", "  Applying filters");
-            if (editOps.filter != null) {
-                Log.d("RenderEngine", "    Filter mode: " + editOps.filter.mode);
-                Log.d("RenderEngine", "    Contrast: " + editOps.filter.contrast);
-                Log.d("RenderEngine", "    Brightness: " + editOps.filter.brightness);
-                Log.d("RenderEngine", "    Sharpen: " + editOps.filter.sharpen);
-            }
-            result = ImageFilters.applyFilter(result, editOps);
-            Log.d("RenderEngine", "  After applying filters: " + result.getWidth() + "x" + result.getHeight());
-
-            // Apply crop operations if available
-            if (editOps.hasCrop()) {
-                Log.d("RenderEngine", "  Applying crop");
-                result = cropBitmap(result, editOps);
-            }
-
+            // The first stage reads the original directly instead of a copy; it is never released
+            result = applyStages(originalBitmap, editOps, signal, trace, originalBitmap);
+        } catch (OperationCanceledException e) {
+            // A newer render superseded this one; the stages have released what they allocated
+            throw e;
         } catch (Exception e) {
-            e.printStackTrace();
-            // Return original bitmap if processing fails
-            // But first check if the original bitmap is still valid
-            if (result != bitmap) {
-                // If we created a new bitmap in processing, recycle it
-                try {
-                    if (result != null && !result.isRecycled()) {
-                        result.recycle();
-                    }
-                } catch (Exception recycleException) {
-                    // Ignore recycling exceptions
-                }
-            }
-
-            // Try to return a copy of the original bitmap if it's still valid
-            if (originalBitmap != null && !originalBitmap.isRecycled()) {
-                try {
-                    Log.d("RenderEngine", "  Returning copy of original bitmap due to exception");
-                    return originalBitmap.copy(originalBitmap.getConfig(), true);
-                } catch (Exception copyException) {
-                    // If copying fails, return null
-                    Log.d("RenderEngine", "  Failed to copy original bitmap: " + copyException.getMessage());
-                    return null;
-                }
-            } else {
-                // Original bitmap is invalid, return null
-                Log.d("RenderEngine", "  Original bitmap is invalid, returning null");
+            Log.e(TAG, "Error applying edits, falling back to the original", e);
+            try {
+                return pool.copy(originalBitmap);
+            } catch (Exception copyException) {
                 return null;
             }
         }
 
-        // If the result is not the original bitmap we copied, recycle the original copy
-        if (result != bitmap) {
-            try {
-                if (bitmap != null && !bitmap.isRecycled()) {
-                    bitmap.recycle();
-                }
-            } catch (Exception e) {
-                // Ignore recycling exceptions
-            }
+        if (result == originalBitmap) {
+            // No stage changed anything; the caller still gets its own bitmap
+            result = pool.copy(originalBitmap);
         }
-
-        Log.d("RenderEngine", "  Returning result bitmap: " + result.getWidth() + "x" + result.getHeight());
+        trace.finish();
         return result;
     }
     
-    private Bitmap applyEditOps(Bitmap bitmap, EditOps editOps, boolean isFinalRender) {
+    private Bitmap applyEditOps(Bitmap bitmap, EditOps editOps, @Nullable CancellationSignal signal,
+                                RenderTrace trace) {
         if (editOps == null) {
             return bitmap;
         }
-        
+        return applyStages(bitmap, editOps, signal, trace, null);
+    }
+    
+    /**
+     * The edit pipeline proper, each stage timed into {@code trace}: crop/warp, deskew and
+     * rotation first so later stages only see output pixels, then denoise so thresholds see
+     * the cleaned signal, then the fused filter pass. Each intermediate bitmap goes back to
+     * the {@link BitmapPool} as soon as the next stage has read it, also when a stage is
+     * cancelled or fails; {@code borrowed} belongs to the caller and is never released.
+     */
+    private Bitmap applyStages(Bitmap bitmap, @NonNull EditOps editOps, @Nullable CancellationSignal signal,
+                               RenderTrace trace, @Nullable Bitmap borrowed) {
         Bitmap result = bitmap;
-        
-        // Apply rotation
-        if (editOps.rotate != 0) {
-            result = rotateBitmap(result, editOps.rotate);
+        try {
+            long start = trace.start();
+            Bitmap next;
+            PerspectiveWarp warp = PerspectiveWarp.fromEditOps(editOps, result.getWidth(), result.getHeight());
+            if (warp != null) {
+                next = warpBitmap(result, warp, signal);
+                trace.end(RenderTrace.Stage.CROP, start, result, next);
+                result = replaceBitmap(result, next, borrowed);
+            } else if (editOps.rotate != 0) {
+                next = rotateBitmap(result, editOps.rotate);
+                trace.end(RenderTrace.Stage.ROTATE, start, result, next);
+                result = replaceBitmap(result, next, borrowed);
+            }
+
+            if (editOps.hasDenoise()) {
+                throwIfCanceled(signal);
+                start = trace.start();
+                next = ImageFilters.applyDenoise(result, editOps.denoise, signal);
+                trace.end(RenderTrace.Stage.DENOISE, start, result, next);
+                result = replaceBitmap(result, next, borrowed);
+            }
+            
+            throwIfCanceled(signal);
+            start = trace.start();
+            next = ImageFilters.applyFilter(result, editOps, signal);
+            trace.end(RenderTrace.Stage.FILTER, start, result, next);
+            return replaceBitmap(result, next, borrowed);
+        } catch (RuntimeException e) {
+            if (result != borrowed) {
+                BitmapPool.get().release(result);
+            }
+            throw e;
         }
-        
-        // Apply filter operations
-        result = ImageFilters.applyFilter(result, editOps);
-        
-        // TODO: Implement warp operation (requires OpenCV or custom implementation)
-        // For now, we'll skip warp in basic implementation
-        
-        // TODO: Implement crop operation
-        if (editOps.hasCrop()) {
-            result = cropBitmap(result, editOps);
+    }
+    
+    private static void throwIfCanceled(@Nullable CancellationSignal signal) {
+        if (signal != null) {
+            signal.throwIfCanceled();
         }
-        
-        // TODO: Implement deskew operation
-        // For now, we'll skip deskew in basic implementation
-        
-        // TODO: Implement denoise operation
-        // For now, we'll skip denoise in basic implementation
-        
-        return result;
+    }
+    
+    /**
+     * Releases {@code previous} to the {@link BitmapPool} once a stage has produced a new
+     * bitmap from it, so the pipeline never holds more than the input and output of one
+     * stage at a time.
+     */
+    private static Bitmap replaceBitmap(Bitmap previous, Bitmap next) {
+        return replaceBitmap(previous, next, null);
+    }
+    
+    private static Bitmap replaceBitmap(Bitmap previous, Bitmap next, @Nullable Bitmap borrowed) {
+        if (next != previous && previous != borrowed) {
+            BitmapPool.get().release(previous);
+        }
+        return next;
     }
     
     private Bitmap rotateBitmap(Bitmap bitmap, int degrees) {
         if (degrees == 0) return bitmap;
         
+        if (degrees % 90 == 0) {
+            try {
+                return BitmapPool.get().rotate(bitmap, PixelOps.normalizeRotation(degrees));
+            } catch (OutOfMemoryError e) {
+                Log.e(TAG, "Out of memory rotating page", e);
+                return bitmap;
+            }
+        }
+        
         Matrix matrix = new Matrix();
         matrix.postRotate(degrees);
         
@@ -287,71 +670,145 @@ public class RenderEngine {
         // Note: We don't recycle the original bitmap here because the caller is responsible for it
     }
     
-    private Bitmap cropBitmap(Bitmap bitmap, EditOps editOps) {
-        // Basic crop implementation - in a real app, you'd want to implement this properly
-        // based on the crop coordinates in editOps.crop
+    /**
+     * Inverse-maps {@code bitmap} through {@code warp}. Output rows are produced in chunks,
+     * each warped row-parallel into a reused buffer, so only one chunk of output pixels is
+     * held outside the result bitmap.
+     */
+    private Bitmap warpBitmap(Bitmap bitmap, PerspectiveWarp warp, @Nullable CancellationSignal signal) {
+        int srcWidth = bitmap.getWidth();
+        int srcHeight = bitmap.getHeight();
+        BitmapPool pool = BitmapPool.get();
+        int[] src = pool.obtainBuffer(srcWidth * srcHeight);
+        bitmap.getPixels(src, 0, srcWidth, 0, 0, srcWidth, srcHeight);
         
-        // For now, if we have crop points, we'll just return the bitmap as is
-        // TODO: Implement proper cropping based on editOps.crop coordinates
-        return bitmap;
-    }
-    
-    private int calculateInSampleSize(BitmapFactory.Options options, int reqWidth, int reqHeight) {
-        final int height = options.outHeight;
-        final int width = options.outWidth;
-        int inSampleSize = 1;
-
-        if (height > reqHeight || width > reqWidth) {
-            final int halfHeight = height / 2;
-            final int halfWidth = width / 2;
-
-            while ((halfHeight / inSampleSize) >= reqHeight
-                    && (halfWidth / inSampleSize) >= reqWidth) {
-                inSampleSize *= 2;
+        int outWidth = warp.getOutputWidth();
+        int outHeight = warp.getOutputHeight();
+        Bitmap result = pool.obtain(outWidth, outHeight, Bitmap.Config.ARGB_8888);
+        int chunkRows = Math.max(1, Math.min(outHeight, WARP_CHUNK_PIXELS / outWidth));
+        int[] chunk = pool.obtainBuffer(outWidth * chunkRows);
+        try {
+            for (int y = 0; y < outHeight; y += chunkRows) {
+                if (signal != null && signal.isCanceled()) {
+                    pool.release(result);
+                    signal.throwIfCanceled();
+                }
+                int rows = Math.min(chunkRows, outHeight - y);
+                warp.warp(src, srcWidth, srcHeight, chunk, y, rows);
+                result.setPixels(chunk, 0, outWidth, 0, y, outWidth, rows);
             }
+        } finally {
+            pool.releaseBuffer(chunk);
+            pool.releaseBuffer(src);
         }
-
-        return inSampleSize;
+        return result;
     }
     
     private void saveBitmapToFile(Bitmap bitmap, File file, int quality) throws IOException {
         // Ensure parent directory exists
+        ensureParentDir(file);
+        
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out);
+        }
+    }
+    
+    private void ensureParentDir(File file) throws IOException {
         File parentDir = file.getParentFile();
         if (parentDir != null && !parentDir.exists()) {
             if (!fileManager.ensureDirExists(parentDir)) {
                 throw new IOException("Failed to create parent directory: " + parentDir.getAbsolutePath());
             }
         }
-        
-        try (FileOutputStream out = new FileOutputStream(file)) {
-            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out);
+    }
+    
+    /**
+     * Serialized edits for a newly imported page: the defaults, straightened by the deskew
+     * angle estimated for {@code originalFile}. The angle is resolved here, once, so no
+     * render has to write it back to the page later; if it can't be estimated the page is
+     * left straight. Blocks; call off the main thread.
+     */
+    public static String editOpsForImport(@NonNull File originalFile) {
+        EditOps editOps = new EditOps();
+        editOps.autoDeskew = true;
+        if (!resolveAutoDeskew(editOps, originalFile)) {
+            editOps.autoDeskew = false;
         }
+        return EditOpsUtil.serialize(editOps);
     }
     
-    private String readTextFile(File file) throws IOException {
-        java.io.FileInputStream fis = new java.io.FileInputStream(file);
-        java.io.InputStreamReader isr = new java.io.InputStreamReader(fis);
-        java.io.BufferedReader reader = new java.io.BufferedReader(isr);
-        
-        StringBuilder sb = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            sb.append(line).append("\n");
+    /**
+     * Estimates the deskew angle of a page from a small decode of its original. Blocks.
+     */
+    public static float estimateDeskew(@NonNull File originalFile) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(originalFile.getAbsolutePath(), options);
+        int longSide = Math.max(options.outWidth, options.outHeight);
+        options.inSampleSize = 1;
+        while (longSide / (options.inSampleSize * 2) >= DeskewEstimator.ANALYSIS_SIZE) {
+            options.inSampleSize *= 2;
         }
+        options.inJustDecodeBounds = false;
         
-        reader.close();
-        isr.close();
-        fis.close();
-        
-        return sb.toString().trim();
+        Bitmap small = BitmapFactory.decodeFile(originalFile.getAbsolutePath(), options);
+        if (small == null) {
+            throw new IOException("Failed to decode bitmap: " + originalFile.getAbsolutePath());
+        }
+        PixelPlane plane = ImageFilters.toPlane(small);
+        small.recycle();
+        return DeskewEstimator.estimate(plane.pixels, plane.width, plane.height);
     }
     
+    /**
+     * If {@code editOps} asks for automatic deskew, estimates the angle, stores it in
+     * {@link EditOps#deskew} (0 below {@link #MIN_AUTO_DESKEW_DEGREES}) and clears the
+     * request. Returns true if the ops changed and should be persisted.
+     */
+    public static boolean resolveAutoDeskew(@Nullable EditOps editOps, @NonNull File originalFile) {
+        if (editOps == null || !editOps.autoDeskew) {
+            return false;
+        }
+        try {
+            float angle = estimateDeskew(originalFile);
+            editOps.deskew = Math.abs(angle) < MIN_AUTO_DESKEW_DEGREES ? 0f : angle;
+            editOps.autoDeskew = false;
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Deskew estimation failed for " + originalFile.getAbsolutePath(), e);
+            return false;
+        }
+    }
+    
+    /**
+     * No-op: renders run on the process-wide {@link RenderScheduler}, which outlives any one
+     * engine. Kept for callers that release their engine on teardown.
+     */
     public void shutdown() {
-        executor.shutdown();
     }
     
     public interface RenderCallback {
         void onRenderComplete(Bitmap bitmap);
         void onRenderError(Exception error);
     }
+    
+    /**
+     * Names the output file of each page of a {@link #renderToFileBatch}.
+     */
+    public interface PageTarget {
+        /** File to render {@code pageIndex} into, or null to skip it. */
+        @Nullable
+        File fileFor(int pageIndex);
+    }
+    
+    /**
+     * Receives the results of a {@link RenderBatch}, on render threads. Pages may complete
+     * in any order.
+     */
+    public interface BatchCallback {
+        void onPageRendered(int pageIndex, @Nullable Bitmap bitmap);
+        void onPageFailed(int pageIndex, Exception error);
+        void onProgress(int completedPages, int totalPages);
+        void onBatchComplete(boolean canceled);
+    }
 }
\ No newline at end of file
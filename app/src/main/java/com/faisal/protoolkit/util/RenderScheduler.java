@@ -0,0 +1,151 @@
+package com.faisal.protoolkit.util;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide render pool shared by every {@link RenderEngine}.
+ *
+ * Parallelism is sized from the core count and the app's memory class, since each render
+ * thread holds a few full-page bitmaps. Queued {@link Priority#INTERACTIVE} work (previews
+ * the user is looking at) always runs before {@link Priority#BACKGROUND} work. The queue is
+ * bounded: once full, further submissions throw {@link RejectedExecutionException}. A
+ * background task that reaches a thread while heap headroom is low is deferred a few times
+ * (after trimming the {@link BitmapPool}) before it is allowed to run.
+ */
+public final class RenderScheduler {
+
+    public enum Priority {
+        INTERACTIVE, BACKGROUND
+    }
+
+    // Heap a render thread needs for its bitmaps, in MB of memory class
+    private static final int MB_PER_THREAD = 48;
+    private static final int MAX_QUEUED = 64;
+    // Below this share of the heap free, background renders wait
+    private static final int LOW_HEADROOM_DIVISOR = 8;
+    private static final long DEFER_MS = 250;
+    private static final int MAX_DEFERRALS = 8;
+
+    private static volatile RenderScheduler INSTANCE;
+
+    private final ThreadPoolExecutor pool;
+    private final int parallelism;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public static RenderScheduler get(@NonNull Context context) {
+        if (INSTANCE == null) {
+            synchronized (RenderScheduler.class) {
+                if (INSTANCE == null) {
+                    ActivityManager manager = (ActivityManager) context.getApplicationContext()
+                            .getSystemService(Context.ACTIVITY_SERVICE);
+                    int memoryClassMb = manager != null ? manager.getMemoryClass() : MB_PER_THREAD;
+                    INSTANCE = new RenderScheduler(
+                            parallelismFor(Runtime.getRuntime().availableProcessors(), memoryClassMb));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Render threads for a device: one per core, but no more than the memory class can
+     * hold bitmaps for, and at least one.
+     */
+    static int parallelismFor(int cores, int memoryClassMb) {
+        return Math.max(1, Math.min(cores, memoryClassMb / MB_PER_THREAD));
+    }
+
+    private RenderScheduler(int parallelism) {
+        this.parallelism = parallelism;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(() -> {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }, "render-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Queues {@code task}. Throws {@link RejectedExecutionException} if the queue is full.
+     */
+    public void execute(@NonNull Priority priority, @NonNull Runnable task) {
+        if (pool.getQueue().size() >= MAX_QUEUED) {
+            throw new RejectedExecutionException("Render queue full");
+        }
+        pool.execute(new Task(priority, sequence.getAndIncrement(), task, 0));
+    }
+
+    /**
+     * An {@link Executor} view of this scheduler at a fixed priority.
+     */
+    @NonNull
+    public Executor executor(@NonNull Priority priority) {
+        return task -> execute(priority, task);
+    }
+
+    private static boolean isHeadroomLow() {
+        Runtime runtime = Runtime.getRuntime();
+        long headroom = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        return headroom < runtime.maxMemory() / LOW_HEADROOM_DIVISOR;
+    }
+
+    private final class Task implements Runnable, Comparable<Task> {
+        private final Priority priority;
+        private final long order;
+        private final Runnable body;
+        private final int deferrals;
+
+        Task(Priority priority, long order, Runnable body, int deferrals) {
+            this.priority = priority;
+            this.order = order;
+            this.body = body;
+            this.deferrals = deferrals;
+        }
+
+        @Override
+        public void run() {
+            if (priority == Priority.BACKGROUND && deferrals < MAX_DEFERRALS && isHeadroomLow()) {
+                // Give idle pooled buffers back first; wait only if that was not enough
+                BitmapPool.get().trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+                if (isHeadroomLow()) {
+                    // Keep the original order so a deferred task doesn't lose its place
+                    Task retry = new Task(priority, order, body, deferrals + 1);
+                    AppExecutors.scheduler().schedule(() -> pool.execute(retry), DEFER_MS,
+                            TimeUnit.MILLISECONDS);
+                    return;
+                }
+            }
+            body.run();
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) {
+                return priority.compareTo(other.priority);
+            }
+            return Long.compare(order, other.order);
+        }
+    }
+}
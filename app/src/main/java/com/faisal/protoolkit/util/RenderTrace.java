@@ -0,0 +1,195 @@
+package com.faisal.protoolkit.util;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Per-page render tracing: wall time, bitmap bytes allocated and peak bitmap footprint for
+ * each pipeline stage, aggregated process-wide into log2 latency histograms.
+ *
+ * Tracing is off by default. While disabled {@link #begin()} returns a shared no-op trace,
+ * so an instrumented stage costs one volatile read and two empty calls.
+ */
+public final class RenderTrace {
+
+    /** Pipeline stages; PAGE is the whole render of one page. */
+    public enum Stage {
+        DECODE, ROTATE, CROP, DENOISE, FILTER, ENCODE, TILED, PAGE
+    }
+
+    // Bucket i holds durations in [2^(i-1), 2^i) ms; bucket 0 is under 1 ms
+    private static final int BUCKETS = 16;
+
+    private static final RenderTrace DISABLED = new RenderTrace(false);
+    private static final StageStats[] STATS = new StageStats[Stage.values().length];
+    private static volatile boolean enabled;
+
+    static {
+        for (int i = 0; i < STATS.length; i++) {
+            STATS[i] = new StageStats();
+        }
+    }
+
+    private final boolean active;
+    private final long pageStart;
+    private long allocated;
+    private long peakBytes;
+
+    private RenderTrace(boolean active) {
+        this.active = active;
+        this.pageStart = active ? System.nanoTime() : 0L;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        RenderTrace.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts tracing one page render.
+     */
+    @NonNull
+    public static RenderTrace begin() {
+        return enabled ? new RenderTrace(true) : DISABLED;
+    }
+
+    /**
+     * Returns a start token for {@link #end}, 0 when disabled.
+     */
+    public long start() {
+        return active ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records a stage that turned {@code input} into {@code output}. A new output bitmap
+     * counts as allocated, and input plus output together as the stage's footprint.
+     */
+    public void end(@NonNull Stage stage, long start, @Nullable Bitmap input, @Nullable Bitmap output) {
+        if (!active) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        long inBytes = bytesOf(input);
+        long outBytes = output != input ? bytesOf(output) : 0L;
+        allocated += outBytes;
+        peakBytes = Math.max(peakBytes, inBytes + outBytes);
+        STATS[stage.ordinal()].record(elapsed, outBytes, inBytes + outBytes);
+    }
+
+    /**
+     * Records a stage measured in plain bytes, e.g. a streamed render that holds no full
+     * bitmap.
+     */
+    public void end(@NonNull Stage stage, long start, long allocatedBytes, long footprintBytes) {
+        if (!active) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated += allocatedBytes;
+        peakBytes = Math.max(peakBytes, footprintBytes);
+        STATS[stage.ordinal()].record(elapsed, allocatedBytes, footprintBytes);
+    }
+
+    /**
+     * Ends the page, recording its total time, allocation and peak footprint.
+     */
+    public void finish() {
+        if (!active) {
+            return;
+        }
+        STATS[Stage.PAGE.ordinal()].record(System.nanoTime() - pageStart, allocated, peakBytes);
+    }
+
+    /**
+     * Clears the aggregated histograms.
+     */
+    public static void reset() {
+        for (StageStats stats : STATS) {
+            stats.reset();
+        }
+    }
+
+    /**
+     * Human-readable summary of every stage seen so far, one block per stage.
+     */
+    @NonNull
+    public static String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            STATS[stage.ordinal()].appendTo(sb, stage.name());
+        }
+        return sb.length() > 0 ? sb.toString().trim() : "No renders recorded";
+    }
+
+    private static long bytesOf(@Nullable Bitmap bitmap) {
+        return bitmap != null && !bitmap.isRecycled() ? bitmap.getAllocationByteCount() : 0L;
+    }
+
+    private static final class StageStats {
+        private final long[] buckets = new long[BUCKETS];
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private long allocatedBytes;
+        private long peakBytes;
+
+        synchronized void record(long nanos, long allocated, long footprint) {
+            long millis = nanos / 1_000_000L;
+            int bucket = millis <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+            buckets[bucket]++;
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            allocatedBytes += allocated;
+            peakBytes = Math.max(peakBytes, footprint);
+        }
+
+        synchronized void reset() {
+            Arrays.fill(buckets, 0L);
+            count = 0;
+            totalNanos = 0;
+            maxNanos = 0;
+            allocatedBytes = 0;
+            peakBytes = 0;
+        }
+
+        synchronized void appendTo(StringBuilder sb, String name) {
+            if (count == 0) {
+                return;
+            }
+            sb.append(String.format(Locale.US,
+                    "%s  n=%d  avg=%.1fms  p50<%dms  p95<%dms  max=%.1fms%n  alloc=%s  peak=%s%n",
+                    name, count, totalNanos / 1e6 / count, percentile(0.50), percentile(0.95),
+                    maxNanos / 1e6, FormatUtils.formatBytes(allocatedBytes),
+                    FormatUtils.formatBytes(peakBytes)));
+            sb.append("  ");
+            for (int i = 0; i < BUCKETS; i++) {
+                if (buckets[i] > 0) {
+                    sb.append(String.format(Locale.US, "<%dms:%d ", 1L << i, buckets[i]));
+                }
+            }
+            sb.append('\n');
+        }
+
+        /** Upper bound in ms of the bucket holding the given quantile. */
+        private long percentile(double quantile) {
+            long target = (long) Math.ceil(count * quantile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= target) {
+                    return 1L << i;
+                }
+            }
+            return 1L << (BUCKETS - 1);
+        }
+    }
+}
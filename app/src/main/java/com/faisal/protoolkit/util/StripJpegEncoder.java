@@ -0,0 +1,438 @@
+package com.faisal.protoolkit.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Baseline JPEG encoder (YCbCr 4:2:0, standard Huffman tables) that accepts rows in order
+ * and only buffers one 16-row MCU band, so a page can be encoded without ever holding the
+ * whole image in memory. Used by the tiled render path where Bitmap.compress is not an option.
+ */
+public final class StripJpegEncoder {
+
+    private static final int[] ZIGZAG = {
+            0, 1, 8, 16, 9, 2, 3, 10, 17, 24, 32, 25, 18, 11, 4, 5,
+            12, 19, 26, 33, 40, 48, 41, 34, 27, 20, 13, 6, 7, 14, 21, 28,
+            35, 42, 49, 56, 57, 50, 43, 36, 29, 22, 15, 23, 30, 37, 44, 51,
+            58, 59, 52, 45, 38, 31, 39, 46, 53, 60, 61, 54, 47, 55, 62, 63
+    };
+
+    private static final int[] LUMA_QUANT = {
+            16, 11, 10, 16, 24, 40, 51, 61,
+            12, 12, 14, 19, 26, 58, 60, 55,
+            14, 13, 16, 24, 40, 57, 69, 56,
+            14, 17, 22, 29, 51, 87, 80, 62,
+            18, 22, 37, 56, 68, 109, 103, 77,
+            24, 35, 55, 64, 81, 104, 113, 92,
+            49, 64, 78, 87, 103, 121, 120, 101,
+            72, 92, 95, 98, 112, 100, 103, 99
+    };
+
+    private static final int[] CHROMA_QUANT = {
+            17, 18, 24, 47, 99, 99, 99, 99,
+            18, 21, 26, 66, 99, 99, 99, 99,
+            24, 26, 56, 99, 99, 99, 99, 99,
+            47, 66, 99, 99, 99, 99, 99, 99,
+            99, 99, 99, 99, 99, 99, 99, 99,
+            99, 99, 99, 99, 99, 99, 99, 99,
+            99, 99, 99, 99, 99, 99, 99, 99,
+            99, 99, 99, 99, 99, 99, 99, 99
+    };
+
+    private static final int[] DC_LUMA_BITS = {0, 1, 5, 1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 0};
+    private static final int[] DC_CHROMA_BITS = {0, 3, 1, 1, 1, 1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 0};
+    private static final int[] DC_VALUES = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11};
+
+    private static final int[] AC_LUMA_BITS = {0, 2, 1, 3, 3, 2, 4, 3, 5, 5, 4, 4, 0, 0, 1, 0x7d};
+    private static final int[] AC_LUMA_VALUES = {
+            0x01, 0x02, 0x03, 0x00, 0x04, 0x11, 0x05, 0x12, 0x21, 0x31, 0x41, 0x06, 0x13, 0x51, 0x61, 0x07,
+            0x22, 0x71, 0x14, 0x32, 0x81, 0x91, 0xa1, 0x08, 0x23, 0x42, 0xb1, 0xc1, 0x15, 0x52, 0xd1, 0xf0,
+            0x24, 0x33, 0x62, 0x72, 0x82, 0x09, 0x0a, 0x16, 0x17, 0x18, 0x19, 0x1a, 0x25, 0x26, 0x27, 0x28,
+            0x29, 0x2a, 0x34, 0x35, 0x36, 0x37, 0x38, 0x39, 0x3a, 0x43, 0x44, 0x45, 0x46, 0x47, 0x48, 0x49,
+            0x4a, 0x53, 0x54, 0x55, 0x56, 0x57, 0x58, 0x59, 0x5a, 0x63, 0x64, 0x65, 0x66, 0x67, 0x68, 0x69,
+            0x6a, 0x73, 0x74, 0x75, 0x76, 0x77, 0x78, 0x79, 0x7a, 0x83, 0x84, 0x85, 0x86, 0x87, 0x88, 0x89,
+            0x8a, 0x92, 0x93, 0x94, 0x95, 0x96, 0x97, 0x98, 0x99, 0x9a, 0xa2, 0xa3, 0xa4, 0xa5, 0xa6, 0xa7,
+            0xa8, 0xa9, 0xaa, 0xb2, 0xb3, 0xb4, 0xb5, 0xb6, 0xb7, 0xb8, 0xb9, 0xba, 0xc2, 0xc3, 0xc4, 0xc5,
+            0xc6, 0xc7, 0xc8, 0xc9, 0xca, 0xd2, 0xd3, 0xd4, 0xd5, 0xd6, 0xd7, 0xd8, 0xd9, 0xda, 0xe1, 0xe2,
+            0xe3, 0xe4, 0xe5, 0xe6, 0xe7, 0xe8, 0xe9, 0xea, 0xf1, 0xf2, 0xf3, 0xf4, 0xf5, 0xf6, 0xf7, 0xf8,
+            0xf9, 0xfa
+    };
+
+    private static final int[] AC_CHROMA_BITS = {0, 2, 1, 2, 4, 4, 3, 4, 7, 5, 4, 4, 0, 1, 2, 0x77};
+    private static final int[] AC_CHROMA_VALUES = {
+            0x00, 0x01, 0x02, 0x03, 0x11, 0x04, 0x05, 0x21, 0x31, 0x06, 0x12, 0x41, 0x51, 0x07, 0x61, 0x71,
+            0x13, 0x22, 0x32, 0x81, 0x08, 0x14, 0x42, 0x91, 0xa1, 0xb1, 0xc1, 0x09, 0x23, 0x33, 0x52, 0xf0,
+            0x15, 0x62, 0x72, 0xd1, 0x0a, 0x16, 0x24, 0x34, 0xe1, 0x25, 0xf1, 0x17, 0x18, 0x19, 0x1a, 0x26,
+            0x27, 0x28, 0x29, 0x2a, 0x35, 0x36, 0x37, 0x38, 0x39, 0x3a, 0x43, 0x44, 0x45, 0x46, 0x47, 0x48,
+            0x49, 0x4a, 0x53, 0x54, 0x55, 0x56, 0x57, 0x58, 0x59, 0x5a, 0x63, 0x64, 0x65, 0x66, 0x67, 0x68,
+            0x69, 0x6a, 0x73, 0x74, 0x75, 0x76, 0x77, 0x78, 0x79, 0x7a, 0x82, 0x83, 0x84, 0x85, 0x86, 0x87,
+            0x88, 0x89, 0x8a, 0x92, 0x93, 0x94, 0x95, 0x96, 0x97, 0x98, 0x99, 0x9a, 0xa2, 0xa3, 0xa4, 0xa5,
+            0xa6, 0xa7, 0xa8, 0xa9, 0xaa, 0xb2, 0xb3, 0xb4, 0xb5, 0xb6, 0xb7, 0xb8, 0xb9, 0xba, 0xc2, 0xc3,
+            0xc4, 0xc5, 0xc6, 0xc7, 0xc8, 0xc9, 0xca, 0xd2, 0xd3, 0xd4, 0xd5, 0xd6, 0xd7, 0xd8, 0xd9, 0xda,
+            0xe2, 0xe3, 0xe4, 0xe5, 0xe6, 0xe7, 0xe8, 0xe9, 0xea, 0xf2, 0xf3, 0xf4, 0xf5, 0xf6, 0xf7, 0xf8,
+            0xf9, 0xfa
+    };
+
+    private static final int MCU_SIZE = 16;
+
+    // Orthonormal 8-point DCT-II basis, DCT[u * 8 + x]
+    private static final float[] DCT = new float[64];
+
+    static {
+        for (int u = 0; u < 8; u++) {
+            double alpha = u == 0 ? Math.sqrt(1.0 / 8) : Math.sqrt(2.0 / 8);
+            for (int x = 0; x < 8; x++) {
+                DCT[u * 8 + x] = (float) (alpha * Math.cos((2 * x + 1) * u * Math.PI / 16));
+            }
+        }
+    }
+
+    private final OutputStream out;
+    private final int width;
+    private final int height;
+    private final int mcuColumns;
+
+    private final int[] lumaQuant = new int[64];
+    private final int[] chromaQuant = new int[64];
+    // Reciprocal quantisers in natural order
+    private final float[] lumaScale = new float[64];
+    private final float[] chromaScale = new float[64];
+
+    private final int[][] dcLumaTable;
+    private final int[][] dcChromaTable;
+    private final int[][] acLumaTable;
+    private final int[][] acChromaTable;
+
+    // One MCU band of ARGB pixels, padded to a multiple of 16 columns
+    private final int[] band;
+    private int bandRows;
+    private int rowsWritten;
+
+    private final float[] block = new float[64];
+    private final float[] temp = new float[64];
+    private final int[] coefficients = new int[64];
+    private final float[] cbBlock = new float[64];
+    private final float[] crBlock = new float[64];
+
+    private int prevDcY;
+    private int prevDcCb;
+    private int prevDcCr;
+
+    private int bitBuffer;
+    private int bitCount;
+    private final byte[] outBuffer = new byte[8192];
+    private int outLength;
+    private boolean finished;
+
+    public StripJpegEncoder(OutputStream out, int width, int height, int quality) throws IOException {
+        if (width <= 0 || height <= 0 || width > 65535 || height > 65535) {
+            throw new IllegalArgumentException("Invalid JPEG size " + width + "x" + height);
+        }
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        this.mcuColumns = (width + MCU_SIZE - 1) / MCU_SIZE;
+        this.band = new int[mcuColumns * MCU_SIZE * MCU_SIZE];
+
+        buildQuantTable(LUMA_QUANT, quality, lumaQuant, lumaScale);
+        buildQuantTable(CHROMA_QUANT, quality, chromaQuant, chromaScale);
+        dcLumaTable = buildHuffmanTable(DC_LUMA_BITS, DC_VALUES);
+        dcChromaTable = buildHuffmanTable(DC_CHROMA_BITS, DC_VALUES);
+        acLumaTable = buildHuffmanTable(AC_LUMA_BITS, AC_LUMA_VALUES);
+        acChromaTable = buildHuffmanTable(AC_CHROMA_BITS, AC_CHROMA_VALUES);
+
+        writeHeaders();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Appends {@code rows} rows of packed ARGB pixels, top to bottom. Each row holds
+     * {@link #getWidth()} pixels starting at {@code offset + row * stride}.
+     */
+    public void writeRows(int[] argb, int offset, int stride, int rows) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Encoder already finished");
+        }
+        if (rowsWritten + rows > height) {
+            throw new IllegalArgumentException("Too many rows: " + (rowsWritten + rows) + " > " + height);
+        }
+        int bandStride = mcuColumns * MCU_SIZE;
+        for (int r = 0; r < rows; r++) {
+            int dst = bandRows * bandStride;
+            System.arraycopy(argb, offset + r * stride, band, dst, width);
+            // Replicate the edge pixel into the MCU padding
+            int edge = band[dst + width - 1];
+            for (int x = width; x < bandStride; x++) {
+                band[dst + x] = edge;
+            }
+            bandRows++;
+            rowsWritten++;
+            if (bandRows == MCU_SIZE) {
+                encodeBand();
+                bandRows = 0;
+            }
+        }
+    }
+
+    /**
+     * Flushes the last partial band and writes the end-of-image marker. Does not close
+     * the underlying stream.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (rowsWritten != height) {
+            throw new IllegalStateException("Expected " + height + " rows, got " + rowsWritten);
+        }
+        if (bandRows > 0) {
+            int bandStride = mcuColumns * MCU_SIZE;
+            int last = (bandRows - 1) * bandStride;
+            for (int r = bandRows; r < MCU_SIZE; r++) {
+                System.arraycopy(band, last, band, r * bandStride, bandStride);
+            }
+            encodeBand();
+            bandRows = 0;
+        }
+        // Pad the final byte with 1 bits
+        if (bitCount > 0) {
+            int pad = 8 - bitCount;
+            writeBits((1 << pad) - 1, pad);
+        }
+        flushBytes();
+        out.write(new byte[] {(byte) 0xFF, (byte) 0xD9});
+        out.flush();
+        finished = true;
+    }
+
+    private void encodeBand() throws IOException {
+        int bandStride = mcuColumns * MCU_SIZE;
+        for (int mx = 0; mx < mcuColumns; mx++) {
+            int x0 = mx * MCU_SIZE;
+            java.util.Arrays.fill(cbBlock, 0f);
+            java.util.Arrays.fill(crBlock, 0f);
+
+            for (int by = 0; by < 2; by++) {
+                for (int bx = 0; bx < 2; bx++) {
+                    for (int y = 0; y < 8; y++) {
+                        int row = (by * 8 + y) * bandStride + x0 + bx * 8;
+                        for (int x = 0; x < 8; x++) {
+                            int p = band[row + x];
+                            int r = (p >> 16) & 0xFF;
+                            int g = (p >> 8) & 0xFF;
+                            int b = p & 0xFF;
+                            block[y * 8 + x] = 0.299f * r + 0.587f * g + 0.114f * b - 128f;
+                            int c = ((by * 8 + y) >> 1) * 8 + ((bx * 8 + x) >> 1);
+                            cbBlock[c] += -0.168736f * r - 0.331264f * g + 0.5f * b;
+                            crBlock[c] += 0.5f * r - 0.418688f * g - 0.081312f * b;
+                        }
+                    }
+                    prevDcY = encodeBlock(block, lumaScale, prevDcY, dcLumaTable, acLumaTable);
+                }
+            }
+
+            // Chroma sums cover 2x2 pixels each; average and level shift (+128 - 128 cancels)
+            for (int i = 0; i < 64; i++) {
+                cbBlock[i] *= 0.25f;
+                crBlock[i] *= 0.25f;
+            }
+            prevDcCb = encodeBlock(cbBlock, chromaScale, prevDcCb, dcChromaTable, acChromaTable);
+            prevDcCr = encodeBlock(crBlock, chromaScale, prevDcCr, dcChromaTable, acChromaTable);
+        }
+    }
+
+    private int encodeBlock(float[] data, float[] scale, int prevDc, int[][] dcTable, int[][] acTable)
+            throws IOException {
+        forwardDct(data);
+        for (int i = 0; i < 64; i++) {
+            int natural = ZIGZAG[i];
+            coefficients[i] = Math.round(data[natural] * scale[natural]);
+        }
+
+        int dc = coefficients[0];
+        int diff = dc - prevDc;
+        int size = bitSize(diff);
+        writeCode(dcTable, size);
+        if (size > 0) {
+            writeBits(diff < 0 ? diff - 1 : diff, size);
+        }
+
+        int run = 0;
+        for (int k = 1; k < 64; k++) {
+            int v = coefficients[k];
+            if (v == 0) {
+                run++;
+                continue;
+            }
+            while (run > 15) {
+                writeCode(acTable, 0xF0);
+                run -= 16;
+            }
+            size = bitSize(v);
+            writeCode(acTable, (run << 4) | size);
+            writeBits(v < 0 ? v - 1 : v, size);
+            run = 0;
+        }
+        if (run > 0) {
+            writeCode(acTable, 0x00);
+        }
+        return dc;
+    }
+
+    private void forwardDct(float[] data) {
+        // Rows: temp = data * DCT^T
+        for (int y = 0; y < 8; y++) {
+            for (int u = 0; u < 8; u++) {
+                float sum = 0f;
+                for (int x = 0; x < 8; x++) {
+                    sum += data[y * 8 + x] * DCT[u * 8 + x];
+                }
+                temp[y * 8 + u] = sum;
+            }
+        }
+        // Columns: data = DCT * temp
+        for (int u = 0; u < 8; u++) {
+            for (int v = 0; v < 8; v++) {
+                float sum = 0f;
+                for (int y = 0; y < 8; y++) {
+                    sum += DCT[v * 8 + y] * temp[y * 8 + u];
+                }
+                data[v * 8 + u] = sum;
+            }
+        }
+    }
+
+    private static int bitSize(int v) {
+        if (v < 0) {
+            v = -v;
+        }
+        return 32 - Integer.numberOfLeadingZeros(v);
+    }
+
+    private void writeCode(int[][] table, int symbol) throws IOException {
+        writeBits(table[0][symbol], table[1][symbol]);
+    }
+
+    private void writeBits(int value, int count) throws IOException {
+        for (int i = count - 1; i >= 0; i--) {
+            bitBuffer = (bitBuffer << 1) | ((value >> i) & 1);
+            bitCount++;
+            if (bitCount == 8) {
+                emitByte(bitBuffer & 0xFF);
+                if ((bitBuffer & 0xFF) == 0xFF) {
+                    // Byte stuffing inside entropy-coded data
+                    emitByte(0x00);
+                }
+                bitBuffer = 0;
+                bitCount = 0;
+            }
+        }
+    }
+
+    private void emitByte(int b) throws IOException {
+        if (outLength == outBuffer.length) {
+            flushBytes();
+        }
+        outBuffer[outLength++] = (byte) b;
+    }
+
+    private void flushBytes() throws IOException {
+        if (outLength > 0) {
+            out.write(outBuffer, 0, outLength);
+            outLength = 0;
+        }
+    }
+
+    private void writeHeaders() throws IOException {
+        // SOI + JFIF APP0
+        writeRaw(0xFF, 0xD8);
+        writeRaw(0xFF, 0xE0, 0x00, 0x10, 'J', 'F', 'I', 'F', 0x00, 0x01, 0x01, 0x00,
+                0x00, 0x01, 0x00, 0x01, 0x00, 0x00);
+
+        // DQT, both tables in zigzag order
+        writeRaw(0xFF, 0xDB, 0x00, 0x84);
+        writeRaw(0x00);
+        for (int i = 0; i < 64; i++) {
+            writeRaw(lumaQuant[ZIGZAG[i]]);
+        }
+        writeRaw(0x01);
+        for (int i = 0; i < 64; i++) {
+            writeRaw(chromaQuant[ZIGZAG[i]]);
+        }
+
+        // SOF0: 8-bit, 3 components, luma 2x2 sampled
+        writeRaw(0xFF, 0xC0, 0x00, 0x11, 0x08,
+                (height >> 8) & 0xFF, height & 0xFF, (width >> 8) & 0xFF, width & 0xFF,
+                0x03,
+                0x01, 0x22, 0x00,
+                0x02, 0x11, 0x01,
+                0x03, 0x11, 0x01);
+
+        writeHuffmanSegment(0x00, DC_LUMA_BITS, DC_VALUES);
+        writeHuffmanSegment(0x10, AC_LUMA_BITS, AC_LUMA_VALUES);
+        writeHuffmanSegment(0x01, DC_CHROMA_BITS, DC_VALUES);
+        writeHuffmanSegment(0x11, AC_CHROMA_BITS, AC_CHROMA_VALUES);
+
+        // SOS
+        writeRaw(0xFF, 0xDA, 0x00, 0x0C, 0x03,
+                0x01, 0x00,
+                0x02, 0x11,
+                0x03, 0x11,
+                0x00, 0x3F, 0x00);
+        flushBytes();
+    }
+
+    private void writeHuffmanSegment(int classAndId, int[] bits, int[] values) throws IOException {
+        int length = 2 + 1 + 16 + values.length;
+        writeRaw(0xFF, 0xC4, (length >> 8) & 0xFF, length & 0xFF, classAndId);
+        for (int b : bits) {
+            writeRaw(b);
+        }
+        for (int v : values) {
+            writeRaw(v);
+        }
+    }
+
+    private void writeRaw(int... bytes) throws IOException {
+        for (int b : bytes) {
+            emitByte(b & 0xFF);
+        }
+    }
+
+    private static void buildQuantTable(int[] base, int quality, int[] table, float[] scale) {
+        int q = Math.max(1, Math.min(100, quality));
+        int factor = q < 50 ? 5000 / q : 200 - q * 2;
+        for (int i = 0; i < 64; i++) {
+            int value = (base[i] * factor + 50) / 100;
+            value = Math.max(1, Math.min(255, value));
+            table[i] = value;
+            scale[i] = 1f / value;
+        }
+    }
+
+    /**
+     * Returns {codes[], lengths[]} indexed by symbol for a canonical Huffman table.
+     */
+    private static int[][] buildHuffmanTable(int[] bits, int[] values) {
+        int[] codes = new int[256];
+        int[] lengths = new int[256];
+        int code = 0;
+        int k = 0;
+        for (int len = 1; len <= 16; len++) {
+            for (int i = 0; i < bits[len - 1]; i++) {
+                int symbol = values[k++];
+                codes[symbol] = code++;
+                lengths[symbol] = len;
+            }
+            code <<= 1;
+        }
+        return new int[][] {codes, lengths};
+    }
+}
@@ -0,0 +1,440 @@
+package com.faisal.protoolkit.util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.os.CancellationSignal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.faisal.protoolkit.imaging.AdaptiveBinarizer;
+import com.faisal.protoolkit.imaging.Denoiser;
+import com.faisal.protoolkit.imaging.FilterKernel;
+import com.faisal.protoolkit.imaging.OtsuThreshold;
+import com.faisal.protoolkit.imaging.PerspectiveWarp;
+import com.faisal.protoolkit.imaging.PixelOps;
+import com.faisal.protoolkit.imaging.PixelPlane;
+import com.faisal.protoolkit.imaging.RowFilter;
+import com.faisal.protoolkit.imaging.Sharpener;
+import com.faisal.protoolkit.model.EditOps;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Bounded-memory render path. The source is decoded with {@link BitmapRegionDecoder} one
+ * output strip at a time, the {@link EditOps} chain is applied to that strip and the result
+ * is handed to a {@link TileSink}. Peak heap is a few strips, independent of page size
+ * (for a perspective crop, a strip plus the source window it maps back to).
+ */
+public class TiledRenderer {
+
+    /** Default strip budget: ~1 MP, i.e. 4 MB of ARGB per buffer. */
+    public static final int DEFAULT_TILE_PIXELS = 1024 * 1024;
+
+    // Strips are aligned to JPEG MCU rows so the encoder never has to buffer more
+    private static final int ROW_ALIGN = 16;
+
+    private final int maxTilePixels;
+
+    public TiledRenderer() {
+        this(DEFAULT_TILE_PIXELS);
+    }
+
+    public TiledRenderer(int maxTilePixels) {
+        this.maxTilePixels = Math.max(ROW_ALIGN, maxTilePixels);
+    }
+
+    /**
+     * Receives a rendered page as a sequence of full-width strips, top to bottom.
+     */
+    public interface TileSink {
+        void begin(int width, int height) throws IOException;
+
+        /**
+         * @param argb   packed ARGB pixels, {@code width} per row; only valid during the call
+         * @param y      first output row of this strip
+         * @param rows   number of rows in the strip
+         */
+        void writeStrip(int[] argb, int width, int y, int rows) throws IOException;
+
+        void end() throws IOException;
+    }
+
+    /**
+     * Renders {@code source} with {@code editOps} into {@code sink}. Must be called off the
+     * main thread.
+     */
+    public void render(@NonNull File source, EditOps editOps, @NonNull TileSink sink) throws IOException {
+        render(source, editOps, sink, null);
+    }
+
+    /**
+     * As {@link #render(File, EditOps, TileSink)}, checking {@code signal} before each strip;
+     * a cancelled render throws {@link android.os.OperationCanceledException} and leaves the
+     * sink's output incomplete.
+     */
+    public void render(@NonNull File source, EditOps editOps, @NonNull TileSink sink,
+                       @Nullable CancellationSignal signal) throws IOException {
+        BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(source.getAbsolutePath(), false);
+        if (decoder == null) {
+            throw new IOException("Failed to open region decoder: " + source.getAbsolutePath());
+        }
+        try {
+            render(decoder, editOps, sink, signal);
+        } finally {
+            decoder.recycle();
+        }
+    }
+
+    private void render(BitmapRegionDecoder decoder, EditOps editOps, TileSink sink,
+                        @Nullable CancellationSignal signal) throws IOException {
+        final int srcWidth = decoder.getWidth();
+        final int srcHeight = decoder.getHeight();
+        PerspectiveWarp warp = PerspectiveWarp.fromEditOps(editOps, srcWidth, srcHeight);
+        if (warp != null) {
+            renderWarped(decoder, warp, editOps, sink, signal);
+            return;
+        }
+        final int rotation = PixelOps.normalizeRotation(editOps != null ? editOps.rotate : 0);
+        final boolean swapped = rotation == 90 || rotation == 270;
+        final int outWidth = swapped ? srcHeight : srcWidth;
+        final int outHeight = swapped ? srcWidth : srcHeight;
+
+        FilterKernel kernel = FilterKernel.compile(editOps != null ? editOps.filter : null);
+        if (kernel.hasAutoThreshold()) {
+            kernel = kernel.withThreshold(estimateThreshold(decoder, editOps));
+        }
+
+        int stripRows = Math.max(ROW_ALIGN, (maxTilePixels / outWidth) / ROW_ALIGN * ROW_ALIGN);
+        stripRows = Math.min(stripRows, outHeight);
+        int[] strip = new int[outWidth * stripRows];
+        int[] tilePixels = rotation == 0 ? null : new int[outWidth * stripRows];
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+        Bitmap tile = null;
+
+        StripOutput output = new StripOutput(sink, editOps, kernel, outWidth, outHeight, stripRows);
+        try {
+            for (int y0 = 0; y0 < outHeight; y0 += stripRows) {
+                throwIfCanceled(signal);
+                int rows = Math.min(stripRows, outHeight - y0);
+                Rect region = sourceRegion(rotation, srcWidth, srcHeight, y0, y0 + rows);
+
+                // Reuse the previous tile bitmap when the region has the same shape
+                options.inBitmap = tile != null && tile.getWidth() == region.width()
+                        && tile.getHeight() == region.height() ? tile : null;
+                Bitmap decoded = decoder.decodeRegion(region, options);
+                if (decoded == null) {
+                    throw new IOException("Failed to decode region " + region);
+                }
+                if (tile != null && tile != decoded) {
+                    tile.recycle();
+                }
+                tile = decoded;
+
+                int tileWidth = tile.getWidth();
+                int tileHeight = tile.getHeight();
+                if (rotation == 0) {
+                    tile.getPixels(strip, 0, outWidth, 0, 0, tileWidth, tileHeight);
+                } else {
+                    tile.getPixels(tilePixels, 0, tileWidth, 0, 0, tileWidth, tileHeight);
+                    PixelOps.rotateRows(tilePixels, tileWidth, tileHeight, rotation, strip, outWidth, rows);
+                }
+
+                output.write(strip, rows);
+            }
+        } finally {
+            if (tile != null) {
+                tile.recycle();
+            }
+        }
+        output.finish();
+    }
+
+    /**
+     * Crop/warp path: each output strip decodes only the source window it maps back to,
+     * then inverse-maps that window (rotation included) straight into the strip.
+     */
+    private void renderWarped(BitmapRegionDecoder decoder, PerspectiveWarp warp, EditOps editOps,
+                              TileSink sink, @Nullable CancellationSignal signal) throws IOException {
+        final int srcWidth = decoder.getWidth();
+        final int srcHeight = decoder.getHeight();
+        final int outWidth = warp.getOutputWidth();
+        final int outHeight = warp.getOutputHeight();
+
+        FilterKernel kernel = FilterKernel.compile(editOps.filter);
+        if (kernel.hasAutoThreshold()) {
+            kernel = kernel.withThreshold(estimateThreshold(decoder, editOps));
+        }
+
+        int stripRows = Math.max(ROW_ALIGN, (maxTilePixels / outWidth) / ROW_ALIGN * ROW_ALIGN);
+        stripRows = Math.min(stripRows, outHeight);
+        int[] strip = new int[outWidth * stripRows];
+        int[] window = null;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+
+        StripOutput output = new StripOutput(sink, editOps, kernel, outWidth, outHeight, stripRows);
+        for (int y0 = 0; y0 < outHeight; y0 += stripRows) {
+            throwIfCanceled(signal);
+            int rows = Math.min(stripRows, outHeight - y0);
+            int[] bounds = warp.sourceBounds(y0, y0 + rows, srcWidth, srcHeight);
+            Rect region = new Rect(bounds[0], bounds[1], bounds[2], bounds[3]);
+            Bitmap tile = decoder.decodeRegion(region, options);
+            if (tile == null) {
+                throw new IOException("Failed to decode region " + region);
+            }
+            int tileWidth = tile.getWidth();
+            int tileHeight = tile.getHeight();
+            if (window == null || window.length < tileWidth * tileHeight) {
+                window = new int[tileWidth * tileHeight];
+            }
+            tile.getPixels(window, 0, tileWidth, 0, 0, tileWidth, tileHeight);
+            tile.recycle();
+
+            warp.warpRows(window, region.left, region.top, tileWidth, tileHeight, tileWidth,
+                    strip, 0, outWidth, y0, rows);
+            output.write(strip, rows);
+        }
+        output.finish();
+    }
+
+    private static void throwIfCanceled(@Nullable CancellationSignal signal) {
+        if (signal != null) {
+            signal.throwIfCanceled();
+        }
+    }
+
+    /**
+     * Picks the AUTO_BW threshold before any strip is written, from a subsampled decode of
+     * the page (cropped like the output when there is a crop) of at most one strip budget.
+     * Otsu's method only needs the tone distribution, which subsampling preserves.
+     */
+    private int estimateThreshold(BitmapRegionDecoder decoder, EditOps editOps) throws IOException {
+        int srcWidth = decoder.getWidth();
+        int srcHeight = decoder.getHeight();
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inSampleSize = 1;
+        while ((long) (srcWidth / options.inSampleSize) * (srcHeight / options.inSampleSize) > maxTilePixels) {
+            options.inSampleSize *= 2;
+        }
+        Bitmap sample = decoder.decodeRegion(new Rect(0, 0, srcWidth, srcHeight), options);
+        if (sample == null) {
+            throw new IOException("Failed to decode threshold sample");
+        }
+        PixelPlane plane = ImageFilters.toPlane(sample);
+        sample.recycle();
+
+        // Crop coordinates are normalized, so the warp applies at the sample's size too
+        PerspectiveWarp warp = PerspectiveWarp.fromEditOps(editOps, plane.width, plane.height);
+        if (warp != null) {
+            plane = PixelOps.warp(plane, warp);
+        }
+        int[] histogram = new int[OtsuThreshold.BINS];
+        OtsuThreshold.accumulate(plane.pixels, 0, plane.width * plane.height, histogram);
+        return OtsuThreshold.fromHistogram(histogram);
+    }
+
+    /**
+     * Per-strip tail of the pipeline: optional streaming denoise and sharpen, then the fused
+     * filter kernel, then adaptive binarization when selected, then the sink. Neighbourhood
+     * stages lag their input by their radius, so rows are passed through them one at a time
+     * and collected into a second strip buffer that is forwarded in the same aligned strip
+     * sizes.
+     */
+    private static final class StripOutput {
+        private final TileSink sink;
+        private final FilterKernel kernel;
+        private final RowFilter[] stages;
+        private final int[][] stageRows;
+        private final int width;
+        private final int stripRows;
+        private final int[] pending;
+        private int pendingRows;
+        private int nextY;
+
+        StripOutput(TileSink sink, EditOps editOps, FilterKernel kernel, int width, int height,
+                    int stripRows) throws IOException {
+            this.sink = sink;
+            this.width = width;
+            this.stripRows = stripRows;
+
+            boolean denoise = editOps != null && editOps.hasDenoise();
+            boolean sharpen = editOps != null && editOps.filter != null && editOps.filter.sharpen > 0f;
+            boolean adaptive = editOps != null && editOps.filter != null
+                    && AdaptiveBinarizer.MODE.equals(editOps.filter.mode);
+            // The colour kernel must run before the binarizer, so it becomes a stage too
+            boolean kernelStage = adaptive && !kernel.isIdentity();
+            stages = new RowFilter[(denoise ? 1 : 0) + (sharpen ? 1 : 0)
+                    + (kernelStage ? 1 : 0) + (adaptive ? 1 : 0)];
+            int i = 0;
+            if (denoise) {
+                Denoiser denoiser = Denoiser.obtain();
+                denoiser.begin(width, height, editOps.denoise);
+                stages[i++] = denoiser;
+            }
+            if (sharpen) {
+                Sharpener sharpener = Sharpener.obtain();
+                sharpener.begin(width, height, editOps.filter.sharpen);
+                stages[i++] = sharpener;
+            }
+            if (kernelStage) {
+                stages[i++] = new KernelStage(kernel, width);
+            }
+            if (adaptive) {
+                AdaptiveBinarizer binarizer = new AdaptiveBinarizer();
+                binarizer.begin(width, height);
+                stages[i++] = binarizer;
+            }
+            this.kernel = adaptive ? FilterKernel.compile(null) : kernel;
+            stageRows = new int[stages.length][width];
+            pending = stages.length > 0 ? new int[width * stripRows] : null;
+            sink.begin(width, height);
+        }
+
+        void write(int[] strip, int rows) throws IOException {
+            if (stages.length == 0) {
+                emit(strip, rows);
+                return;
+            }
+            for (int row = 0; row < rows; row++) {
+                // Push and drain row by row so no ring runs ahead of its output
+                feed(0, strip, row * width);
+            }
+        }
+
+        void finish() throws IOException {
+            for (int i = 0; i < stages.length; i++) {
+                // Every input of stage i has been pushed, so its remaining rows drain now
+                while (stages[i].pullRow(stageRows[i], 0)) {
+                    feed(i + 1, stageRows[i], 0);
+                }
+            }
+            if (pendingRows > 0) {
+                emit(pending, pendingRows);
+                pendingRows = 0;
+            }
+            sink.end();
+        }
+
+        private void feed(int stage, int[] row, int offset) throws IOException {
+            if (stage == stages.length) {
+                System.arraycopy(row, offset, pending, pendingRows * width, width);
+                if (++pendingRows == stripRows) {
+                    emit(pending, pendingRows);
+                    pendingRows = 0;
+                }
+                return;
+            }
+            stages[stage].pushRow(row, offset);
+            while (stages[stage].pullRow(stageRows[stage], 0)) {
+                feed(stage + 1, stageRows[stage], 0);
+            }
+        }
+
+        private void emit(int[] pixels, int rows) throws IOException {
+            if (!kernel.isIdentity()) {
+                kernel.apply(pixels, 0, pixels, 0, width * rows);
+            }
+            sink.writeStrip(pixels, width, nextY, rows);
+            nextY += rows;
+        }
+    }
+
+    /**
+     * Applies the colour kernel as a pass-through row stage, for chains where a later stage
+     * must see its output.
+     */
+    private static final class KernelStage implements RowFilter {
+        private final FilterKernel kernel;
+        private final int[] row;
+        private boolean full;
+
+        KernelStage(FilterKernel kernel, int width) {
+            this.kernel = kernel;
+            this.row = new int[width];
+        }
+
+        @Override
+        public void pushRow(int[] src, int offset) {
+            kernel.apply(src, offset, row, 0, row.length);
+            full = true;
+        }
+
+        @Override
+        public boolean pullRow(int[] dst, int offset) {
+            if (!full) {
+                return false;
+            }
+            System.arraycopy(row, 0, dst, offset, row.length);
+            full = false;
+            return true;
+        }
+    }
+
+    /**
+     * Maps output rows [y0, y1) back to the source rectangle they are rotated from.
+     */
+    static Rect sourceRegion(int rotation, int srcWidth, int srcHeight, int y0, int y1) {
+        switch (rotation) {
+            case 90:
+                return new Rect(y0, 0, y1, srcHeight);
+            case 180:
+                return new Rect(0, srcHeight - y1, srcWidth, srcHeight - y0);
+            case 270:
+                return new Rect(srcWidth - y1, 0, srcWidth - y0, srcHeight);
+            default:
+                return new Rect(0, y0, srcWidth, y1);
+        }
+    }
+
+    /**
+     * Returns the output size of a page after crop/warp and rotation, without decoding it.
+     */
+    public static int[] outputSize(@NonNull File source, EditOps editOps) {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(source.getAbsolutePath(), bounds);
+        PerspectiveWarp warp = PerspectiveWarp.fromEditOps(editOps, bounds.outWidth, bounds.outHeight);
+        if (warp != null) {
+            return new int[] {warp.getOutputWidth(), warp.getOutputHeight()};
+        }
+        int rotation = PixelOps.normalizeRotation(editOps != null ? editOps.rotate : 0);
+        boolean swapped = rotation == 90 || rotation == 270;
+        return swapped
+                ? new int[] {bounds.outHeight, bounds.outWidth}
+                : new int[] {bounds.outWidth, bounds.outHeight};
+    }
+
+    /**
+     * Sink that streams strips straight into a baseline JPEG.
+     */
+    public static TileSink jpegSink(@NonNull OutputStream out, int quality) {
+        return new TileSink() {
+            private StripJpegEncoder encoder;
+
+            @Override
+            public void begin(int width, int height) throws IOException {
+                encoder = new StripJpegEncoder(out, width, height, quality);
+            }
+
+            @Override
+            public void writeStrip(int[] argb, int width, int y, int rows) throws IOException {
+                encoder.writeRows(argb, 0, width, rows);
+            }
+
+            @Override
+            public void end() throws IOException {
+                encoder.finish();
+            }
+        };
+    }
+}
@@ -25,6 +25,7 @@ public class CleanCacheWorker extends Worker {
 
         try {
             FileManager fileManager = new FileManager(getApplicationContext());
+            ExportPdfWorker.sweepStaging(getApplicationContext(), fileManager.getTmpDir());
             
             boolean success = fileManager.cleanCache(maxBytes);
             
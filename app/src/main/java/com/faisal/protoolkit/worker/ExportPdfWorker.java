@@ -2,27 +2,73 @@ package com.faisal.protoolkit.worker;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.net.Uri;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
+import com.faisal.protoolkit.util.EditOpsUtil;
 import com.faisal.protoolkit.util.FileManager;
+import com.faisal.protoolkit.util.JpegHeader;
+import com.faisal.protoolkit.util.PdfExportUtil;
+import com.faisal.protoolkit.util.PdfStreamWriter;
+import com.faisal.protoolkit.util.RenderBatch;
 import com.faisal.protoolkit.util.RenderEngine;
 import com.faisal.protoolkit.data.database.AppDatabase;
 import com.faisal.protoolkit.data.entities.ExportEntity;
+import com.faisal.protoolkit.data.entities.PageEntity;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Exports a document as a PDF in two phases.
+ *
+ * First every edited page is rendered through {@link RenderEngine} into a JPEG in a staging
+ * directory tied to this work request, at no more than {@link PdfExportUtil#DEFAULT_DPI} on
+ * the chosen page size. The pages go through one {@link RenderBatch}, which renders as many
+ * at once as its memory budget allows. Each staged file is named after its page, edits,
+ * quality and pixel size and only appears once complete, so it doubles as the per-page
+ * progress record: a retried or restarted worker skips every page already staged. Then the
+ * PDF is assembled by embedding the staged JPEGs, and the originals of unedited pages at
+ * whatever size they are, byte for byte, which is a disk copy rather than codec work.
+ */
 public class ExportPdfWorker extends Worker {
     private static final String TAG = "ExportPdfWorker";
-    
+
     public static final String DOC_ID = "document_id";
     public static final String EXPORT_SETTINGS = "export_settings"; // JSON string
     public static final String QUALITY = "quality"; // 0-100
     public static final String PAGE_SIZE = "page_size"; // A4, LETTER, etc.
-    
+
+    // Progress keys
+    public static final String PROGRESS_DONE = "progress_done";
+    public static final String PROGRESS_TOTAL = "progress_total";
+    // Output key: absolute path of the exported file
+    public static final String OUTPUT_FILE = "output_file";
+
+    private static final String TYPE_PDF = "PDF";
+    // Staging directory of a work request in the tmp dir: this prefix plus the work id
+    static final String STAGING_PREFIX = "export-";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Pattern VERSION_PATTERN = Pattern.compile("v(\\d+)\\.[^/]*$");
+
+    // The render in progress, so onStopped can cancel it
+    private volatile RenderBatch batch;
+
     public ExportPdfWorker(@NonNull Context context, @NonNull WorkerParameters params) {
         super(context, params);
     }
@@ -37,65 +83,278 @@ public class ExportPdfWorker extends Worker {
         if (pageSize == null) {
             pageSize = "A4"; // Default A4
         }
-        
+
         if (documentId == null) {
             Log.e(TAG, "Document ID is null");
             return Result.failure();
         }
 
+        FileManager fileManager = new FileManager(getApplicationContext());
+        File stagingDir = new File(fileManager.getTmpDir(), STAGING_PREFIX + getId());
         try {
-            FileManager fileManager = new FileManager(getApplicationContext());
+            sweepStaging(getApplicationContext(), fileManager.getTmpDir());
             AppDatabase database = AppDatabase.getDatabase(getApplicationContext());
-            
-            // TODO: Implementation to create PDF from document pages
-            // 1. Get all pages for the document from the database
-            // 2. Render each page (using RenderEngine)
-            // 3. Create PDF using Android PDF API
-            // 4. Save to exports directory
-            // 5. Insert export record in database
-            
-            // For now, create a dummy export file
-            int exportVersion = getNextExportVersion(documentId, database);
-            File exportFile = fileManager.getExportFile(documentId, "pdf", exportVersion);
-            
-            // Create the export directory if it doesn't exist
-            File exportDir = exportFile.getParentFile();
-            if (exportDir != null && !exportDir.exists()) {
-                exportDir.mkdirs();
+            List<PageEntity> pages = database.pageDao().getPagesByDocumentSync(documentId);
+            if (pages == null || pages.isEmpty()) {
+                Log.e(TAG, "No pages to export for " + documentId);
+                return Result.failure();
             }
-            
-            // TODO: Actually create the PDF content
-            // For now, just create an empty file to simulate
-            try (FileOutputStream fos = new FileOutputStream(exportFile)) {
-                // In real implementation, you would use Android's PDFDocument API
-                // to create a proper PDF with all the pages
+            pages.sort((p1, p2) -> Integer.compare(p1.index, p2.index));
+
+            float[] pageSizePoints = PdfExportUtil.pageSizePoints(pageSize);
+            int[] pagePixels = PdfExportUtil.pagePixels(pageSizePoints, PdfExportUtil.DEFAULT_DPI);
+            File[] pageFiles = stagePages(documentId, pages, quality, pagePixels, stagingDir);
+            if (pageFiles == null) {
+                // Stopped; staged pages are kept for the next run
+                return Result.retry();
             }
-            
-            // Save export record to database
+
+            int exportVersion = getNextExportVersion(documentId, database);
+            File exportFile = fileManager.getExportFile(documentId, "pdf", exportVersion);
+            assemblePdf(pageFiles, pageSizePoints, exportFile);
+
             ExportEntity exportEntity = new ExportEntity(
                 UUID.randomUUID().toString(),
                 documentId,
-                "PDF",
+                TYPE_PDF,
                 exportFile.getAbsolutePath(),
                 exportSettings,
                 System.currentTimeMillis()
             );
-            
             database.exportDao().insertExport(exportEntity);
-            
+            deleteRecursively(stagingDir);
+
             Log.d(TAG, "Exported PDF for document: " + documentId + " to " + exportFile.getAbsolutePath());
-            
-            return Result.success();
+            return Result.success(new Data.Builder()
+                    .putString(OUTPUT_FILE, exportFile.getAbsolutePath())
+                    .build());
         } catch (Exception e) {
             Log.e(TAG, "Error exporting PDF for " + documentId, e);
+            if (!isStopped() && getRunAttemptCount() + 1 < MAX_ATTEMPTS) {
+                return Result.retry();
+            }
+            deleteRecursively(stagingDir);
             return Result.failure();
         }
     }
-    
+
+    @Override
+    public void onStopped() {
+        super.onStopped();
+        RenderBatch running = batch;
+        if (running != null) {
+            running.cancel();
+        }
+    }
+
+    /**
+     * Renders every edited page not yet in {@code stagingDir}, fitted into
+     * {@code pagePixels}, and returns the file to embed for each page in order. Unedited
+     * JPEG originals are used as they are. Returns null if the work was stopped.
+     */
+    private File[] stagePages(String documentId, List<PageEntity> pages, int quality, int[] pagePixels,
+                              File stagingDir) throws IOException {
+        if (!stagingDir.exists() && !stagingDir.mkdirs()) {
+            throw new IOException("Cannot create " + stagingDir);
+        }
+        int total = pages.size();
+        File[] pageFiles = new File[total];
+        // Staged file of each page still to render, by page index
+        Map<Integer, File> pending = new HashMap<>();
+        int fromPage = Integer.MAX_VALUE;
+        int toPage = Integer.MIN_VALUE;
+        for (int i = 0; i < total; i++) {
+            PageEntity page = pages.get(i);
+            File original = new File(page.uri_original);
+            if (EditOpsUtil.isDefault(EditOpsUtil.deserialize(page.edit_ops_json))
+                    && isEmbeddable(original)) {
+                pageFiles[i] = original;
+                continue;
+            }
+            File staged = new File(stagingDir, stagedName(page, quality, pagePixels));
+            pageFiles[i] = staged;
+            if (!staged.isFile()) {
+                pending.put(page.index, staged);
+                fromPage = Math.min(fromPage, page.index);
+                toPage = Math.max(toPage, page.index + 1);
+            }
+        }
+        if (pending.isEmpty()) {
+            return pageFiles;
+        }
+
+        int alreadyDone = total - pending.size();
+        AtomicInteger settled = new AtomicInteger();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        RenderBatch running = new RenderEngine(getApplicationContext()).renderToFileBatch(documentId,
+                fromPage, toPage, pagePixels[0], pagePixels[1], quality,
+                pageIndex -> {
+                    File staged = pending.get(pageIndex);
+                    return staged != null ? partFile(staged) : null;
+                },
+                new RenderEngine.BatchCallback() {
+                    @Override
+                    public void onPageRendered(int pageIndex, Bitmap bitmap) {
+                        File staged = pending.get(pageIndex);
+                        if (staged == null) {
+                            return;
+                        }
+                        File part = partFile(staged);
+                        if (!part.isFile() || !part.renameTo(staged)) {
+                            failure.compareAndSet(null,
+                                    new IOException("Render of page " + pageIndex + " produced no output"));
+                        }
+                        settled.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onPageFailed(int pageIndex, Exception error) {
+                        File staged = pending.get(pageIndex);
+                        if (staged == null) {
+                            return;
+                        }
+                        partFile(staged).delete();
+                        failure.compareAndSet(null, error);
+                        settled.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onProgress(int completedPages, int totalPages) {
+                        // The batch also counts skipped indices, so report pages of this document
+                        setProgressAsync(new Data.Builder()
+                                .putInt(PROGRESS_DONE, alreadyDone + settled.get())
+                                .putInt(PROGRESS_TOTAL, total)
+                                .build());
+                    }
+
+                    @Override
+                    public void onBatchComplete(boolean canceled) {
+                    }
+                });
+        batch = running;
+        if (isStopped()) {
+            // Stopped before the batch was visible to onStopped
+            running.cancel();
+        }
+        try {
+            running.await(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            running.cancel();
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            batch = null;
+        }
+        if (running.isCanceled()) {
+            return null;
+        }
+        Exception error = failure.get();
+        if (error != null) {
+            throw error instanceof IOException ? (IOException) error : new IOException(error);
+        }
+        return pageFiles;
+    }
+
+    private static File partFile(File staged) {
+        return new File(staged.getPath() + ".part");
+    }
+
+    /**
+     * Writes the PDF next to {@code exportFile} and moves it into place once complete.
+     */
+    private static void assemblePdf(File[] pageFiles, float[] pageSize, File exportFile) throws IOException {
+        File part = new File(exportFile.getPath() + ".part");
+        try (FileOutputStream output = new FileOutputStream(part);
+             PdfStreamWriter writer = new PdfStreamWriter(output.getChannel())) {
+            for (File pageFile : pageFiles) {
+                if (!PdfExportUtil.writeJpegPage(writer, pageFile, pageSize[0], pageSize[1])) {
+                    throw new IOException("Not an embeddable JPEG: " + pageFile);
+                }
+            }
+        }
+        if ((exportFile.exists() && !exportFile.delete()) || !part.renameTo(exportFile)) {
+            throw new IOException("Cannot move export into place: " + exportFile);
+        }
+    }
+
+    /**
+     * True if {@code file} is a JPEG the PDF can carry as is. Its size doesn't matter: the
+     * page's transform scales it to fit.
+     */
+    private static boolean isEmbeddable(File file) throws IOException {
+        if (!file.isFile()) {
+            return false;
+        }
+        try (FileInputStream input = new FileInputStream(file)) {
+            return JpegHeader.read(input.getChannel()) != null;
+        }
+    }
+
+    /**
+     * Staged file name for a page; a change to its edits, the quality or the page size gives
+     * a new name, so stale renders are never reused.
+     */
+    private static String stagedName(PageEntity page, int quality, int[] pagePixels) {
+        String editHash = EditOpsUtil.stableHash(EditOpsUtil.deserialize(page.edit_ops_json));
+        return page.id + "_" + editHash + "_q" + quality + "_" + pagePixels[0] + "x" + pagePixels[1] + ".jpg";
+    }
+
     private int getNextExportVersion(String documentId, AppDatabase database) {
-        // In a real implementation, you would query the database to find
-        // the highest version number for this document and increment it
-        // For now, we'll just return 1
-        return 1;
+        return nextVersion(database.exportDao().getExportFilesSync(documentId, TYPE_PDF));
+    }
+
+    /**
+     * One past the highest version among export files named {@code v<N>.<ext>}.
+     */
+    static int nextVersion(List<String> exportFiles) {
+        int highest = 0;
+        if (exportFiles != null) {
+            for (String path : exportFiles) {
+                Matcher matcher = VERSION_PATTERN.matcher(path);
+                if (matcher.find()) {
+                    try {
+                        highest = Math.max(highest, Integer.parseInt(matcher.group(1)));
+                    } catch (NumberFormatException ignored) {
+                        // Not a version we wrote
+                    }
+                }
+            }
+        }
+        return highest + 1;
+    }
+
+    /**
+     * Deletes staging directories in {@code tmpDir} left by exports that will never run
+     * again: a stopped export keeps its staged pages for the retry, which doesn't come if
+     * the work was cancelled. Runs before each export and on cache cleanup.
+     */
+    static void sweepStaging(Context context, File tmpDir) throws InterruptedException {
+        File[] dirs = tmpDir.listFiles((dir, name) -> name.startsWith(STAGING_PREFIX));
+        if (dirs == null) {
+            return;
+        }
+        WorkManager workManager = WorkManager.getInstance(context);
+        for (File dir : dirs) {
+            try {
+                UUID id = UUID.fromString(dir.getName().substring(STAGING_PREFIX.length()));
+                WorkInfo info = workManager.getWorkInfoById(id).get();
+                if (info == null || info.getState().isFinished()) {
+                    deleteRecursively(dir);
+                    Log.d(TAG, "Removed stale export staging " + dir.getName());
+                }
+            } catch (IllegalArgumentException | ExecutionException e) {
+                Log.w(TAG, "Skipped export staging " + dir.getName(), e);
+            }
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
     }
-}
\ No newline at end of file
+}
@@ -1,23 +1,55 @@
 package com.faisal.protoolkit.worker;
 
 import android.content.Context;
-import android.graphics.Bitmap;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
+import com.faisal.protoolkit.data.database.AppDatabase;
+import com.faisal.protoolkit.data.entities.DocumentEntity;
+import com.faisal.protoolkit.data.entities.PageEntity;
 import com.faisal.protoolkit.util.FileManager;
 import com.faisal.protoolkit.util.RenderEngine;
 
+/**
+ * Renders the document's cover page, with its edits, to {@code thumb.webp} in the document
+ * directory for the document list. The original is decoded straight at thumbnail width.
+ */
 public class GenerateDocThumbWorker extends Worker {
     private static final String TAG = "GenerateDocThumbWorker";
     
     public static final String DOC_ID = "document_id";
+    public static final String COVER_CHANGED = "cover_changed";
+    
+    // Width of the stored thumbnail; covers the list cell at xxhdpi
+    public static final int THUMB_WIDTH_PX = 320;
     
     public GenerateDocThumbWorker(@NonNull Context context, @NonNull WorkerParameters params) {
         super(context, params);
     }
 
+    /**
+     * Queues a thumbnail render for the document. With {@code replace} a pending render is
+     * restarted, for when the cover has just changed, and the document's {@code updated_at}
+     * is bumped once the new thumbnail is written, since the list keys cached covers on it.
+     * Otherwise one already queued is kept, so views asking for a missing thumbnail queue it
+     * once.
+     */
+    public static void enqueue(@NonNull Context context, @NonNull String documentId, boolean replace) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(GenerateDocThumbWorker.class)
+                .setInputData(new Data.Builder()
+                        .putString(DOC_ID, documentId)
+                        .putBoolean(COVER_CHANGED, replace)
+                        .build())
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork("doc-thumb-" + documentId,
+                replace ? ExistingWorkPolicy.REPLACE : ExistingWorkPolicy.KEEP, request);
+    }
+
     @NonNull
     @Override
     public Result doWork() {
@@ -28,13 +60,23 @@ public class GenerateDocThumbWorker extends Worker {
         }
 
         try {
+            AppDatabase database = AppDatabase.getDatabase(getApplicationContext());
+            DocumentEntity document = database.documentDao().getDocumentById(documentId);
+            if (document == null) {
+                Log.w(TAG, "Document not found: " + documentId);
+                return Result.failure();
+            }
+            PageEntity cover = database.pageDao().getPageByDocumentAndIndex(documentId, document.cover_page_index);
+            if (cover == null) {
+                Log.w(TAG, "No cover page for document: " + documentId);
+                return Result.failure();
+            }
             FileManager fileManager = new FileManager(getApplicationContext());
             RenderEngine renderEngine = new RenderEngine(getApplicationContext());
-            
-            // Find the cover page (first page or as specified in document metadata)
-            String thumbFileName = "thumb_doc_" + documentId + ".jpg";
-            // TODO: Implementation to generate document thumbnail
-            // This would typically take the first page or cover page and resize it
+            renderEngine.renderThumbnailToFile(cover, THUMB_WIDTH_PX, fileManager.getDocumentThumbFile(documentId));
+            if (getInputData().getBoolean(COVER_CHANGED, false)) {
+                database.documentDao().updateDocumentUpdatedAt(documentId, System.currentTimeMillis());
+            }
             Log.d(TAG, "Generated thumbnail for document: " + documentId);
             
             return Result.success();
@@ -43,4 +85,4 @@ public class GenerateDocThumbWorker extends Worker {
             return Result.failure();
         }
     }
-}
\ No newline at end of file
+}
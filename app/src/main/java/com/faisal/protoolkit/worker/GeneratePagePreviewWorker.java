@@ -1,48 +0,0 @@
-package com.faisal.protoolkit.worker;
-
-import android.content.Context;
-import android.graphics.Bitmap;
-import android.util.Log;
-import androidx.annotation.NonNull;
-import androidx.work.Worker;
-import androidx.work.WorkerParameters;
-import com.faisal.protoolkit.util.FileManager;
-import com.faisal.protoolkit.util.RenderEngine;
-
-public class GeneratePagePreviewWorker extends Worker {
-    private static final String TAG = "GeneratePagePreviewWorker";
-    
-    public static final String DOC_ID = "document_id";
-    public static final String PAGE_INDEX = "page_index";
-    
-    public GeneratePagePreviewWorker(@NonNull Context context, @NonNull WorkerParameters params) {
-        super(context, params);
-    }
-
-    @NonNull
-    @Override
-    public Result doWork() {
-        String documentId = getInputData().getString(DOC_ID);
-        int pageIndex = getInputData().getInt(PAGE_INDEX, -1);
-        
-        if (documentId == null || pageIndex < 0) {
-            Log.e(TAG, "Invalid input: documentId=" + documentId + ", pageIndex=" + pageIndex);
-            return Result.failure();
-        }
-
-        try {
-            FileManager fileManager = new FileManager(getApplicationContext());
-            RenderEngine renderEngine = new RenderEngine(getApplicationContext());
-            
-            // Generate preview for the specified page
-            String previewFileName = "preview_" + documentId + "_" + pageIndex + ".jpg";
-            // TODO: Implementation to generate page preview
-            Log.d(TAG, "Generated preview for document: " + documentId + ", page: " + pageIndex);
-            
-            return Result.success();
-        } catch (Exception e) {
-            Log.e(TAG, "Error generating page preview for " + documentId + ", page: " + pageIndex, e);
-            return Result.failure();
-        }
-    }
-}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.faisal.protoolkit.imaging;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The strip-wise {@link AdaptiveBinarizer} must produce exactly what the whole-image form does.
+ */
+public class AdaptiveBinarizerTest {
+
+    @Test
+    public void streamedMatchesWholeImageOnTinyPage() {
+        assertStreamedMatchesWhole(5, 5, 1);
+    }
+
+    @Test
+    public void streamedMatchesWholeImageOnTallNarrowPage() {
+        assertStreamedMatchesWhole(64, 3000, 2);
+    }
+
+    @Test
+    public void streamedMatchesWholeImageOnPhotoSizedPage() {
+        assertStreamedMatchesWhole(2000, 1500, 3);
+    }
+
+    @Test
+    public void binarizerIsReusableAcrossPages() {
+        AdaptiveBinarizer binarizer = new AdaptiveBinarizer();
+        int[] large = page(300, 200, 4);
+        int[] small = page(40, 90, 5);
+        stream(binarizer, large, 300, 200);
+        assertArrayEquals(whole(small, 40, 90), stream(binarizer, small, 40, 90));
+    }
+
+    private static void assertStreamedMatchesWhole(int width, int height, long seed) {
+        int[] src = page(width, height, seed);
+        assertArrayEquals(whole(src, width, height), stream(new AdaptiveBinarizer(), src, width, height));
+    }
+
+    private static int[] whole(int[] src, int width, int height) {
+        int[] dst = new int[width * height];
+        AdaptiveBinarizer.binarize(src, dst, width, height);
+        return dst;
+    }
+
+    /**
+     * Feeds rows one at a time through a single reused row buffer, the way a tiled render
+     * does, draining output after every push.
+     */
+    private static int[] stream(AdaptiveBinarizer binarizer, int[] src, int width, int height) {
+        int[] dst = new int[width * height];
+        int[] row = new int[width];
+        binarizer.begin(width, height);
+        int out = 0;
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(src, y * width, row, 0, width);
+            binarizer.pushRow(row, 0);
+            while (binarizer.pullRow(dst, out * width)) {
+                out++;
+            }
+        }
+        while (binarizer.pullRow(dst, out * width)) {
+            out++;
+        }
+        assertEquals(height, out);
+        return dst;
+    }
+
+    /**
+     * Unevenly lit page: a horizontal brightness ramp, dark "text" strokes and some noise.
+     */
+    private static int[] page(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int v = 120 + 110 * x / Math.max(1, width - 1);
+                if ((y / 3) % 7 == 2 && (x / 5) % 4 != 3) {
+                    v -= 90;
+                }
+                v = Math.max(0, Math.min(255, v + random.nextInt(21) - 10));
+                pixels[y * width + x] = 0xFF000000 | (v << 16) | (v << 8) | v;
+            }
+        }
+        return pixels;
+    }
+}
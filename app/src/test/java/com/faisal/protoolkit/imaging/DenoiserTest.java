@@ -0,0 +1,131 @@
+package com.faisal.protoolkit.imaging;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM tests for the streaming bilateral {@link Denoiser}.
+ */
+public class DenoiserTest {
+
+    private static final int WIDTH = 96;
+    private static final int HEIGHT = 64;
+    private static final int EDGE = WIDTH / 2;
+    private static final int DARK = 60;
+    private static final int LIGHT = 200;
+
+    @Test
+    public void streamedRowsMatchWholeImageFilter() {
+        int[] src = stepPage(7, 6);
+        for (float strength : new float[] {0f, 0.3f, 1f}) {
+            int[] whole = new int[src.length];
+            new Denoiser().filter(src, whole, WIDTH, HEIGHT, strength);
+            assertArrayEquals("strength " + strength, whole, stream(new Denoiser(), src, strength));
+        }
+    }
+
+    @Test
+    public void instanceIsReusableAcrossSizes() {
+        Denoiser denoiser = new Denoiser();
+        int[] small = new int[10 * 4];
+        denoiser.filter(stepPage(1, 6), new int[WIDTH * HEIGHT], WIDTH, HEIGHT, 1f);
+        denoiser.filter(small, new int[small.length], 10, 4, 0.2f);
+
+        int[] src = stepPage(8, 6);
+        int[] expected = new int[src.length];
+        new Denoiser().filter(src, expected, WIDTH, HEIGHT, 0.5f);
+        assertArrayEquals(expected, stream(denoiser, src, 0.5f));
+    }
+
+    @Test
+    public void reducesNoiseAndKeepsEdge() {
+        int[] src = stepPage(9, 6);
+        int[] dst = new int[src.length];
+        Denoiser.obtain().filter(src, dst, WIDTH, HEIGHT, 0.6f);
+
+        // Flat areas well clear of the step get smoother
+        double before = flatDeviation(src);
+        double after = flatDeviation(dst);
+        assertTrue("noise " + before + " -> " + after, after < before * 0.6);
+
+        // The step itself keeps nearly all of its contrast
+        double dark = columnMean(dst, EDGE - 1);
+        double light = columnMean(dst, EDGE);
+        assertEquals(DARK, dark, 8);
+        assertEquals(LIGHT, light, 8);
+        assertTrue(light - dark > 0.9 * (LIGHT - DARK));
+    }
+
+    /**
+     * Feeds rows through the instance's own scratch rows, as the tiled renderer does, so the
+     * filter can only rely on its ring buffers.
+     */
+    private static int[] stream(Denoiser denoiser, int[] src, float strength) {
+        int[] dst = new int[src.length];
+        denoiser.begin(WIDTH, HEIGHT, strength);
+        int[] in = denoiser.inputRow();
+        int[] outRow = denoiser.outputRow();
+        int out = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            System.arraycopy(src, y * WIDTH, in, 0, WIDTH);
+            denoiser.pushRow(in, 0);
+            while (denoiser.pullRow(outRow, 0)) {
+                System.arraycopy(outRow, 0, dst, out++ * WIDTH, WIDTH);
+            }
+        }
+        while (denoiser.pullRow(outRow, 0)) {
+            System.arraycopy(outRow, 0, dst, out++ * WIDTH, WIDTH);
+        }
+        assertEquals(HEIGHT, out);
+        return dst;
+    }
+
+    /**
+     * Dark left half, light right half, with Gaussian grain of the given deviation.
+     */
+    private static int[] stepPage(long seed, double noise) {
+        Random random = new Random(seed);
+        int[] pixels = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int base = x < EDGE ? DARK : LIGHT;
+                int v = (int) Math.round(base + random.nextGaussian() * noise);
+                v = Math.max(0, Math.min(255, v));
+                pixels[y * WIDTH + x] = 0xFF000000 | (v << 16) | (v << 8) | v;
+            }
+        }
+        return pixels;
+    }
+
+    private static double flatDeviation(int[] pixels) {
+        double sum = 0;
+        double sumSq = 0;
+        int n = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 8; x < WIDTH - 8; x++) {
+                if (Math.abs(x - EDGE) < 8) {
+                    continue;
+                }
+                int v = (pixels[y * WIDTH + x] & 0xFF) - (x < EDGE ? DARK : LIGHT);
+                sum += v;
+                sumSq += (double) v * v;
+                n++;
+            }
+        }
+        double mean = sum / n;
+        return Math.sqrt(sumSq / n - mean * mean);
+    }
+
+    private static double columnMean(int[] pixels, int x) {
+        long sum = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            sum += pixels[y * WIDTH + x] & 0xFF;
+        }
+        return (double) sum / HEIGHT;
+    }
+}
@@ -0,0 +1,72 @@
+package com.faisal.protoolkit.imaging;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link DeskewEstimator} on synthetic pages of "text" lines drawn at a known slope.
+ */
+public class DeskewEstimatorTest {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 800;
+    private static final int WHITE = 0xFFF0F0F0;
+    private static final int INK = 0xFF202020;
+    private static final float TOLERANCE = 0.2f;
+
+    @Test
+    public void straightPageNeedsNoCorrection() {
+        assertEquals(0f, DeskewEstimator.estimate(page(0f, 1), WIDTH, HEIGHT), TOLERANCE);
+    }
+
+    @Test
+    public void linesSlopingDownNeedCounterClockwiseCorrection() {
+        // Lines falling 3 degrees to the right are straightened by rotating 3 degrees back
+        assertEquals(-3f, DeskewEstimator.estimate(page(3f, 2), WIDTH, HEIGHT), TOLERANCE);
+    }
+
+    @Test
+    public void linesSlopingUpNeedClockwiseCorrection() {
+        assertEquals(7.5f, DeskewEstimator.estimate(page(-7.5f, 3), WIDTH, HEIGHT), TOLERANCE);
+    }
+
+    @Test
+    public void blankPageReportsNoSkew() {
+        int[] blank = new int[WIDTH * HEIGHT];
+        Arrays.fill(blank, WHITE);
+        assertEquals(0f, DeskewEstimator.estimate(blank, WIDTH, HEIGHT), 0f);
+    }
+
+    /**
+     * Rows of word-like ink runs whose baselines fall by {@code degrees} from left to right
+     * (image y grows downwards), with random word gaps.
+     */
+    private static int[] page(float degrees, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[WIDTH * HEIGHT];
+        Arrays.fill(pixels, WHITE);
+        double slope = Math.tan(Math.toRadians(degrees));
+        for (int line = 120; line < HEIGHT - 120; line += 24) {
+            int x = 60;
+            while (x < WIDTH - 60) {
+                int word = 20 + random.nextInt(40);
+                for (int dx = 0; dx < word && x + dx < WIDTH - 60; dx++) {
+                    int px = x + dx;
+                    int baseline = (int) Math.round(line + (px - WIDTH / 2.0) * slope);
+                    for (int dy = 0; dy < 8; dy++) {
+                        int py = baseline - dy;
+                        if (py >= 0 && py < HEIGHT) {
+                            pixels[py * WIDTH + px] = INK;
+                        }
+                    }
+                }
+                x += word + 8 + random.nextInt(10);
+            }
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,138 @@
+package com.faisal.protoolkit.imaging;
+
+import com.faisal.protoolkit.model.EditOps;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Golden-image equivalence of the GPU preview program and the CPU filter path: a synthetic
+ * page is run through {@link Sharpener} and {@link FilterKernel} as exports are, and through
+ * the shader math of {@link GpuFilterProgram}, and the two images are compared.
+ */
+public class GpuFilterProgramTest {
+
+    private static final int WIDTH = 160;
+    private static final int HEIGHT = 120;
+
+    @Test
+    public void colorModesMatchCpuPath() {
+        for (String mode : new String[] {"ORIGINAL", "GRAY", "COLOR_BOOST"}) {
+            for (float sharpen : new float[] {0f, 0.5f}) {
+                EditOps.Filter filter = filter(mode, 1.2f, 0.05f, sharpen);
+                int[][] images = renderBoth(filter);
+                assertTrue(mode + " sharpen " + sharpen, maxChannelDiff(images[0], images[1]) <= 3);
+            }
+        }
+    }
+
+    @Test
+    public void thresholdModesMatchCpuPath() {
+        for (String mode : new String[] {"BW", OtsuThreshold.MODE}) {
+            for (float sharpen : new float[] {0f, 0.5f}) {
+                EditOps.Filter filter = filter(mode, 1.0f, 0f, sharpen);
+                int[][] images = renderBoth(filter);
+                // Only pixels within rounding of the threshold may land on the other side
+                assertTrue(mode + " sharpen " + sharpen, mismatchFraction(images[0], images[1]) < 0.005);
+            }
+        }
+    }
+
+    @Test
+    public void requiredApiFollowsFilter() {
+        assertTrue(program(filter("ORIGINAL", 1f, 0f, 0f)).isIdentity());
+        assertEquals(GpuFilterProgram.API_COLOR_FILTER, program(filter("GRAY", 1f, 0f, 0f)).requiredApi());
+        assertEquals(GpuFilterProgram.API_RUNTIME_SHADER, program(filter("GRAY", 1f, 0f, 0.3f)).requiredApi());
+        assertEquals(GpuFilterProgram.API_RUNTIME_SHADER, program(filter("BW", 1f, 0f, 0f)).requiredApi());
+        assertFalse(GpuFilterProgram.canRun(filter(AdaptiveBinarizer.MODE, 1f, 0f, 0f)));
+    }
+
+    /** Returns {cpu, gpu} renders of the synthetic page. */
+    private static int[][] renderBoth(EditOps.Filter filter) {
+        int[] page = syntheticPage();
+        FilterKernel kernel = resolve(FilterKernel.compile(filter), page);
+
+        int[] cpu = new int[page.length];
+        Sharpener.sharpen(page, cpu, WIDTH, HEIGHT, filter.sharpen);
+        kernel.apply(cpu, 0, cpu, 0, cpu.length);
+
+        int[] gpu = new int[page.length];
+        GpuFilterProgram.of(kernel, filter.sharpen).apply(page, gpu, WIDTH, HEIGHT);
+        return new int[][] {cpu, gpu};
+    }
+
+    private static GpuFilterProgram program(EditOps.Filter filter) {
+        return GpuFilterProgram.of(resolve(FilterKernel.compile(filter), syntheticPage()), filter.sharpen);
+    }
+
+    private static FilterKernel resolve(FilterKernel kernel, int[] page) {
+        if (!kernel.hasAutoThreshold()) {
+            return kernel;
+        }
+        int[] histogram = new int[OtsuThreshold.BINS];
+        OtsuThreshold.accumulate(page, 0, page.length, histogram);
+        return kernel.withThreshold(OtsuThreshold.fromHistogram(histogram));
+    }
+
+    private static EditOps.Filter filter(String mode, float contrast, float brightness, float sharpen) {
+        EditOps.Filter filter = new EditOps.Filter();
+        filter.mode = mode;
+        filter.contrast = contrast;
+        filter.brightness = brightness;
+        filter.sharpen = sharpen;
+        return filter;
+    }
+
+    /** Lit paper with a colour block, dark strokes and sensor noise. */
+    private static int[] syntheticPage() {
+        Random random = new Random(17);
+        int[] pixels = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int paper = 190 + (x + y) * 50 / (WIDTH + HEIGHT);
+                int r = paper;
+                int g = paper;
+                int b = paper - 10;
+                if (x > 100 && y > 70) {
+                    r = 200;
+                    g = 90;
+                    b = 60;
+                } else if ((y % 12) < 3 && (x % 40) < 30) {
+                    r = g = b = 40;
+                }
+                int n = random.nextInt(17) - 8;
+                pixels[y * WIDTH + x] = 0xFF000000 | (clamp(r + n) << 16) | (clamp(g + n) << 8) | clamp(b + n);
+            }
+        }
+        return pixels;
+    }
+
+    private static int maxChannelDiff(int[] a, int[] b) {
+        int max = 0;
+        for (int i = 0; i < a.length; i++) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                max = Math.max(max, Math.abs(((a[i] >>> shift) & 0xFF) - ((b[i] >>> shift) & 0xFF)));
+            }
+        }
+        return max;
+    }
+
+    private static double mismatchFraction(int[] a, int[] b) {
+        int mismatches = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                mismatches++;
+            }
+        }
+        return mismatches / (double) a.length;
+    }
+
+    private static int clamp(int v) {
+        return v < 0 ? 0 : (v > 255 ? 255 : v);
+    }
+}
@@ -0,0 +1,146 @@
+package com.faisal.protoolkit.imaging;
+
+import com.faisal.protoolkit.model.EditOps;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM tests for the platform-neutral pixel kernels.
+ */
+public class PixelOpsTest {
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    @Test
+    public void grayscaleEqualisesChannels() {
+        PixelPlane src = noise(31, 17, 1);
+        PixelPlane dst = new PixelPlane(31, 17);
+        PixelOps.grayscale(src, dst);
+        for (int p : dst.pixels) {
+            int r = (p >> 16) & 0xFF;
+            assertEquals(r, (p >> 8) & 0xFF, 1);
+            assertEquals(r, p & 0xFF, 1);
+        }
+    }
+
+    @Test
+    public void identityMatrixLeavesPixelsUnchanged() {
+        PixelPlane src = noise(20, 10, 2);
+        PixelPlane dst = new PixelPlane(20, 10);
+        PixelOps.colorMatrix(src, dst, FilterKernel.scale(1f, 0f));
+        assertArrayEquals(src.pixels, dst.pixels);
+    }
+
+    @Test
+    public void thresholdSplitsOnLuminance() {
+        PixelPlane src = PixelPlane.wrap(new int[] {gray(10), gray(127), gray(128), gray(250)}, 4, 1);
+        PixelPlane dst = new PixelPlane(4, 1);
+        PixelOps.threshold(src, dst, 127);
+        assertArrayEquals(new int[] {BLACK, BLACK, WHITE, WHITE}, dst.pixels);
+
+        LumaPlane luma = new LumaPlane(4, 1);
+        PixelOps.luminance(src, luma);
+        PixelOps.threshold(luma, dst, 127);
+        assertArrayEquals(new int[] {BLACK, BLACK, WHITE, WHITE}, dst.pixels);
+    }
+
+    @Test
+    public void otsuSeparatesBimodalPage() {
+        int[] pixels = new int[1000];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = i % 5 == 0 ? gray(40) : gray(200);
+        }
+        PixelPlane src = PixelPlane.wrap(pixels, 100, 10);
+        PixelPlane dst = new PixelPlane(100, 10);
+        int t = PixelOps.autoThreshold(src, dst);
+        assertTrue(t >= 40 && t < 200);
+        for (int i = 0; i < pixels.length; i++) {
+            assertEquals(i % 5 == 0 ? BLACK : WHITE, dst.pixels[i]);
+        }
+    }
+
+    @Test
+    public void autoBwModeCompilesToResolvableThreshold() {
+        EditOps.Filter filter = new EditOps.Filter();
+        filter.mode = OtsuThreshold.MODE;
+        FilterKernel kernel = FilterKernel.compile(filter);
+        assertTrue(kernel.hasAutoThreshold());
+        PixelPlane src = PixelPlane.wrap(new int[] {gray(99), gray(101)}, 2, 1);
+        PixelPlane dst = new PixelPlane(2, 1);
+        PixelOps.apply(kernel.withThreshold(100), src, dst);
+        assertArrayEquals(new int[] {BLACK, WHITE}, dst.pixels);
+    }
+
+    @Test
+    public void boxBlurKeepsFlatImage() {
+        int[] flat = new int[12 * 9];
+        Arrays.fill(flat, 0xFF336699);
+        PixelPlane dst = new PixelPlane(12, 9);
+        PixelOps.convolve(PixelPlane.wrap(flat, 12, 9), dst, new int[] {1, 1, 1, 1, 1, 1, 1, 1, 1}, 3);
+        assertArrayEquals(flat, dst.pixels);
+    }
+
+    @Test
+    public void identityKernelCopiesStridedRegion() {
+        PixelPlane page = noise(16, 16, 3);
+        PixelPlane region = page.region(4, 5, 6, 7);
+        PixelPlane dst = new PixelPlane(6, 7);
+        PixelOps.convolve(region, dst, new int[] {0, 0, 0, 0, 1, 0, 0, 0, 0}, 3);
+        assertArrayEquals(region.copy().pixels, dst.pixels);
+    }
+
+    @Test
+    public void rotateMapsCornersClockwise() {
+        PixelPlane src = noise(5, 3, 4);
+        PixelPlane rotated = PixelOps.rotate(src, 90);
+        assertEquals(3, rotated.width);
+        assertEquals(5, rotated.height);
+        // Clockwise: the bottom-left source pixel becomes the top-left output pixel
+        assertEquals(src.get(0, 2), rotated.get(0, 0));
+        assertEquals(src.get(4, 2), rotated.get(0, 4));
+
+        PixelPlane back = PixelOps.rotate(PixelOps.rotate(PixelOps.rotate(rotated, 90), 90), 90);
+        assertArrayEquals(src.pixels, back.pixels);
+    }
+
+    @Test
+    public void fullPageCropWithRotationMatchesRightAngleRotation() {
+        PixelPlane src = noise(24, 18, 5);
+        EditOps editOps = new EditOps();
+        editOps.setCrop(0f, 0f, 1f, 0f, 1f, 1f, 0f, 1f);
+        editOps.rotate = 270;
+        PerspectiveWarp warp = PerspectiveWarp.fromEditOps(editOps, src.width, src.height);
+        assertArrayEquals(PixelOps.rotate(src, 270).pixels, PixelOps.warp(src, warp).pixels);
+    }
+
+    @Test
+    public void sharpenInPlaceMatchesSeparateOutput() {
+        PixelPlane src = noise(40, 30, 6);
+        PixelPlane dst = new PixelPlane(40, 30);
+        PixelOps.sharpen(src, dst, 0.7f);
+        PixelPlane inPlace = src.copy();
+        PixelOps.sharpen(inPlace, inPlace, 0.7f);
+        assertArrayEquals(dst.pixels, inPlace.pixels);
+    }
+
+    private static PixelPlane noise(int width, int height, long seed) {
+        Random random = new Random(seed);
+        PixelPlane plane = new PixelPlane(width, height);
+        for (int i = 0; i < plane.pixels.length; i++) {
+            plane.pixels[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        return plane;
+    }
+
+    private static int gray(int v) {
+        return 0xFF000000 | (v << 16) | (v << 8) | v;
+    }
+}
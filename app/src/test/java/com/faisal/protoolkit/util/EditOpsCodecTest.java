@@ -0,0 +1,100 @@
+package com.faisal.protoolkit.util;
+
+import com.faisal.protoolkit.model.EditOps;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trips through {@link EditOpsCodec}, format detection in {@link EditOpsUtil} and
+ * rejection of damaged or unknown records.
+ */
+public class EditOpsCodecTest {
+
+    @Test
+    public void binaryRoundTripMatchesJson() {
+        EditOps editOps = sample();
+        byte[] encoded = EditOpsCodec.encode(editOps);
+
+        EditOps decoded = EditOpsUtil.deserialize(encoded);
+        assertEquals(EditOpsUtil.serialize(editOps), EditOpsUtil.serialize(decoded));
+        assertEquals(EditOpsUtil.stableHash(editOps), EditOpsUtil.stableHash(decoded));
+    }
+
+    @Test
+    public void deserializeAcceptsBothFormats() {
+        EditOps editOps = sample();
+        byte[] json = EditOpsUtil.serialize(editOps).getBytes(StandardCharsets.UTF_8);
+        assertFalse(EditOpsCodec.isEncoded(json));
+
+        EditOps fromJson = EditOpsUtil.deserialize(json);
+        EditOps fromBinary = EditOpsUtil.deserialize(ByteBuffer.wrap(EditOpsCodec.encode(editOps)));
+        assertEquals(EditOpsUtil.serialize(fromJson), EditOpsUtil.serialize(fromBinary));
+    }
+
+    @Test
+    public void viewReadsFieldsInPlace() {
+        EditOps editOps = sample();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(EditOpsCodec.encode(editOps).length);
+        buffer.put(EditOpsCodec.encode(editOps)).flip();
+
+        EditOpsCodec.View view = EditOpsCodec.view(buffer);
+        assertNotNull(view);
+        assertEquals(90, view.rotate());
+        assertEquals("ADAPTIVE_BW", view.filterMode());
+        float[] crop = new float[8];
+        assertTrue(view.crop(crop));
+        assertArrayEquals(new float[] {0.1f, 0.05f, 0.9f, 0.04f, 0.95f, 0.92f, 0.08f, 0.97f}, crop, 0f);
+        assertFalse(view.warp(new float[9]));
+    }
+
+    @Test
+    public void customModeAndMissingFilterSurvive() {
+        EditOps editOps = new EditOps();
+        editOps.filter.mode = "SEPIA";
+        assertEquals("SEPIA", EditOpsCodec.decode(EditOpsCodec.encode(editOps)).filter.mode);
+
+        editOps.filter = null;
+        assertNull(EditOpsCodec.decode(EditOpsCodec.encode(editOps)).filter);
+    }
+
+    @Test
+    public void damagedOrUnknownRecordsAreRejected() {
+        byte[] encoded = EditOpsCodec.encode(sample());
+
+        byte[] corrupt = encoded.clone();
+        corrupt[10] ^= 0x01;
+        assertNull(EditOpsCodec.decode(corrupt));
+        assertTrue(EditOpsUtil.isDefault(EditOpsUtil.deserialize(corrupt)));
+
+        byte[] future = encoded.clone();
+        future[3] = (byte) (EditOpsCodec.VERSION + 1);
+        assertNull(EditOpsCodec.decode(future));
+
+        byte[] truncated = new byte[encoded.length - 1];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+        assertNull(EditOpsCodec.decode(truncated));
+    }
+
+    private static EditOps sample() {
+        EditOps editOps = new EditOps();
+        editOps.setCrop(0.1f, 0.05f, 0.9f, 0.04f, 0.95f, 0.92f, 0.08f, 0.97f);
+        editOps.rotate = 90;
+        editOps.denoise = 0.25f;
+        editOps.deskew = -1.5f;
+        editOps.filter.mode = "ADAPTIVE_BW";
+        editOps.filter.contrast = 1.3f;
+        editOps.filter.brightness = 0.1f;
+        editOps.filter.sharpen = 0.4f;
+        return editOps;
+    }
+}
@@ -0,0 +1,152 @@
+package com.faisal.protoolkit.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Structure checks for {@link PdfStreamWriter}: every cross-reference entry must point at its
+ * object and JPEG pages must carry the file's bytes unchanged.
+ */
+public class PdfStreamWriterTest {
+
+    @Test
+    public void xrefOffsetsPointAtObjects() throws IOException {
+        byte[] pdf = writeDocument(jpeg(40, 30, 3), jpeg(40, 50, 1));
+        String text = new String(pdf, StandardCharsets.ISO_8859_1);
+
+        int startxref = Integer.parseInt(text.substring(text.lastIndexOf("startxref\n") + 10,
+                text.lastIndexOf("\n%%EOF")).trim());
+        assertTrue(text.startsWith("xref\n", startxref));
+        String[] lines = text.substring(startxref).split("\n");
+        int count = Integer.parseInt(lines[1].split(" ")[1]);
+        // 2 pages x (image, content, page) + catalog + pages, plus the free entry
+        assertEquals(9, count);
+        for (int id = 1; id < count; id++) {
+            String entry = lines[2 + id];
+            assertEquals(20, entry.length() + 1);
+            int offset = Integer.parseInt(entry.substring(0, 10));
+            assertTrue("object " + id, text.startsWith(id + " 0 obj\n", offset));
+        }
+        assertTrue(text.contains("/Type /Pages /Kids [5 0 R 8 0 R ] /Count 2"));
+    }
+
+    @Test
+    public void jpegPageEmbedsFileBytes() throws IOException {
+        byte[] jpeg = jpeg(640, 480, 3);
+        File source = File.createTempFile("page", ".jpg");
+        File pdf = File.createTempFile("doc", ".pdf");
+        try {
+            Files.write(source.toPath(), jpeg);
+            try (FileChannel in = FileChannel.open(source.toPath());
+                 FileChannel out = FileChannel.open(pdf.toPath(), StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING);
+                 PdfStreamWriter writer = new PdfStreamWriter(out)) {
+                JpegHeader header = JpegHeader.read(in);
+                assertEquals(640, header.width);
+                assertEquals(480, header.height);
+                assertEquals(3, header.components);
+                writer.addJpegPage(595, 842, 0, 198, 595, 446, header, in);
+            }
+            byte[] bytes = Files.readAllBytes(pdf.toPath());
+            String text = new String(bytes, StandardCharsets.ISO_8859_1);
+            assertTrue(text.contains("/Width 640 /Height 480 /ColorSpace /DeviceRGB"
+                    + " /BitsPerComponent 8 /Filter /DCTDecode /Length " + jpeg.length));
+            int start = text.indexOf("stream\n") + 7;
+            byte[] embedded = new byte[jpeg.length];
+            System.arraycopy(bytes, start, embedded, 0, jpeg.length);
+            assertArrayEquals(jpeg, embedded);
+            assertTrue(text.startsWith("\nendstream", start + jpeg.length));
+        } finally {
+            source.delete();
+            pdf.delete();
+        }
+    }
+
+    @Test
+    public void jpegHeaderRejectsUnsupportedFiles() throws IOException {
+        assertNull(readHeader(new byte[] {'%', 'P', 'D', 'F'}));
+        // CMYK
+        assertNull(readHeader(jpeg(10, 10, 4)));
+    }
+
+    /**
+     * Writes each JPEG as a page through the stream (not file channel) constructor.
+     */
+    private static byte[] writeDocument(byte[]... pages) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PdfStreamWriter writer = new PdfStreamWriter(bytes)) {
+            for (byte[] page : pages) {
+                File file = File.createTempFile("page", ".jpg");
+                try {
+                    Files.write(file.toPath(), page);
+                    try (FileChannel in = FileChannel.open(file.toPath())) {
+                        JpegHeader header = JpegHeader.read(in);
+                        writer.addJpegPage(595, 842, 10, 20, 300, 400, header, in);
+                    }
+                } finally {
+                    file.delete();
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Smallest marker sequence the header reader needs: SOI, an APP0 segment, a baseline
+     * frame header and EOI; entropy data is irrelevant to the writer.
+     */
+    private static byte[] jpeg(int width, int height, int components) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(0xFF);
+        bytes.write(0xD8);
+        bytes.write(0xFF);
+        bytes.write(0xE0);
+        bytes.write(0);
+        bytes.write(4);
+        bytes.write('J');
+        bytes.write('F');
+        int length = 8 + 3 * components;
+        bytes.write(0xFF);
+        bytes.write(0xC0);
+        bytes.write(length >> 8);
+        bytes.write(length);
+        bytes.write(8);
+        bytes.write(height >> 8);
+        bytes.write(height);
+        bytes.write(width >> 8);
+        bytes.write(width);
+        bytes.write(components);
+        for (int i = 0; i < components; i++) {
+            bytes.write(i + 1);
+            bytes.write(0x11);
+            bytes.write(0);
+        }
+        bytes.write(0xFF);
+        bytes.write(0xD9);
+        return bytes.toByteArray();
+    }
+
+    private static JpegHeader readHeader(byte[] data) throws IOException {
+        File file = File.createTempFile("header", ".jpg");
+        try {
+            Files.write(file.toPath(), data);
+            try (FileChannel channel = FileChannel.open(file.toPath())) {
+                return JpegHeader.read(channel);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.faisal.protoolkit.benchmark;
+
+import com.faisal.protoolkit.imaging.AdaptiveBinarizer;
+import com.faisal.protoolkit.imaging.Denoiser;
+import com.faisal.protoolkit.imaging.FilterKernel;
+import com.faisal.protoolkit.imaging.OtsuThreshold;
+import com.faisal.protoolkit.imaging.PerspectiveWarp;
+import com.faisal.protoolkit.imaging.PixelOps;
+import com.faisal.protoolkit.imaging.PixelPlane;
+import com.faisal.protoolkit.imaging.Sharpener;
+import com.faisal.protoolkit.model.EditOps;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full edit chain in render order: crop/warp with rotation, denoise, sharpen, the fused
+ * colour kernel, then for {@code ADAPTIVE_BW} the neighbourhood threshold. Each stage
+ * allocates its output like the bitmap pipeline does, so the allocation rate tracks what a
+ * page render costs the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChainBenchmark {
+
+    @Param({"2", "8", "12"})
+    public int megapixels;
+
+    @Param({"GRAY", "BW", "AUTO_BW", "ADAPTIVE_BW", "COLOR_BOOST"})
+    public String mode;
+
+    private PixelPlane page;
+    private EditOps editOps;
+
+    @Setup
+    public void setUp() {
+        page = SyntheticPage.create(megapixels);
+        editOps = new EditOps();
+        editOps.setCrop(0.06f, 0.04f, 0.95f, 0.07f, 0.97f, 0.96f, 0.03f, 0.93f);
+        editOps.rotate = 90;
+        editOps.denoise = 0.3f;
+        editOps.filter = StageBenchmark.filter(mode, 1.2f, 0.05f);
+        editOps.filter.sharpen = 0.4f;
+    }
+
+    @Benchmark
+    public PixelPlane fullChain() {
+        PerspectiveWarp warp = PerspectiveWarp.fromEditOps(editOps, page.width, page.height);
+        PixelPlane geometry = PixelOps.warp(page, warp);
+        int width = geometry.width;
+        int height = geometry.height;
+
+        PixelPlane denoised = new PixelPlane(width, height);
+        Denoiser.obtain().filter(geometry.pixels, denoised.pixels, width, height, editOps.denoise);
+
+        PixelPlane result = new PixelPlane(width, height);
+        Sharpener.sharpen(denoised.pixels, result.pixels, width, height, editOps.filter.sharpen);
+
+        FilterKernel kernel = FilterKernel.compile(editOps.filter);
+        if (kernel.hasAutoThreshold()) {
+            int[] histogram = new int[OtsuThreshold.BINS];
+            OtsuThreshold.accumulate(denoised.pixels, 0, width * height, histogram);
+            kernel = kernel.withThreshold(OtsuThreshold.fromHistogram(histogram));
+        }
+        PixelOps.apply(kernel, result, result);
+        if (AdaptiveBinarizer.MODE.equals(editOps.filter.mode)) {
+            AdaptiveBinarizer.binarize(result.pixels, result.pixels, width, height);
+        }
+        return result;
+    }
+}
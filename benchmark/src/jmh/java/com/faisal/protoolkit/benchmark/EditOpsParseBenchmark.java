@@ -0,0 +1,77 @@
+package com.faisal.protoolkit.benchmark;
+
+import com.faisal.protoolkit.model.EditOps;
+import com.faisal.protoolkit.util.EditOpsCodec;
+import com.faisal.protoolkit.util.EditOpsUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse throughput of stored edit operations: Gson JSON as in pages.edit_ops_json against
+ * the binary record, fully decoded or read through a view. Run with the gc profiler to see
+ * the boxing the JSON path pays for crop and warp.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EditOpsParseBenchmark {
+
+    // "plain": filter only; "geometry": crop, warp and every scalar set
+    @Param({"plain", "geometry"})
+    public String shape;
+
+    private String json;
+    private byte[] binary;
+    private ByteBuffer direct;
+    private final float[] crop = new float[8];
+
+    @Setup
+    public void setUp() {
+        EditOps editOps = new EditOps();
+        editOps.filter = StageBenchmark.filter("AUTO_BW", 1.2f, 0.05f);
+        if ("geometry".equals(shape)) {
+            editOps.setCrop(0.06f, 0.04f, 0.95f, 0.07f, 0.97f, 0.96f, 0.03f, 0.93f);
+            editOps.warp = new float[][] {{1.02f, 0.01f, -0.01f}, {0.02f, 0.98f, 0.01f}, {0.001f, 0.002f, 1f}};
+            editOps.rotate = 90;
+            editOps.denoise = 0.3f;
+            editOps.deskew = 1.25f;
+            editOps.filter.sharpen = 0.4f;
+        }
+        json = EditOpsUtil.serialize(editOps);
+        binary = EditOpsUtil.toBytes(editOps);
+        // Stands in for a mapped sidecar file
+        direct = ByteBuffer.allocateDirect(binary.length);
+        direct.put(binary).flip();
+    }
+
+    @Benchmark
+    public EditOps json() {
+        return EditOpsUtil.deserialize(json);
+    }
+
+    @Benchmark
+    public EditOps binary() {
+        return EditOpsUtil.deserialize(binary);
+    }
+
+    @Benchmark
+    public EditOps binaryDirect() {
+        return EditOpsUtil.deserialize(direct);
+    }
+
+    @Benchmark
+    public float viewCrop() {
+        EditOpsCodec.View view = EditOpsCodec.view(direct);
+        return view.crop(crop) ? crop[0] + view.rotate() : view.rotate();
+    }
+}
@@ -0,0 +1,139 @@
+package com.faisal.protoolkit.benchmark;
+
+import com.faisal.protoolkit.imaging.AdaptiveBinarizer;
+import com.faisal.protoolkit.imaging.Denoiser;
+import com.faisal.protoolkit.imaging.FilterKernel;
+import com.faisal.protoolkit.imaging.OtsuThreshold;
+import com.faisal.protoolkit.imaging.PerspectiveWarp;
+import com.faisal.protoolkit.imaging.PixelOps;
+import com.faisal.protoolkit.imaging.PixelPlane;
+import com.faisal.protoolkit.imaging.Sharpener;
+import com.faisal.protoolkit.model.EditOps;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of each {@link EditOps} stage on its own. Output buffers are preallocated, so
+ * the GC profiler's allocation rate shows what a kernel allocates per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StageBenchmark {
+
+    private static final float SHARPEN_AMOUNT = 0.5f;
+
+    @Param({"2", "8", "12"})
+    public int megapixels;
+
+    private PixelPlane page;
+    private int[] out;
+    private FilterKernel gray;
+    private FilterKernel blackAndWhite;
+    private FilterKernel colorBoost;
+    private FilterKernel contrastBrightness;
+    private FilterKernel contrastSharpen;
+    private PerspectiveWarp crop;
+
+    @Setup
+    public void setUp() {
+        page = SyntheticPage.create(megapixels);
+        out = new int[page.pixels.length];
+        gray = FilterKernel.compile(filter("GRAY", 1f, 0f));
+        blackAndWhite = FilterKernel.compile(filter("BW", 1f, 0f));
+        colorBoost = FilterKernel.compile(filter("COLOR_BOOST", 1f, 0f));
+        contrastBrightness = FilterKernel.compile(filter("ORIGINAL", 1.3f, 0.1f));
+        // The colour-matrix "sharpen" Sharpener replaced: contrast s = 1 + 0.1 * amount about
+        // mid-grey, i.e. offset -128 * (s - 1), expressed through contrast and brightness
+        float s = 1.0f + 0.1f * SHARPEN_AMOUNT;
+        contrastSharpen = FilterKernel.compile(filter("ORIGINAL", s, -128.0f * (s - 1.0f) / 255.0f));
+
+        EditOps editOps = new EditOps();
+        // A mildly keystoned page, typical of a handheld capture
+        editOps.setCrop(0.06f, 0.04f, 0.95f, 0.07f, 0.97f, 0.96f, 0.03f, 0.93f);
+        crop = PerspectiveWarp.fromEditOps(editOps, page.width, page.height);
+    }
+
+    @Benchmark
+    public int[] grayscale() {
+        gray.apply(page.pixels, 0, out, 0, out.length);
+        return out;
+    }
+
+    @Benchmark
+    public int[] blackAndWhite() {
+        blackAndWhite.apply(page.pixels, 0, out, 0, out.length);
+        return out;
+    }
+
+    @Benchmark
+    public int autoBlackAndWhite() {
+        return OtsuThreshold.binarize(page.pixels, 0, out, 0, out.length);
+    }
+
+    @Benchmark
+    public int[] adaptiveBlackAndWhite() {
+        AdaptiveBinarizer.binarize(page.pixels, out, page.width, page.height);
+        return out;
+    }
+
+    @Benchmark
+    public int[] colorBoost() {
+        colorBoost.apply(page.pixels, 0, out, 0, out.length);
+        return out;
+    }
+
+    @Benchmark
+    public int[] contrastBrightness() {
+        contrastBrightness.apply(page.pixels, 0, out, 0, out.length);
+        return out;
+    }
+
+    @Benchmark
+    public int[] sharpen() {
+        Sharpener.sharpen(page.pixels, out, page.width, page.height, SHARPEN_AMOUNT);
+        return out;
+    }
+
+    /** Baseline for {@link #sharpen()}: the single-pass contrast matrix it replaced. */
+    @Benchmark
+    public int[] contrastSharpen() {
+        contrastSharpen.apply(page.pixels, 0, out, 0, out.length);
+        return out;
+    }
+
+    @Benchmark
+    public int[] denoise() {
+        Denoiser.obtain().filter(page.pixels, out, page.width, page.height, 0.5f);
+        return out;
+    }
+
+    @Benchmark
+    public int[] rotate() {
+        PixelOps.rotateRows(page.pixels, page.width, page.height, 90, out, page.height, page.width);
+        return out;
+    }
+
+    @Benchmark
+    public int[] perspectiveCrop() {
+        crop.warp(page.pixels, page.width, page.height, out);
+        return out;
+    }
+
+    static EditOps.Filter filter(String mode, float contrast, float brightness) {
+        EditOps.Filter filter = new EditOps.Filter();
+        filter.mode = mode;
+        filter.contrast = contrast;
+        filter.brightness = brightness;
+        return filter;
+    }
+}
@@ -0,0 +1,45 @@
+package com.faisal.protoolkit.benchmark;
+
+import com.faisal.protoolkit.imaging.PixelPlane;
+
+/**
+ * Deterministic page-like test frames: off-white paper under a lighting gradient, lines of
+ * dark "text" blocks and mild sensor noise, so thresholds and neighbourhood filters see
+ * realistic content.
+ */
+final class SyntheticPage {
+
+    private SyntheticPage() {
+    }
+
+    /**
+     * A 3:4 portrait frame of roughly {@code megapixels} million pixels.
+     */
+    static PixelPlane create(int megapixels) {
+        int height = (int) Math.round(Math.sqrt(megapixels * 1_000_000.0 * 4 / 3));
+        int width = height * 3 / 4;
+        PixelPlane page = new PixelPlane(width, height);
+        int lineHeight = Math.max(8, height / 60);
+        int glyph = Math.max(4, lineHeight / 2);
+        int seed = 0x2545F491;
+        for (int y = 0; y < height; y++) {
+            boolean textRow = (y % lineHeight) >= lineHeight / 4 && (y % lineHeight) < lineHeight * 3 / 4;
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                // Paper brightens towards the top-left like a page lit from one side
+                int paper = 235 - (40 * x) / width - (30 * y) / height;
+                int v = paper;
+                if (textRow && x > width / 12 && x < width * 11 / 12 && ((x / glyph) % 3) != 2) {
+                    v = 30 + (paper >> 3);
+                }
+                seed ^= seed << 13;
+                seed ^= seed >>> 17;
+                seed ^= seed << 5;
+                v += (seed & 15) - 8;
+                v = v < 0 ? 0 : (v > 255 ? 255 : v);
+                page.pixels[row + x] = 0xFF000000 | (v << 16) | (Math.max(0, v - 6) << 8) | Math.max(0, v - 14);
+            }
+        }
+        return page;
+    }
+}